@@ -0,0 +1,51 @@
+package io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.List;
+import model.City;
+import model.WeatherRecordStore;
+
+/**
+ * Compares the cities returned by different loaders.
+ */
+final class LoaderAssertions {
+    private LoaderAssertions() {
+    }
+
+    /**
+     * Asserts that two lists hold the same cities, in any order, with the same
+     * records in the same order. Values are compared bit for bit, so -0.0 and
+     * NaN have to survive too.
+     */
+    static void assertSameCities(List<City> expected, List<City> actual) {
+        List<City> expectedSorted = expected.stream().sorted(Comparator.comparing(City::getName)).toList();
+        List<City> actualSorted = actual.stream().sorted(Comparator.comparing(City::getName)).toList();
+        assertEquals(expectedSorted.stream().map(City::getName).toList(),
+            actualSorted.stream().map(City::getName).toList());
+        for (int i = 0; i < expectedSorted.size(); i++) {
+            assertSameRecords(expectedSorted.get(i), actualSorted.get(i));
+        }
+    }
+
+    private static void assertSameRecords(City expectedCity, City actualCity) {
+        WeatherRecordStore expected = expectedCity.getRecordStore();
+        WeatherRecordStore actual = actualCity.getRecordStore();
+        String name = expectedCity.getName();
+        assertEquals(expected.size(), actual.size(), "record count of " + name);
+        for (int slot = 0; slot < expected.size(); slot++) {
+            String where = name + " at slot " + slot;
+            assertEquals(expected.getEpochDay(slot), actual.getEpochDay(slot), "day of " + where);
+            assertEquals(bits(expected.getTemperature(slot)), bits(actual.getTemperature(slot)), "temperature of " + where);
+            assertEquals(bits(expected.getHumidity(slot)), bits(actual.getHumidity(slot)), "humidity of " + where);
+            assertEquals(bits(expected.getWindSpeed(slot)), bits(actual.getWindSpeed(slot)), "wind speed of " + where);
+            assertEquals(expected.getWeatherConditionOrdinal(slot), actual.getWeatherConditionOrdinal(slot),
+                "condition of " + where);
+        }
+    }
+
+    private static long bits(double value) {
+        return Double.doubleToRawLongBits(value);
+    }
+}
@@ -0,0 +1,127 @@
+package io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import model.City;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that the byte-level loaders accept the same input as
+ * {@link CSVWeatherDataLoader} and fail on the same rows with the same messages.
+ */
+class MappedCSVWeatherDataLoaderTest {
+    // Tests run from the app module; the data file sits at the repository root
+    private static final String BUNDLED_CSV = "../weather_data.csv";
+    private static final String HEADER = "City,Date,Temperature,Humidity,WindSpeed,Condition\n";
+    private static final String GOOD_ROW = "İzmir,2025-01-01,12,78,15,Cloudy\n";
+
+    @TempDir
+    Path dir;
+
+    private static List<IWeatherDataLoader> loaders() {
+        return List.of(
+            new MappedCSVWeatherDataLoader(),
+            // Windows small enough to split the file mid-line many times
+            new MappedCSVWeatherDataLoader(64, null),
+            new ParallelCSVWeatherDataLoader(4));
+    }
+
+    private String csv(String content) throws Exception {
+        return Files.writeString(dir.resolve("weather.csv"), content).toString();
+    }
+
+    @Test
+    void bundledFileLoadsLikeCSVLoader() throws Exception {
+        List<City> expected = new CSVWeatherDataLoader().load(BUNDLED_CSV);
+        assertFalse(expected.isEmpty());
+
+        for (IWeatherDataLoader loader : loaders()) {
+            LoaderAssertions.assertSameCities(expected, loader.load(BUNDLED_CSV));
+        }
+    }
+
+    @Test
+    void unusualButValidValuesLoadLikeCSVLoader() throws Exception {
+        // In date order, as the parallel loader sorts each city's records
+        String path = csv(HEADER
+            + "Van,2024-02-29,-12.125,1,0.1,Cloudy\n"
+            + "Van,2025-01-01,-0.0,0,0.0,partly cloudy\r\n"
+            + "Van,2025-01-02,+1.5,007,1e1,SUNNY\n"
+            + "Van,2025-01-02,NaN,-5,.5,Heavy_Snow\n"
+            + "Van,2025-01-03,0.30000000000000004,100,123456789012345678,rainy\n"
+            + "Van,2025-01-04,1.5,50,2.,Snowy,,");
+        List<City> expected = new CSVWeatherDataLoader().load(path);
+
+        for (IWeatherDataLoader loader : loaders()) {
+            LoaderAssertions.assertSameCities(expected, loader.load(path));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "İzmir,2025-01-03,12,78,15",
+        "İzmir,2025-01-03,12,78,15,Cloudy,extra",
+        "",
+        ",,,,,",
+        "İzmir,2025-02-30,12,78,15,Cloudy",
+        "İzmir,2025-1-3,12,78,15,Cloudy",
+        "İzmir,,12,78,15,Cloudy",
+        "İzmir,2025-01-03,twelve,78,15,Cloudy",
+        "İzmir,2025-01-03,1.2.3,78,15,Cloudy",
+        "İzmir,2025-01-03,-,78,15,Cloudy",
+        "İzmir,2025-01-03,12,78.5,15,Cloudy",
+        "İzmir,2025-01-03,12,99999999999,15,Cloudy",
+        "İzmir,2025-01-03,12,78,,Cloudy",
+        "İzmir,2025-01-03,12,78,15,Foggy",
+        "İzmir,2025-01-03,12,78,15,Cloudy ",
+        "İzmir,2025-01-03,12,78,15,Şimşek"
+    })
+    void malformedRowFailsLikeCSVLoader(String row) throws Exception {
+        String path = csv(HEADER + GOOD_ROW + row + "\n" + GOOD_ROW);
+        Exception expected = assertThrows(Exception.class, () -> new CSVWeatherDataLoader().load(path));
+
+        for (IWeatherDataLoader loader : loaders()) {
+            Exception actual = assertThrows(Exception.class, () -> loader.load(path));
+            assertEquals(expected.getClass(), actual.getClass(), loader.getClass().getSimpleName());
+            assertEquals(expected.getMessage(), actual.getMessage(), loader.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void emptyFileFailsLikeCSVLoader() throws Exception {
+        String path = csv("");
+        Exception expected = assertThrows(Exception.class, () -> new CSVWeatherDataLoader().load(path));
+
+        for (IWeatherDataLoader loader : loaders()) {
+            Exception actual = assertThrows(Exception.class, () -> loader.load(path));
+            assertEquals(expected.getMessage(), actual.getMessage(), loader.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void headerOnlyFileHasNoCities() throws Exception {
+        String path = csv(HEADER);
+        assertTrue(new CSVWeatherDataLoader().load(path).isEmpty());
+
+        for (IWeatherDataLoader loader : loaders()) {
+            assertTrue(loader.load(path).isEmpty(), loader.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void lineLongerThanWindowIsRejected() throws Exception {
+        String path = csv(HEADER + GOOD_ROW + "İzmir,2025-01-02," + "1".repeat(100) + ",78,15,Cloudy\n");
+
+        Exception e = assertThrows(Exception.class, () -> new MappedCSVWeatherDataLoader(64, null).load(path));
+        assertEquals("Invalid CSV format: line longer than 64 bytes", e.getMessage());
+    }
+}
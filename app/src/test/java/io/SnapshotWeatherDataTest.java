@@ -0,0 +1,131 @@
+package io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import enums.WeatherCondition;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import model.City;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotWeatherDataTest {
+    private static final int FIRST_DAY = 20089; // 2025-01-01
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Creates cities of different sizes, one with compressed history, one with
+     * out-of-order dates and one without records.
+     */
+    private static List<City> cities() {
+        Random random = new Random(3);
+        City izmir = new City("İzmir");
+        for (int i = 0; i < 1500; i++) {
+            double temperature = i == 5 ? -0.0 : i == 6 ? Double.NaN : Math.round(random.nextGaussian() * 100) / 10.0;
+            izmir.addWeatherRecord(FIRST_DAY + i, temperature, random.nextInt(101), random.nextInt(400) / 10.0,
+                CONDITIONS[random.nextInt(CONDITIONS.length)]);
+        }
+        izmir.compressHistory(100);
+
+        City ankara = new City("Ankara");
+        for (int i = 0; i < 40; i++) {
+            ankara.addWeatherRecord(FIRST_DAY + (i * 7) % 40, random.nextDouble() * 30, random.nextInt(101),
+                random.nextDouble() * 20, CONDITIONS[i % CONDITIONS.length]);
+        }
+        return List.of(izmir, ankara, new City("Van"));
+    }
+
+    private String write(List<City> cities, SnapshotSource source) throws Exception {
+        String path = dir.resolve("weather.snapshot").toString();
+        new SnapshotWeatherDataWriter(source).write(cities, path);
+        return path;
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws Exception {
+        List<City> cities = cities();
+        String path = write(cities, null);
+
+        LoaderAssertions.assertSameCities(cities, new SnapshotWeatherDataLoader().load(path));
+    }
+
+    @Test
+    void readsBackAcrossMappedWindows() throws Exception {
+        List<City> cities = cities();
+        String path = write(cities, null);
+
+        // Windows that split names, columns and single values
+        for (long windowSize : new long[] { 8, 13, 1000 }) {
+            LoaderAssertions.assertSameCities(cities, new SnapshotWeatherDataLoader(windowSize).load(path));
+        }
+    }
+
+    @Test
+    void rejectsWindowsTooSmallForOneValue() {
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotWeatherDataLoader(7));
+    }
+
+    @Test
+    void recordsTheSourceItWasBuiltFrom() throws Exception {
+        Path csv = Files.writeString(dir.resolve("weather.csv"), "City,Date,Temperature,Humidity,WindSpeed,Condition\n");
+        SnapshotSource source = SnapshotSource.of(csv.toString());
+        String path = write(cities(), source);
+
+        SnapshotSource recorded = SnapshotWeatherDataLoader.readSource(path);
+        assertTrue(source.matches(recorded));
+        assertTrue(SnapshotSource.of(csv.toString()).matches(recorded));
+
+        // An older file of the same size is a different source too
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(source.getLastModifiedMillis() - 60_000));
+        assertFalse(SnapshotSource.of(csv.toString()).matches(recorded));
+        Files.writeString(csv, "changed\n");
+        assertFalse(SnapshotSource.of(csv.toString()).matches(recorded));
+    }
+
+    @Test
+    void snapshotWithoutSourceIsNeverCurrent() throws Exception {
+        Path csv = Files.writeString(dir.resolve("weather.csv"), "");
+        String path = write(cities(), null);
+
+        SnapshotSource recorded = SnapshotWeatherDataLoader.readSource(path);
+        assertFalse(SnapshotSource.of(csv.toString()).matches(recorded));
+        assertFalse(recorded.matches(recorded));
+    }
+
+    @Test
+    void otherFilesHaveNoSource() throws Exception {
+        Path csv = Files.writeString(dir.resolve("weather.csv"), "City,Date,Temperature,Humidity,WindSpeed,Condition\n");
+
+        assertNull(SnapshotWeatherDataLoader.readSource(csv.toString()));
+    }
+
+    @Test
+    void rejectsCorruptedSnapshot() throws Exception {
+        Path path = Path.of(write(cities(), null));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+
+        Exception e = assertThrows(Exception.class, () -> new SnapshotWeatherDataLoader().load(path.toString()));
+        assertEquals("Invalid snapshot: checksum mismatch", e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedSnapshot() throws Exception {
+        Path path = dir.resolve("weather.snapshot");
+        Files.write(path, new byte[SnapshotFormat.HEADER_SIZE]);
+
+        Exception e = assertThrows(Exception.class, () -> new SnapshotWeatherDataLoader().load(path.toString()));
+        assertEquals("Invalid snapshot: file is too short", e.getMessage());
+    }
+}
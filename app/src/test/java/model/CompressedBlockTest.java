@@ -0,0 +1,231 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import enums.WeatherCondition;
+import enums.WeatherMeasure;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CompressedBlockTest {
+    private static final int SIZE = CompressedBlock.SIZE;
+    private static final int FIRST_DAY = 20089; // 2025-01-01
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+
+    private final int[] days = new int[SIZE];
+    private final double[] temperatures = new double[SIZE];
+    private final float[] humidities = new float[SIZE];
+    private final double[] windSpeeds = new double[SIZE];
+    private final byte[] conditions = new byte[SIZE];
+
+    /**
+     * Fills one block of consecutive days with readings of one decimal, the
+     * way feeds report them.
+     */
+    private void fillDaily() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            days[i] = FIRST_DAY + i;
+            temperatures[i] = Math.round(random.nextGaussian() * 100) / 10.0;
+            humidities[i] = random.nextInt(101);
+            windSpeeds[i] = random.nextInt(400) / 10.0;
+            conditions[i] = (byte) (i % CONDITIONS.length);
+        }
+    }
+
+    private CompressedBlock encode() {
+        return CompressedBlock.encode(days, temperatures, humidities, windSpeeds, conditions, 0);
+    }
+
+    /**
+     * Checks that every column decodes to the exact bits it was encoded from,
+     * both in bulk and through {@link CompressedBlock.Decoded}.
+     */
+    private void assertRoundTrip(CompressedBlock block) {
+        int[] decodedDays = new int[SIZE];
+        block.decodeDays(decodedDays);
+        assertArrayEquals(days, decodedDays);
+
+        byte[] decodedConditions = new byte[SIZE];
+        block.decodeConditions(decodedConditions);
+        assertArrayEquals(conditions, decodedConditions);
+
+        double[] widened = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            widened[i] = humidities[i];
+        }
+        assertBits(temperatures, block, WeatherMeasure.TEMPERATURE);
+        assertBits(widened, block, WeatherMeasure.HUMIDITY);
+        assertBits(windSpeeds, block, WeatherMeasure.WIND);
+
+        CompressedBlock.Decoded decoded = new CompressedBlock.Decoded().load(block);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(days[i], decoded.day(i));
+            assertEquals(conditions[i], decoded.condition(i));
+            assertEquals(conditions[i], block.readCondition(i));
+            assertEquals(bits(temperatures[i]), bits(decoded.value(WeatherMeasure.TEMPERATURE, i)));
+            assertEquals(bits(widened[i]), bits(decoded.value(WeatherMeasure.HUMIDITY, i)));
+            assertEquals(bits(windSpeeds[i]), bits(decoded.value(WeatherMeasure.WIND, i)));
+        }
+    }
+
+    private static void assertBits(double[] expected, CompressedBlock block, WeatherMeasure measure) {
+        double[] actual = new double[SIZE];
+        block.decodeMeasure(measure, actual);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(bits(expected[i]), bits(actual[i]), measure + " at offset " + i);
+            if (block.isRandomAccess(measure)) {
+                assertEquals(bits(expected[i]), bits(block.readValue(measure, i)), measure + " at offset " + i);
+            }
+        }
+    }
+
+    private static long bits(double value) {
+        return Double.doubleToRawLongBits(value);
+    }
+
+    @Test
+    void roundTripsConsecutiveDays() {
+        fillDaily();
+        CompressedBlock block = encode();
+
+        assertTrue(block.isContiguous());
+        assertEquals(FIRST_DAY, block.getFirstDay());
+        assertEquals(FIRST_DAY + SIZE - 1, block.getLastDay());
+        for (WeatherMeasure measure : WeatherMeasure.values()) {
+            assertTrue(block.isRandomAccess(measure), measure + " should be stored in fixed point");
+        }
+        assertRoundTrip(block);
+    }
+
+    @Test
+    void keepsSumMinAndMax() {
+        fillDaily();
+        CompressedBlock block = encode();
+
+        double sum = 0;
+        int minOffset = 0;
+        int maxOffset = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += temperatures[i];
+            minOffset = temperatures[i] < temperatures[minOffset] ? i : minOffset;
+            maxOffset = temperatures[i] > temperatures[maxOffset] ? i : maxOffset;
+        }
+        assertEquals(sum, block.getSum(WeatherMeasure.TEMPERATURE));
+        assertEquals(temperatures[minOffset], block.getMin(WeatherMeasure.TEMPERATURE));
+        assertEquals(temperatures[maxOffset], block.getMax(WeatherMeasure.TEMPERATURE));
+        assertEquals(minOffset, block.getMinOffset(WeatherMeasure.TEMPERATURE));
+        assertEquals(maxOffset, block.getMaxOffset(WeatherMeasure.TEMPERATURE));
+    }
+
+    @Test
+    void roundTripsGapsAndDuplicateDates() {
+        fillDaily();
+        int day = FIRST_DAY;
+        for (int i = 0; i < SIZE; i++) {
+            days[i] = day;
+            // Duplicates, single-day gaps and the occasional long outage
+            day += i % 7 == 0 ? 0 : i % 11 == 0 ? 2 : i % 100 == 99 ? 40000 : 1;
+        }
+        CompressedBlock block = encode();
+
+        assertFalse(block.isContiguous());
+        assertEquals(days[0], block.getFirstDay());
+        assertEquals(days[SIZE - 1], block.getLastDay());
+        assertRoundTrip(block);
+    }
+
+    @Test
+    void roundTripsNaNAndNegativeZero() {
+        fillDaily();
+        temperatures[3] = -0.0;
+        temperatures[4] = 0.0;
+        temperatures[5] = Double.NaN;
+        humidities[6] = Float.NaN;
+        windSpeeds[7] = -0.0;
+        windSpeeds[SIZE - 1] = Double.NaN;
+        CompressedBlock block = encode();
+
+        assertFalse(block.isRandomAccess(WeatherMeasure.TEMPERATURE));
+        assertFalse(block.isRandomAccess(WeatherMeasure.HUMIDITY));
+        assertFalse(block.isRandomAccess(WeatherMeasure.WIND));
+        assertRoundTrip(block);
+    }
+
+    @Test
+    void roundTripsValuesWithoutShortDecimals() {
+        fillDaily();
+        Random random = new Random(7);
+        for (int i = 0; i < SIZE; i++) {
+            temperatures[i] = random.nextDouble() * 60 - 20;
+        }
+        windSpeeds[0] = 1e300;
+        windSpeeds[1] = Double.MIN_VALUE;
+        windSpeeds[2] = Double.POSITIVE_INFINITY;
+        CompressedBlock block = encode();
+
+        assertFalse(block.isRandomAccess(WeatherMeasure.TEMPERATURE));
+        assertTrue(block.isRandomAccess(WeatherMeasure.HUMIDITY));
+        assertFalse(block.isRandomAccess(WeatherMeasure.WIND));
+        assertRoundTrip(block);
+    }
+
+    @Test
+    void storeRoundTripsThroughCompressedHistory() {
+        WeatherRecordStore store = new WeatherRecordStore();
+        WeatherRecordStore expected = new WeatherRecordStore();
+        Random random = new Random(1);
+        int day = FIRST_DAY;
+        for (int i = 0; i < 3 * SIZE + 100; i++) {
+            double temperature = i == 10 ? -0.0 : i == 11 ? Double.NaN : Math.round(random.nextGaussian() * 100) / 10.0;
+            WeatherCondition condition = CONDITIONS[random.nextInt(CONDITIONS.length)];
+            store.add(day, temperature, random.nextInt(101), random.nextInt(400) / 10.0, condition);
+            day += random.nextInt(10) == 0 ? random.nextInt(3) : 1;
+        }
+        expected.addAll(store);
+
+        assertEquals(3 * SIZE, store.compressHistory(50));
+        assertEquals(3 * SIZE, store.getCompressedCount());
+        assertEquals(expected.getEpochDay(3 * SIZE - 1), store.getLastCompressedDay());
+        assertSameRecords(expected, store);
+    }
+
+    @Test
+    void lateRecordIsSortedIntoCompressedHistory() {
+        WeatherRecordStore store = new WeatherRecordStore();
+        for (int i = 0; i < 2 * SIZE; i++) {
+            store.add(FIRST_DAY + 2 * i, i / 10.0, 50, 5, CONDITIONS[i % CONDITIONS.length]);
+        }
+        store.compressHistory(0);
+        int lateDay = FIRST_DAY + 101;
+        store.add(lateDay, -3.5, 90, 12.5, WeatherCondition.SNOWY);
+        assertFalse(store.isSortedByDate());
+
+        store.compressHistory(0);
+        assertTrue(store.isSortedByDate());
+        assertEquals(2 * SIZE + 1, store.size());
+        for (int slot = 1; slot < store.size(); slot++) {
+            assertTrue(store.getEpochDay(slot - 1) <= store.getEpochDay(slot));
+        }
+        int slot = store.findSlot(lateDay);
+        assertEquals(-3.5, store.getTemperature(slot));
+        assertEquals(WeatherCondition.SNOWY, store.getWeatherCondition(slot));
+        assertEquals(FIRST_DAY + 100, store.getEpochDay(slot - 1));
+        assertEquals(FIRST_DAY + 102, store.getEpochDay(slot + 1));
+    }
+
+    private static void assertSameRecords(WeatherRecordStore expected, WeatherRecordStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int slot = 0; slot < expected.size(); slot++) {
+            assertEquals(expected.getEpochDay(slot), actual.getEpochDay(slot), "day at slot " + slot);
+            assertEquals(bits(expected.getTemperature(slot)), bits(actual.getTemperature(slot)), "temperature at slot " + slot);
+            assertEquals(bits(expected.getHumidity(slot)), bits(actual.getHumidity(slot)), "humidity at slot " + slot);
+            assertEquals(bits(expected.getWindSpeed(slot)), bits(actual.getWindSpeed(slot)), "wind speed at slot " + slot);
+            assertEquals(expected.getWeatherConditionOrdinal(slot), actual.getWeatherConditionOrdinal(slot),
+                "condition at slot " + slot);
+        }
+    }
+}
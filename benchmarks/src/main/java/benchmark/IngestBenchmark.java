@@ -0,0 +1,102 @@
+package benchmark;
+
+import enums.TempUnit;
+import enums.WeatherCondition;
+import io.ParallelCSVWeatherDataLoader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.City;
+import model.StatCalculator;
+import model.WeatherDataManager;
+import model.WeatherRecord;
+import model.WeatherStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of appending a batch of records and committing it as a new snapshot,
+ * alone and while another thread keeps computing the statistics of the latest
+ * snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class IngestBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"1510", "1000000"})
+    public long rows;
+
+    private List<City> loaded;
+    private WeatherDataManager manager;
+    private int cityCount;
+    private int nextCity;
+    private LocalDate nextDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        loaded = new ParallelCSVWeatherDataLoader().load(SyntheticWeatherData.writeTemporary(rows).toString());
+    }
+
+    @Setup(Level.Iteration)
+    public void resetManager() {
+        // Fresh copies, so appended records do not pile up across iterations
+        List<City> cities = new ArrayList<>();
+        for (City city : loaded) {
+            cities.add(new City(city));
+        }
+        manager = new WeatherDataManager(cities, cities.subList(0, 5), TempUnit.CELSIUS, SyntheticWeatherData.START_DATE);
+        cityCount = cities.size();
+        nextCity = 0;
+        // The day after the longest city history, so appends stay in date order
+        nextDate = SyntheticWeatherData.START_DATE.plusDays(SyntheticWeatherData.rowsOfCity(rows, 0));
+    }
+
+    @Benchmark
+    @Group("alone")
+    public long appendAndCommit() throws Exception {
+        return appendBatch();
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    public long appendAndCommitWhileQuerying() throws Exception {
+        return appendBatch();
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    public WeatherStats calculateOnSnapshot() throws Exception {
+        return StatCalculator.calculate(manager.getSnapshot(), 3);
+    }
+
+    private long appendBatch() throws Exception {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            manager.addWeatherRecord(nextCity, new WeatherRecord(nextDate, 12.5, 60, 14, WeatherCondition.SUNNY));
+            if (++nextCity == cityCount) {
+                nextCity = 0;
+                nextDate = nextDate.plusDays(1);
+            }
+        }
+        return manager.commit();
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import io.CSVWeatherDataLoader;
+import io.MappedCSVWeatherDataLoader;
+import io.ParallelCSVWeatherDataLoader;
+import io.SnapshotWeatherDataLoader;
+import io.SnapshotWeatherDataWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.City;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load throughput of every loader on generated files.
+ *
+ * Besides loads per second, each benchmark reports a {@code rows} counter in
+ * rows per second. Run with {@code -prof gc} and divide
+ * {@code gc.alloc.rate.norm} by the row count for the bytes allocated per row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoaderBenchmark {
+
+    @Param({"1510", "100000", "1000000"})
+    public long rows;
+
+    private Path csv;
+    private Path snapshot;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        csv = SyntheticWeatherData.writeTemporary(rows);
+        snapshot = Files.createTempFile("weather-" + rows + "-", ".snapshot");
+        new SnapshotWeatherDataWriter().write(new ParallelCSVWeatherDataLoader().load(csv.toString()), snapshot.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public List<City> csv(Rows counter) throws Exception {
+        List<City> cities = new CSVWeatherDataLoader().load(csv.toString());
+        counter.rows += rows;
+        return cities;
+    }
+
+    @Benchmark
+    public List<City> mapped(Rows counter) throws Exception {
+        List<City> cities = new MappedCSVWeatherDataLoader().load(csv.toString());
+        counter.rows += rows;
+        return cities;
+    }
+
+    @Benchmark
+    public List<City> parallel(Rows counter) throws Exception {
+        List<City> cities = new ParallelCSVWeatherDataLoader().load(csv.toString());
+        counter.rows += rows;
+        return cities;
+    }
+
+    @Benchmark
+    public List<City> snapshot(Rows counter) throws Exception {
+        List<City> cities = new SnapshotWeatherDataLoader().load(snapshot.toString());
+        counter.rows += rows;
+        return cities;
+    }
+}
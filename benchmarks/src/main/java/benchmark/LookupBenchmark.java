@@ -0,0 +1,137 @@
+package benchmark;
+
+import enums.TempUnit;
+import enums.WeatherMeasure;
+import io.ParallelCSVWeatherDataLoader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import model.City;
+import model.CityWeatherBatch;
+import model.MeasureStats;
+import model.WeatherDataManager;
+import model.WeatherRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of single-record lookups by city name or ID and date, at random existing
+ * dates, of min/max/sum queries over random date ranges, and of type-ahead
+ * city searches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+    private static final int QUERIES = 4096; // power of two
+
+    @Param({"1510", "1000000"})
+    public long rows;
+
+    // Whether all but the newest year of each city is compressed
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private WeatherDataManager manager;
+    private City[] queryCities;
+    private String[] queryNames;
+    private int[] queryIds;
+    private String[] queryPrefixes;
+    private int[] allCityIds;
+    private LocalDate[] queryDates;
+    private LocalDate[] rangeEnds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<City> cities = new ParallelCSVWeatherDataLoader().load(SyntheticWeatherData.writeTemporary(rows).toString());
+        manager = new WeatherDataManager(cities, cities.subList(0, 5), TempUnit.CELSIUS, SyntheticWeatherData.START_DATE);
+        if (compressed) {
+            manager.compressHistory(366);
+        }
+
+        allCityIds = new int[manager.getCityDictionary().size()];
+        for (int id = 0; id < allCityIds.length; id++) {
+            allCityIds[id] = id;
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        queryCities = new City[QUERIES];
+        queryNames = new String[QUERIES];
+        queryIds = new int[QUERIES];
+        queryPrefixes = new String[QUERIES];
+        queryDates = new LocalDate[QUERIES];
+        rangeEnds = new LocalDate[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int city = random.nextInt(cities.size());
+            long day = random.nextLong(SyntheticWeatherData.rowsOfCity(rows, city));
+            queryCities[i] = cities.get(city);
+            // A fresh String, as the name would arrive from a view
+            queryNames[i] = new String(cities.get(city).getName());
+            queryIds[i] = manager.getCityId(queryNames[i]);
+            // What has been typed after one to three keystrokes, in lower case
+            queryPrefixes[i] = queryNames[i].substring(0, 1 + random.nextInt(Math.min(3, queryNames[i].length()))).toLowerCase();
+            queryDates[i] = SyntheticWeatherData.START_DATE.plusDays(day);
+            rangeEnds[i] = queryDates[i].plusDays(random.nextLong(SyntheticWeatherData.rowsOfCity(rows, city) - day));
+        }
+    }
+
+    @Benchmark
+    public WeatherRecord getWeather() throws Exception {
+        int i = next++ & (QUERIES - 1);
+        return manager.getWeather(queryNames[i], queryDates[i]);
+    }
+
+    @Benchmark
+    public WeatherRecord getWeatherById() throws Exception {
+        int i = next++ & (QUERIES - 1);
+        return manager.getWeather(queryIds[i], queryDates[i]);
+    }
+
+    /**
+     * The weather of every city on one date, as the comparison view asks for it.
+     */
+    @Benchmark
+    public CityWeatherBatch getWeatherOfAllCities() throws Exception {
+        int i = next++ & (QUERIES - 1);
+        return manager.getWeather(allCityIds, queryDates[i]);
+    }
+
+    @Benchmark
+    public WeatherRecord getRecordByDate() {
+        int i = next++ & (QUERIES - 1);
+        return queryCities[i].getRecordByDate(queryDates[i]);
+    }
+
+    @Benchmark
+    public MeasureStats getMeasureStats() {
+        int i = next++ & (QUERIES - 1);
+        return queryCities[i].getMeasureStats(WeatherMeasure.TEMPERATURE, queryDates[i], rangeEnds[i]);
+    }
+
+    @Benchmark
+    public WeatherRecord getRecordWithLowest() {
+        int i = next++ & (QUERIES - 1);
+        return queryCities[i].getRecordWithLowest(WeatherMeasure.TEMPERATURE, queryDates[i], rangeEnds[i]);
+    }
+
+    @Benchmark
+    public int[] searchCities() throws Exception {
+        int i = next++ & (QUERIES - 1);
+        return manager.searchCities(queryPrefixes[i], 10);
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import enums.Aggregation;
+import enums.RankDirection;
+import enums.TempUnit;
+import enums.WeatherMeasure;
+import io.ParallelCSVWeatherDataLoader;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.City;
+import model.StatCalculator;
+import model.StatQuery;
+import model.StatQueryEngine;
+import model.StatResult;
+import model.WeatherDataManager;
+import model.WeatherStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of computing the statistics panel, from the city aggregates and from the
+ * incrementally maintained leaderboard, and of a dashboard-sized batch of
+ * date-range queries answered from the calendar rollups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatsBenchmark {
+
+    @Param({"1510", "1000000"})
+    public long rows;
+
+    // Whether all but the newest year of each city is compressed
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private List<City> cities;
+    private WeatherDataManager manager;
+    private List<StatQuery> dashboard;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        cities = new ParallelCSVWeatherDataLoader().load(SyntheticWeatherData.writeTemporary(rows).toString());
+        manager = new WeatherDataManager(cities, cities.subList(0, 5), TempUnit.CELSIUS, SyntheticWeatherData.START_DATE);
+        if (compressed) {
+            manager.compressHistory(366);
+        }
+
+        // Every aggregation of every measure, per quarter of the first year
+        dashboard = new ArrayList<>();
+        for (Month quarter : new Month[] { Month.JANUARY, Month.APRIL, Month.JULY, Month.OCTOBER }) {
+            for (WeatherMeasure measure : WeatherMeasure.values()) {
+                for (Aggregation aggregation : Aggregation.values()) {
+                    dashboard.add(new StatQuery(measure, aggregation, RankDirection.HIGHEST)
+                        .between(SyntheticWeatherData.START_DATE.withMonth(quarter.getValue()),
+                            SyntheticWeatherData.START_DATE.withMonth(quarter.getValue()).plusMonths(3).minusDays(1))
+                        .limit(3));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public WeatherStats calculate() {
+        return StatCalculator.calculate(cities);
+    }
+
+    @Benchmark
+    public List<StatResult> dashboard() {
+        return StatQueryEngine.execute(cities, dashboard);
+    }
+
+    @Benchmark
+    public WeatherStats leaderboard() throws Exception {
+        return manager.getStats();
+    }
+}
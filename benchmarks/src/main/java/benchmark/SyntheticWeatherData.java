@@ -0,0 +1,116 @@
+package benchmark;
+
+import enums.WeatherCondition;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Generates weather CSV files in the format of the bundled weather_data.csv,
+ * from its 1,510 rows up to 10^8 rows and more.
+ *
+ * Rows are grouped by city and dated on consecutive days from 2025-01-01, like
+ * the bundled file. Each city covers at most {@link #MAX_DAYS_PER_CITY} days, so
+ * larger files get more cities rather than dates outside four-digit years. The
+ * output depends only on the row count, so runs are comparable.
+ *
+ * Usage: {@code java -cp benchmarks.jar benchmark.SyntheticWeatherData <rows> <output.csv>}
+ */
+public final class SyntheticWeatherData {
+    public static final int BUNDLED_ROWS = 1_510;
+    static final int MAX_DAYS_PER_CITY = 36_500;
+    static final LocalDate START_DATE = LocalDate.of(2025, 1, 1);
+
+    private static final String HEADER = "City,Date,Temperature,Humidity,WindSpeed,Condition";
+    private static final String[] BUNDLED_CITIES = {
+        "İzmir", "İstanbul", "Ankara", "Antalya", "Bursa",
+        "Adana", "Konya", "Trabzon", "Eskişehir", "Diyarbakır"
+    };
+    private static final long SEED = 20250101L;
+
+    private SyntheticWeatherData() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SyntheticWeatherData <rows> <output.csv>");
+            System.exit(1);
+        }
+        long rows = Long.parseLong(args[0].replace("_", ""));
+        write(Path.of(args[1]), rows);
+    }
+
+    /**
+     * Returns the number of cities a file with the given number of rows is spread over.
+     */
+    public static int cityCount(long rows) {
+        long needed = (rows + MAX_DAYS_PER_CITY - 1) / MAX_DAYS_PER_CITY;
+        return (int) Math.max(BUNDLED_CITIES.length, needed);
+    }
+
+    /**
+     * Returns the number of rows of the city at the given index.
+     */
+    public static long rowsOfCity(long rows, int cityIndex) {
+        int cities = cityCount(rows);
+        return rows / cities + (cityIndex < rows % cities ? 1 : 0);
+    }
+
+    /**
+     * Returns the name of the city at the given index: the bundled cities first,
+     * then numbered ones.
+     */
+    public static String cityName(int cityIndex) {
+        return cityIndex < BUNDLED_CITIES.length ? BUNDLED_CITIES[cityIndex] : "City " + (cityIndex + 1);
+    }
+
+    /**
+     * Writes a CSV file with a header and the given number of rows.
+     */
+    public static void write(Path file, long rows) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        WeatherCondition[] conditions = WeatherCondition.values();
+        int cities = cityCount(rows);
+        StringBuilder line = new StringBuilder(64);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            for (int city = 0; city < cities; city++) {
+                String name = cityName(city);
+                double baseTemperature = 5 + random.nextDouble() * 15;
+                long cityRows = rowsOfCity(rows, city);
+                LocalDate date = START_DATE;
+                for (long day = 0; day < cityRows; day++) {
+                    double season = Math.sin(2 * Math.PI * (date.getDayOfYear() - 110) / 365.0);
+                    double temperature = Math.round((baseTemperature + 12 * season + random.nextGaussian() * 3) * 10) / 10.0;
+                    int humidity = random.nextInt(20, 96);
+                    int windSpeed = random.nextInt(0, 41);
+                    WeatherCondition condition = temperature < 0 && random.nextInt(3) == 0
+                        ? WeatherCondition.HEAVY_SNOW
+                        : conditions[random.nextInt(WeatherCondition.NONE.ordinal())];
+
+                    line.setLength(0);
+                    line.append('\n').append(name).append(',').append(date).append(',')
+                        .append(temperature).append(',').append(humidity).append(',')
+                        .append(windSpeed).append(',').append(condition);
+                    writer.append(line);
+                    date = date.plusDays(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a CSV file to a temporary location that is deleted on exit.
+     */
+    static Path writeTemporary(long rows) throws IOException {
+        Path file = Files.createTempFile("weather-" + rows + "-", ".csv");
+        file.toFile().deleteOnExit();
+        write(file, rows);
+        return file;
+    }
+}
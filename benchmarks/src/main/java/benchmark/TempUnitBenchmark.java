@@ -0,0 +1,71 @@
+package benchmark;
+
+import enums.TempUnit;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of converting temperatures out of Celsius, one value at a time, over a
+ * column one value at a time, and over a column in one bulk call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TempUnitBenchmark {
+    private static final int COLUMN_SIZE = 4096;
+
+    @Param({"CELSIUS", "FAHRENHEIT", "KELVIN"})
+    public TempUnit unit;
+
+    private double[] celsius;
+    private double[] converted;
+    private double value;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        celsius = new double[COLUMN_SIZE];
+        converted = new double[COLUMN_SIZE];
+        for (int i = 0; i < COLUMN_SIZE; i++) {
+            celsius[i] = random.nextDouble(-30, 45);
+        }
+        value = celsius[0];
+    }
+
+    @Benchmark
+    public double convertOne() {
+        return unit.convertFromCelsius(value);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMN_SIZE)
+    public void convertColumn(Blackhole blackhole) {
+        for (int i = 0; i < COLUMN_SIZE; i++) {
+            converted[i] = unit.convertFromCelsius(celsius[i]);
+        }
+        blackhole.consume(converted);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMN_SIZE)
+    public void convertColumnBulk(Blackhole blackhole) {
+        unit.convertFromCelsius(celsius, 0, converted, 0, COLUMN_SIZE);
+        blackhole.consume(converted);
+    }
+}
@@ -4,5 +4,10 @@ public class App {
     public static void main(String[] args) throws Exception {
         WeatherController controller = new WeatherController();
         controller.initApp();
+
+        // Optional live sources, e.g. "-", "tcp:5555" or "./live_feed.csv"
+        for (String source : args) {
+            controller.startStreaming(source);
+        }
     }
 }
@@ -0,0 +1,86 @@
+package controller;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs model queries off the Event Dispatch Thread and delivers their results
+ * back on it.
+ *
+ * Every query belongs to a named slot, e.g. one per view. Submitting a query
+ * cancels the one still in flight in the same slot, and only the latest query
+ * of a slot ever reaches its callbacks, so rapid input (such as spinning
+ * through dates) never shows a stale answer.
+ */
+class AsyncQueryExecutor {
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    AsyncQueryExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "weather-query-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a query, superseding the one in flight in the same slot.
+     *
+     * @param slot     the slot the query belongs to
+     * @param query    runs on a worker thread
+     * @param onResult receives the result on the EDT, unless the query was superseded
+     * @param onError  receives the failure on the EDT, unless the query was superseded
+     * @return the future of the query; cancelling it interrupts the worker
+     */
+    <T> CompletableFuture<T> submit(String slot, Callable<T> query, Consumer<T> onResult, Consumer<Throwable> onError) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<?> previous = inFlight.put(slot, future);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+
+        Future<?> task = executor.submit(() -> {
+            try {
+                future.complete(query.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                task.cancel(true);
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (!inFlight.remove(slot, future)) {
+                    return; // superseded while waiting for the EDT
+                }
+                if (error == null) {
+                    onResult.accept(result);
+                } else {
+                    onError.accept(error);
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Cancels every query in flight and stops the worker threads.
+     */
+    void shutdown() {
+        inFlight.values().forEach(future -> future.cancel(true));
+        executor.shutdownNow();
+    }
+}
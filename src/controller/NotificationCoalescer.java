@@ -0,0 +1,58 @@
+package controller;
+
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.Timer;
+import model.WeatherChange;
+import model.WeatherSubject;
+
+/**
+ * Limits how often a subject notifies its observers of appended records.
+ *
+ * Appends are only merged into one pending change, naming every city and
+ * spanning every date appended to; a Swing timer checks for it a fixed number
+ * of times per second and, if there is one, delivers it once on the Event
+ * Dispatch Thread. However fast records arrive, views refresh at most
+ * {@code maxPerSecond} times per second.
+ */
+class NotificationCoalescer {
+    private final WeatherSubject subject;
+    private final AtomicReference<WeatherChange> pending = new AtomicReference<>();
+    private final Timer timer;
+
+    /**
+     * @param subject      the subject whose observers are notified
+     * @param maxPerSecond the maximum number of notifications per second
+     */
+    NotificationCoalescer(WeatherSubject subject, int maxPerSecond) {
+        if (maxPerSecond < 1) {
+            throw new IllegalArgumentException("maxPerSecond must be at least 1");
+        }
+        this.subject = subject;
+        this.timer = new Timer(1000 / maxPerSecond, e -> flush());
+        this.timer.setCoalesce(true);
+    }
+
+    void start() {
+        timer.start();
+    }
+
+    void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Adds appended records to the pending change; may be called from any thread.
+     *
+     * @param change a {@link enums.ChangeKind#RECORDS_APPENDED} change
+     */
+    void requestNotify(WeatherChange change) {
+        pending.accumulateAndGet(change, (current, added) -> current == null ? added : current.merge(added));
+    }
+
+    private void flush() {
+        WeatherChange change = pending.getAndSet(null);
+        if (change != null) {
+            subject.notifyObservers(change);
+        }
+    }
+}
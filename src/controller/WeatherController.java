@@ -1,31 +1,61 @@
 package controller;
 
 import model.City;
-import model.StatCalculator;
+import model.WeatherChange;
 import model.WeatherDataManager;
-import model.WeatherStats;
 import model.WeatherRecord;
+import enums.ChangeKind;
+import enums.CounterMetric;
 import enums.TempUnit;
 import exception.WeatherDataManagerNotValidException;
-import io.CSVWeatherDataLoader;
 import io.IWeatherDataLoader;
+import io.IWeatherDataWriter;
+import io.ParallelCSVWeatherDataLoader;
+import io.Quarantine;
+import io.SnapshotSource;
+import io.SnapshotWeatherDataLoader;
+import io.SnapshotWeatherDataWriter;
+import io.StreamingWeatherIngestor;
+import io.WeatherObservation;
+import metrics.Metrics;
 import view.CitySelectionView;
 import view.MainWindow;
 import view.MultipleCitySelectionView;
 import view.StatsView;
+import view.TimedEventQueue;
 import view.TrackedCitiesView;
 import view.UnitSelectionView;
 
+import javax.management.JMException;
 import javax.swing.SwingUtilities;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
-import java.util.NoSuchElementException;
 
 public class WeatherController {
+    private static final int MAX_REFRESHES_PER_SECOND = 4;
+    private static final int STREAM_QUEUE_CAPACITY = 10_000;
+    private static final int STREAM_BATCH_SIZE = 1_000;
+    private static final int SEARCH_LIMIT = 50;
+    private static final String CSV_PATH = "./weather_data.csv";
+    private static final String SNAPSHOT_PATH = "./weather_data.snapshot";
+    private static final String QUARANTINE_PATH = "./weather_data.quarantine.tsv";
+    // Malformed CSV rows skipped before the load gives up
+    private static final String ERROR_BUDGET_PROPERTY = "weather.load.errorBudget";
+    private static final long DEFAULT_ERROR_BUDGET = 1_000;
+    // Records per city kept uncompressed, about a year of daily data
+    private static final int HOT_HISTORY_RECORDS = 366;
+    // Seconds between metric dumps to stderr; 0 (the default) turns them off
+    private static final String METRICS_INTERVAL_PROPERTY = "weather.metrics.interval";
+
     private final WeatherDataManager model;
     private final List<City> cities;
     private final MainWindow mainWindow;
@@ -34,11 +64,15 @@ public class WeatherController {
     private final StatsView statsView;
     private final UnitSelectionView unitSelectionView;
     private final MultipleCitySelectionView multipleCitySelectionView;
+    private final NotificationCoalescer notificationCoalescer;
+    private final AsyncQueryExecutor queries = new AsyncQueryExecutor();
+    private volatile StreamingWeatherIngestor ingestor;
 
     public WeatherController() {
         this.cities = loadCities();
         List<City> trackedCities = Arrays.asList(this.cities.get(0), this.cities.get(1), this.cities.get(2), this.cities.get(3), this.cities.get(4));
         this.model = new WeatherDataManager(cities, trackedCities, TempUnit.CELSIUS, LocalDate.now());
+        model.compressHistory(HOT_HISTORY_RECORDS);
 
         // 1) Instantiate views
         this.citySelectionView = new CitySelectionView();
@@ -56,25 +90,52 @@ public class WeatherController {
             multipleCitySelectionView
         );
 
-        // 3) Register view-components as observers of the model
-        model.addObserver(citySelectionView);
-        model.addObserver(trackedCitiesView);
-        model.addObserver(statsView);
-        model.addObserver(unitSelectionView);
-        model.addObserver(multipleCitySelectionView);
+        // 3) Register view-components as observers of the changes they show
+        model.addObserver(citySelectionView, EnumSet.of(ChangeKind.UNIT_CHANGED, ChangeKind.RECORDS_APPENDED),
+            cityId -> cityId == citySelectionView.getSelectedCityId());
+        model.addObserver(trackedCitiesView, EnumSet.allOf(ChangeKind.class), model::isTracked);
+        model.addObserver(statsView, EnumSet.of(ChangeKind.RECORDS_APPENDED));
+        model.addObserver(unitSelectionView, EnumSet.of(ChangeKind.UNIT_CHANGED));
+        // Only to pick up cities first seen in streamed records
+        model.addObserver(multipleCitySelectionView, EnumSet.of(ChangeKind.RECORDS_APPENDED));
+        this.notificationCoalescer = new NotificationCoalescer(model, MAX_REFRESHES_PER_SECOND);
 
-        // City / Date selection
-        citySelectionView.addCitySelectionListener((String city, LocalDate date) -> {
-            try {
-                WeatherRecord rec = model.getWeather(city, date);
-                citySelectionView.showWeather(rec, model.getTempUnit());
-            } catch (NoSuchElementException ex) {
-                citySelectionView.showError("No data for " + city + " on " + date);
-            } catch (WeatherDataManagerNotValidException ex) {
-                ex.printStackTrace();
+        // Closing the window exits the JVM; stop the live sources first
+        mainWindow.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                shutdown();
             }
         });
 
+        // Type-ahead city search, answered by the model's prefix index
+        citySelectionView.setCitySearch(this::searchCities);
+        multipleCitySelectionView.setCitySearch(this::searchCities);
+
+        // City / Date selection
+        citySelectionView.addCitySelectionListener((int cityId, LocalDate date) -> {
+            queries.submit("city-selection",
+                () -> model.getWeather(cityId, date),
+                rec -> {
+                    try {
+                        citySelectionView.showWeather(rec, model.getTempUnit());
+                    } catch (WeatherDataManagerNotValidException ex) {
+                        Metrics.reportError(ex);
+                    }
+                },
+                error -> {
+                    if (error instanceof IllegalArgumentException) {
+                        try {
+                            citySelectionView.showError("No data for " + model.getCityName(cityId) + " on " + date);
+                        } catch (WeatherDataManagerNotValidException e) {
+                            Metrics.reportError(e);
+                        }
+                    } else {
+                        Metrics.reportError(error);
+                    }
+                });
+        });
+
         // Temperature unit toggle
         unitSelectionView.addUnitChangeListener((TempUnit unit) -> {
             model.setTempUnit(unit);
@@ -82,59 +143,179 @@ public class WeatherController {
 
         // Tracked-cities refresh (e.g. on startup or manual "refresh" button)
         trackedCitiesView.addRefreshListener((LocalDate date) -> {
-            Map<String, WeatherRecord> current = null;
-            try {
-                current = model.getTrackedCitiesWeather(date);
-            } catch (WeatherDataManagerNotValidException ex) {
-            }
-            try {
-                trackedCitiesView.showTrackedCities(current, model.getTempUnit());
-            } catch (WeatherDataManagerNotValidException e) {
-                e.printStackTrace();
-            }
+            queries.submit("tracked-cities",
+                () -> model.getTrackedCitiesWeather(date),
+                current -> {
+                    try {
+                        trackedCitiesView.showTrackedCities(current, model.getTempUnit());
+                    } catch (WeatherDataManagerNotValidException e) {
+                        Metrics.reportError(e);
+                    }
+                },
+                Metrics::reportError);
         });
 
         // Stats panel request
         statsView.addStatsListener(() -> {
-            WeatherStats stats = StatCalculator.calculate(cities);
-            try {
-                statsView.displayStats(stats, model.getTempUnit());
-            } catch (WeatherDataManagerNotValidException e) {
-                e.printStackTrace();
-            }
-        });
-
-        multipleCitySelectionView.addMultipleCitySelectionListener(selectedCities -> {
-            Map<String, WeatherRecord> data = new HashMap<>();
-
-            for (String city : selectedCities) {
-                try {
-                    WeatherRecord record = model.getWeather(city, model.getDate());
-                    if (record != null) {
-                        data.put(city, record);
+            queries.submit("stats",
+                model::getStats,
+                stats -> {
+                    try {
+                        statsView.displayStats(stats, model.getTempUnit());
+                    } catch (WeatherDataManagerNotValidException e) {
+                        Metrics.reportError(e);
                     }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
+                },
+                Metrics::reportError);
+        });
 
-            multipleCitySelectionView.showComparedCities(data);
+        multipleCitySelectionView.addMultipleCitySelectionListener(selectedCityIds -> {
+            queries.submit("compared-cities",
+                () -> model.getWeather(selectedCityIds, model.getDate()),
+                multipleCitySelectionView::showComparedCities,
+                Metrics::reportError);
         });
     }
 
     public void initApp() {
+        TimedEventQueue.install();
+        try {
+            Metrics.registerMBean();
+        } catch (JMException e) {
+            Metrics.reportError(e);
+        }
+        int metricsInterval = Integer.getInteger(METRICS_INTERVAL_PROPERTY, 0);
+        if (metricsInterval > 0) {
+            Metrics.startReporting(System.err, metricsInterval);
+        }
         SwingUtilities.invokeLater(() -> mainWindow.setVisible(true));
         model.notifyObservers();  // update all observer-views
+        SwingUtilities.invokeLater(notificationCoalescer::start);
     }
 
+    /**
+     * Starts ingesting live records from a source in addition to the loaded CSV.
+     *
+     * @param source {@code -} for stdin, {@code tcp:<port>} to listen on a
+     *               loopback port, or the path of an append-only CSV file (or
+     *               named pipe) to follow
+     */
+    public void startStreaming(String source) throws IOException {
+        if (ingestor == null) {
+            ingestor = new StreamingWeatherIngestor(this::applyObservations, STREAM_QUEUE_CAPACITY, STREAM_BATCH_SIZE);
+        }
+
+        if (source.equals("-")) {
+            ingestor.readStream(System.in);
+        } else if (source.startsWith("tcp:")) {
+            ingestor.listen(Integer.parseInt(source.substring("tcp:".length())));
+        } else {
+            ingestor.followFile(Path.of(source));
+        }
+    }
+
+    /**
+     * Stops the streaming sources, the coalesced notifications and the query
+     * workers. Runs on the EDT when the main window is closed.
+     */
+    public void shutdown() {
+        notificationCoalescer.stop();
+        StreamingWeatherIngestor ingestor = this.ingestor;
+        if (ingestor != null) {
+            ingestor.close();
+        }
+        queries.shutdown();
+    }
+
+    /**
+     * Applies a batch of streamed rows on the drain thread, commits it as one
+     * snapshot and schedules one coalesced notification naming the cities and
+     * dates that received records. Queries keep reading the previous snapshot
+     * meanwhile, so neither side waits for the other.
+     */
+    private void applyObservations(List<WeatherObservation> batch) {
+        BitSet cityIds = new BitSet();
+        int appended = 0;
+        LocalDate from = null;
+        LocalDate to = null;
+        for (WeatherObservation observation : batch) {
+            try {
+                WeatherRecord record = observation.getRecord();
+                cityIds.set(model.addWeatherRecord(observation.getCityName(), record));
+                appended++;
+                LocalDate date = record.getDate();
+                if (from == null || date.isBefore(from)) {
+                    from = date;
+                }
+                if (to == null || date.isAfter(to)) {
+                    to = date;
+                }
+            } catch (WeatherDataManagerNotValidException | IllegalArgumentException e) {
+                Metrics.reportError(e);
+            }
+        }
+        model.commit();
+        Metrics.add(CounterMetric.ROWS_STREAMED, appended);
+        if (!cityIds.isEmpty()) {
+            notificationCoalescer.requestNotify(WeatherChange.recordsAppended(cityIds.stream().toArray(), from, to));
+        }
+    }
+
+    private int[] searchCities(String query) {
+        try {
+            return model.searchCities(query, SEARCH_LIMIT);
+        } catch (WeatherDataManagerNotValidException e) {
+            Metrics.reportError(e);
+            return new int[0];
+        }
+    }
+
+    /**
+     * Loads the cities from the binary snapshot when it was built from the CSV
+     * file as it is now, same size and modification time, otherwise parses the
+     * CSV file and refreshes the snapshot.
+     */
     private List<City> loadCities() {
-        IWeatherDataLoader loader = new CSVWeatherDataLoader();
+        SnapshotSource source = null;
         try {
-            return loader.load("./weather_data.csv");
+            source = SnapshotSource.of(CSV_PATH);
+        } catch (IOException e) {
+            // No CSV file: the snapshot is all there is
+        }
+        File snapshot = new File(SNAPSHOT_PATH);
+        if (snapshot.isFile()) {
+            try {
+                if (source == null || source.matches(SnapshotWeatherDataLoader.readSource(SNAPSHOT_PATH))) {
+                    return new SnapshotWeatherDataLoader().load(SNAPSHOT_PATH);
+                }
+            } catch (Exception e) {
+                // Fall back to the CSV file and rewrite the snapshot
+                Metrics.reportError(e);
+            }
+        }
+
+        try (Quarantine quarantine = new Quarantine(QUARANTINE_PATH, Long.getLong(ERROR_BUDGET_PROPERTY, DEFAULT_ERROR_BUDGET))) {
+            IWeatherDataLoader loader = new ParallelCSVWeatherDataLoader(quarantine);
+            List<City> cities = loader.load(CSV_PATH);
+            if (quarantine.getRejectedCount() > 0) {
+                System.err.println("Skipped " + quarantine.getRejectedCount() + " malformed rows "
+                    + quarantine.getRejectedCounts() + ", see " + QUARANTINE_PATH);
+            }
+            writeSnapshot(cities, source);
+            return cities;
         } catch (Exception e) {
-            e.printStackTrace();
+            Metrics.reportError(e);
         }
 
         return new ArrayList<>();
     }
+
+    private void writeSnapshot(List<City> cities, SnapshotSource source) {
+        IWeatherDataWriter writer = new SnapshotWeatherDataWriter(source);
+        try {
+            writer.write(cities, SNAPSHOT_PATH);
+        } catch (Exception e) {
+            Metrics.reportError(e);
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package enums;
+
+/**
+ * Enumeration of the ways a {@link WeatherMeasure} can be aggregated over the
+ * records of a city.
+ */
+public enum Aggregation {
+    MIN("Lowest"),
+    MAX("Highest"),
+    AVG("Average"),
+    SUM("Total"),
+    COUNT("Number of records");
+
+    private final String displayName;
+
+    Aggregation(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,12 @@
+package enums;
+
+/**
+ * Enumeration of the calendar periods weather records are rolled up into.
+ * Weeks start on Monday.
+ */
+public enum CalendarLevel {
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR
+}
@@ -0,0 +1,11 @@
+package enums;
+
+/**
+ * Enumeration of the kinds of change the weather model notifies its observers of.
+ */
+public enum ChangeKind {
+    UNIT_CHANGED,
+    DATE_CHANGED,
+    RECORDS_APPENDED,
+    TRACKED_SET_CHANGED
+}
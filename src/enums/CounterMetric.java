@@ -0,0 +1,23 @@
+package enums;
+
+/**
+ * Enumeration of the events that are counted.
+ */
+public enum CounterMetric {
+    /** Records read by a loader. */
+    ROWS_LOADED,
+    /** Records appended from a live stream. */
+    ROWS_STREAMED,
+    /** Malformed rows skipped by a tolerant load or a live stream. */
+    ROWS_REJECTED,
+    /** Single-record lookups. */
+    LOOKUPS,
+    /** Date and range queries answered by an already built index. */
+    INDEX_CACHE_HITS,
+    /** Date and range queries that had to build their index first. */
+    INDEX_CACHE_MISSES,
+    /** Changes delivered to an observer. */
+    EVENTS_DISPATCHED,
+    /** Errors reported instead of thrown, e.g. by a failed query. */
+    ERRORS
+}
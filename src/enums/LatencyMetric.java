@@ -0,0 +1,19 @@
+package enums;
+
+/**
+ * Enumeration of the operations whose latency is recorded in a histogram.
+ */
+public enum LatencyMetric {
+    /** Loading all cities from a CSV file or snapshot. */
+    LOAD,
+    /** Looking up one city's record on a date; one in 16 lookups is timed. */
+    WEATHER_LOOKUP,
+    /** Looking up several cities on a date, e.g. the tracked cities. */
+    BATCH_LOOKUP,
+    /** Computing the statistics of a list of cities. */
+    STAT_CALCULATION,
+    /** Publishing appended records as a new snapshot. */
+    COMMIT,
+    /** Delivering one change to all interested observers. */
+    OBSERVER_DISPATCH
+}
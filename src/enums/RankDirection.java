@@ -0,0 +1,16 @@
+package enums;
+
+/**
+ * Enumeration of the orders in which cities are ranked by a statistic.
+ */
+public enum RankDirection {
+    HIGHEST,
+    LOWEST;
+
+    /**
+     * Returns true if {@code value} ranks before {@code other} in this direction.
+     */
+    public boolean ranksBefore(double value, double other) {
+        return this == HIGHEST ? value > other : value < other;
+    }
+}
@@ -0,0 +1,19 @@
+package enums;
+
+/**
+ * Enumeration of the reasons a CSV row is rejected by a loader.
+ */
+public enum RejectReason {
+    /** The row does not have exactly six comma-separated fields. */
+    WRONG_FIELD_COUNT,
+    /** The date is not an ISO date such as {@code 2024-02-29}. */
+    INVALID_DATE,
+    /** The temperature is not a number. */
+    INVALID_TEMPERATURE,
+    /** The humidity is not a whole number. */
+    INVALID_HUMIDITY,
+    /** The wind speed is not a number. */
+    INVALID_WIND_SPEED,
+    /** The condition is not one of the {@link WeatherCondition} names. */
+    UNKNOWN_CONDITION
+}
@@ -1,27 +1,31 @@
 package enums;
 
-import java.util.function.Function;
+import util.LinearConversions;
 
 /**
  * Enumeration of temperature units supported for conversion from Celsius.
- * Each unit defines a conversion function from Celsius.
+ * Each unit converts from Celsius linearly, as {@code celsius * scale + offset}.
  */
 public enum TempUnit {
-    CELSIUS("C", temp -> temp),
-    FAHRENHEIT("F", temp -> temp * 9 / 5 + 32);
+    CELSIUS("C", 1.0, 0.0),
+    FAHRENHEIT("F", 1.8, 32.0),
+    KELVIN("K", 1.0, 273.15);
 
     private final String symbol;
-    private final Function<Double, Double> fromCelsius;
-    
+    private final double scale;
+    private final double offset;
+
     /**
-     * Constructs a temperature unit with a symbol and conversion function from Celsius.
+     * Constructs a temperature unit with a symbol and its conversion from Celsius.
      *
-     * @param symbol        the unit symbol (e.g., "C" or "F")
-     * @param fromCelsius   the function to convert from Celsius to this unit
+     * @param symbol the unit symbol (e.g., "C" or "F")
+     * @param scale  the factor a Celsius temperature is multiplied by
+     * @param offset the value added after scaling
      */
-    TempUnit(String symbol, Function<Double, Double> fromCelsius) {
+    TempUnit(String symbol, double scale, double offset) {
         this.symbol = symbol;
-        this.fromCelsius = fromCelsius;
+        this.scale = scale;
+        this.offset = offset;
     }
 
     /**
@@ -31,7 +35,32 @@ public enum TempUnit {
      * @return the converted temperature in this unit
      */
     public double convertFromCelsius(double celsiusTemp) {
-        return fromCelsius.apply(celsiusTemp);
+        return celsiusTemp * scale + offset;
+    }
+
+    /**
+     * Converts a run of Celsius temperatures to this unit in one pass.
+     * Source and destination may be the same array.
+     *
+     * @param celsius the temperatures in Celsius
+     * @param srcPos  the index of the first temperature to convert
+     * @param dest    receives the converted temperatures
+     * @param destPos the index of the first converted temperature
+     * @param length  the number of temperatures to convert
+     */
+    public void convertFromCelsius(double[] celsius, int srcPos, double[] dest, int destPos, int length) {
+        LinearConversions.convert(scale, offset, celsius, srcPos, dest, destPos, length);
+    }
+
+    /**
+     * Converts an array of Celsius temperatures to this unit.
+     *
+     * @return a new array with the converted temperatures
+     */
+    public double[] convertFromCelsius(double[] celsius) {
+        double[] converted = new double[celsius.length];
+        convertFromCelsius(celsius, 0, converted, 0, celsius.length);
+        return converted;
     }
 
     /**
@@ -43,6 +72,14 @@ public enum TempUnit {
         return symbol;
     }
 
+    /**
+     * Returns the symbol as shown after a value, with a degree sign where the
+     * unit uses one (e.g., "°C", but "K").
+     */
+    public String getDisplaySymbol() {
+        return this == KELVIN ? symbol : "°" + symbol;
+    }
+
     @Override
     public String toString() {
         return this.name().substring(0, 1).toUpperCase() + this.name().substring(1).toLowerCase();
@@ -21,6 +21,18 @@ public enum WeatherCondition {
     }
 
     public static WeatherCondition fromString(String condition) {
+        WeatherCondition weatherCondition = find(condition);
+        if (weatherCondition == null) {
+            throw new IllegalArgumentException("Unknown weather condition: " + condition);
+        }
+        return weatherCondition;
+    }
+
+    /**
+     * Same as {@link #fromString}, but returns null for an unknown name instead
+     * of throwing, for callers that expect bad input.
+     */
+    public static WeatherCondition find(String condition) {
         return switch (condition.toUpperCase().replace(" ", "_")) {
             case "SUNNY" -> SUNNY;
             case "CLOUDY" -> CLOUDY;
@@ -28,7 +40,7 @@ public enum WeatherCondition {
             case "SNOWY" -> SNOWY;
             case "PARTLY_CLOUDY" -> PARTLY_CLOUDY;
             case "HEAVY_SNOW" -> HEAVY_SNOW;
-            default -> throw new IllegalArgumentException("Unknown weather condition: " + condition);
+            default -> null;
         };
     }
 } 
\ No newline at end of file
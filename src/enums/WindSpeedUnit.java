@@ -0,0 +1,62 @@
+package enums;
+
+import util.LinearConversions;
+
+/**
+ * Enumeration of the units {@link WeatherMeasure#WIND} can be shown in.
+ * Wind speeds are stored in kilometres per hour; each unit converts from
+ * km/h by a constant factor.
+ */
+public enum WindSpeedUnit {
+    KILOMETERS_PER_HOUR("km/h", 1.0),
+    METERS_PER_SECOND("m/s", 1000.0 / 3600.0),
+    MILES_PER_HOUR("mph", 1000.0 / 1609.344),
+    KNOTS("kn", 1000.0 / 1852.0);
+
+    private final String symbol;
+    private final double scale;
+
+    WindSpeedUnit(String symbol, double scale) {
+        this.symbol = symbol;
+        this.scale = scale;
+    }
+
+    /**
+     * Converts a wind speed from km/h to this unit.
+     */
+    public double convertFromKilometersPerHour(double kilometersPerHour) {
+        return kilometersPerHour * scale;
+    }
+
+    /**
+     * Converts a run of wind speeds in km/h to this unit in one pass.
+     * Source and destination may be the same array.
+     *
+     * @param kilometersPerHour the wind speeds in km/h
+     * @param srcPos            the index of the first speed to convert
+     * @param dest              receives the converted speeds
+     * @param destPos           the index of the first converted speed
+     * @param length            the number of speeds to convert
+     */
+    public void convertFromKilometersPerHour(double[] kilometersPerHour, int srcPos, double[] dest, int destPos, int length) {
+        LinearConversions.convert(scale, 0.0, kilometersPerHour, srcPos, dest, destPos, length);
+    }
+
+    /**
+     * Converts an array of wind speeds in km/h to this unit.
+     *
+     * @return a new array with the converted speeds
+     */
+    public double[] convertFromKilometersPerHour(double[] kilometersPerHour) {
+        double[] converted = new double[kilometersPerHour.length];
+        convertFromKilometersPerHour(kilometersPerHour, 0, converted, 0, kilometersPerHour.length);
+        return converted;
+    }
+
+    /**
+     * Returns the symbol associated with this unit (e.g., "km/h" or "kn").
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+}
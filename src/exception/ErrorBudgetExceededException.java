@@ -0,0 +1,17 @@
+package exception;
+
+/**
+ * Thrown to indicate that a tolerant load rejected more rows than its error
+ * budget allows, so the input is considered unusable and the load is aborted.
+ */
+public class ErrorBudgetExceededException extends Exception {
+
+    /**
+     * Constructs a new exception with the specified detail message.
+     *
+     * @param msg the detail message, e.g. the budget and the rejected rows per reason
+     */
+    public ErrorBudgetExceededException(String msg) {
+        super(msg);
+    }
+}
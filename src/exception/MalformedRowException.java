@@ -0,0 +1,37 @@
+package exception;
+
+import enums.RejectReason;
+
+/**
+ * Thrown to indicate that a CSV row could not be parsed into a weather record.
+ *
+ * The message is the one the loaders have always reported, e.g.
+ * {@code Error parsing line: <row>. Unknown weather condition: Foggy}; the
+ * {@link RejectReason} and the detail on their own are what a quarantine
+ * file records.
+ */
+public class MalformedRowException extends Exception {
+    private final RejectReason reason;
+    private final String detail;
+
+    /**
+     * Constructs a new exception for a rejected row.
+     *
+     * @param reason why the row was rejected
+     * @param detail what was wrong with it, e.g. the message of the parser that failed
+     * @param row    the row as read, without its line terminator
+     */
+    public MalformedRowException(RejectReason reason, String detail, String row) {
+        super(reason == RejectReason.WRONG_FIELD_COUNT ? detail : "Error parsing line: " + row + ". " + detail);
+        this.reason = reason;
+        this.detail = detail;
+    }
+
+    public RejectReason getReason() {
+        return reason;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+}
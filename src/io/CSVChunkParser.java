@@ -0,0 +1,459 @@
+package io;
+
+import enums.RejectReason;
+import enums.WeatherCondition;
+import exception.MalformedRowException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import metrics.CsvChunkParseEvent;
+import model.City;
+import util.EpochDays;
+
+/**
+ * Parses newline-delimited weather rows directly from a (mapped) byte buffer.
+ *
+ * Canonical values such as ISO dates, plain decimals and known condition names
+ * are decoded in place without creating intermediate Strings. Anything else
+ * falls back to the JDK parsers, so the accepted input and the error messages
+ * stay identical to {@link CSVWeatherDataLoader}.
+ *
+ * With a {@link Quarantine}, malformed rows are skipped instead of failing the
+ * parse. A wrong field count or an unknown condition is detected without
+ * throwing; only a non-canonical number or date that the JDK fallback then
+ * rejects costs an exception. Rows that parse never pay for either.
+ */
+class CSVChunkParser {
+    private static final int FIELD_COUNT = 6;
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+    private static final byte[][] CONDITION_NAMES = new byte[CONDITIONS.length][];
+
+    static {
+        for (int i = 0; i < CONDITIONS.length; i++) {
+            CONDITION_NAMES[i] = CONDITIONS[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final Map<String, City> cityMap;
+    private final Quarantine quarantine;
+    private final int[] fieldStarts = new int[FIELD_COUNT];
+    private final int[] fieldEnds = new int[FIELD_COUNT];
+
+    // Open-addressing table from raw name bytes to City, so known names are
+    // resolved without decoding or hashing a String per line.
+    private byte[][] nameKeys = new byte[64][];
+    private City[] nameValues = new City[64];
+    private int[] nameHashes = new int[64];
+    private int nameCount = 0;
+
+    private long rowCount = 0;
+    private long lineCount = 0;
+    private long rejectedCount = 0;
+    // Rows rejected since the last writeRejects, by index among all lines parsed
+    private final List<RejectedRow> rejects = new ArrayList<>();
+    // Date range of the current parse call, for its CsvChunkParseEvent
+    private int firstDay;
+    private int lastDay;
+
+    /**
+     * @param cityMap the map that receives every City created by this parser
+     */
+    CSVChunkParser(Map<String, City> cityMap) {
+        this(cityMap, null);
+    }
+
+    /**
+     * @param cityMap    the map that receives every City created by this parser
+     * @param quarantine where rejected rows go, or null to fail on the first one
+     */
+    CSVChunkParser(Map<String, City> cityMap, Quarantine quarantine) {
+        this.cityMap = cityMap;
+        this.quarantine = quarantine;
+    }
+
+    Map<String, City> getCityMap() {
+        return cityMap;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of lines parsed so far, rejected ones included.
+     */
+    long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Writes the rows rejected so far to the quarantine, which has already been
+     * charged for them. The caller supplies the line number of the first line
+     * this parser saw, since a parser working on one range of a file cannot
+     * know it.
+     */
+    void writeRejects(long firstLineNumber) throws IOException {
+        for (RejectedRow reject : rejects) {
+            quarantine.write(firstLineNumber + reject.lineIndex, reject.reason, reject.detail, reject.row);
+        }
+        rejects.clear();
+    }
+
+    /**
+     * Parses every line in {@code [from, to)}. The last line does not need a
+     * trailing newline.
+     *
+     * @throws MalformedRowException without a quarantine, with the same message
+     *         {@link CSVWeatherDataLoader} would produce
+     * @throws exception.ErrorBudgetExceededException with a quarantine, once its budget is used up
+     */
+    void parse(ByteBuffer buf, int from, int to) throws Exception {
+        CsvChunkParseEvent event = new CsvChunkParseEvent();
+        event.begin();
+        long rowsBefore = rowCount;
+        long rejectedBefore = rejectedCount;
+        firstDay = Integer.MAX_VALUE;
+        lastDay = Integer.MIN_VALUE;
+
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = indexOf(buf, (byte) '\n', lineStart, to);
+            int next = lineEnd < 0 ? to : lineEnd + 1;
+            if (lineEnd < 0) {
+                lineEnd = to;
+            }
+            if (lineEnd > lineStart && buf.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            parseLine(buf, lineStart, lineEnd);
+            lineCount++;
+            lineStart = next;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = to - from;
+            event.rows = rowCount - rowsBefore;
+            event.rejected = rejectedCount - rejectedBefore;
+            event.cities = nameCount;
+            if (event.rows > 0) {
+                event.firstDate = LocalDate.ofEpochDay(firstDay).toString();
+                event.lastDate = LocalDate.ofEpochDay(lastDay).toString();
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the index of the first {@code b} in {@code [from, to)}, or -1.
+     */
+    static int indexOf(ByteBuffer buf, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last {@code b} in {@code [from, to)}, or -1.
+     */
+    static int lastIndexOf(ByteBuffer buf, byte b, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void parseLine(ByteBuffer buf, int start, int end) throws Exception {
+        if (!splitFields(buf, start, end)) {
+            reject(buf, start, end, RejectReason.WRONG_FIELD_COUNT, "Invalid CSV format: each line should have 6 fields");
+            return;
+        }
+
+        // Tracks the field being parsed, to name the reason if a JDK fallback throws
+        RejectReason reason = RejectReason.INVALID_DATE;
+        int epochDay;
+        double temperature;
+        int humidity;
+        double windSpeed;
+        WeatherCondition condition;
+        try {
+            epochDay = parseEpochDay(buf, fieldStarts[1], fieldEnds[1]);
+            reason = RejectReason.INVALID_TEMPERATURE;
+            temperature = parseDouble(buf, fieldStarts[2], fieldEnds[2]);
+            reason = RejectReason.INVALID_HUMIDITY;
+            humidity = parseInt(buf, fieldStarts[3], fieldEnds[3]);
+            reason = RejectReason.INVALID_WIND_SPEED;
+            windSpeed = parseDouble(buf, fieldStarts[4], fieldEnds[4]);
+            condition = parseCondition(buf, fieldStarts[5], fieldEnds[5]);
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+            reject(buf, start, end, reason, e.getMessage());
+            return;
+        }
+        if (condition == null) {
+            reject(buf, start, end, RejectReason.UNKNOWN_CONDITION,
+                "Unknown weather condition: " + decode(buf, fieldStarts[5], fieldEnds[5]));
+            return;
+        }
+
+        // Resolved last, so a rejected row does not leave an empty City behind
+        City city = resolveCity(buf, fieldStarts[0], fieldEnds[0]);
+        city.addWeatherRecord(epochDay, temperature, humidity, windSpeed, condition);
+        rowCount++;
+        firstDay = Math.min(firstDay, epochDay);
+        lastDay = Math.max(lastDay, epochDay);
+    }
+
+    /**
+     * Fails the parse, or charges the quarantine and keeps the row for
+     * {@link #writeRejects}.
+     */
+    private void reject(ByteBuffer buf, int start, int end, RejectReason reason, String detail) throws Exception {
+        String row = decode(buf, start, end);
+        if (quarantine == null) {
+            throw new MalformedRowException(reason, detail, row);
+        }
+        rejects.add(new RejectedRow(lineCount, reason, detail, row));
+        rejectedCount++;
+        quarantine.charge(reason);
+    }
+
+    /**
+     * Splits a line on commas the way {@code String.split(",")} does, i.e.
+     * trailing empty fields are dropped before counting.
+     *
+     * @return true if the line has exactly six fields
+     */
+    private boolean splitFields(ByteBuffer buf, int start, int end) {
+        while (end > start && buf.get(end - 1) == ',') {
+            end--;
+        }
+
+        int field = 0;
+        fieldStarts[0] = start;
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == ',') {
+                if (field == FIELD_COUNT - 1) {
+                    return false;
+                }
+                fieldEnds[field++] = i;
+                fieldStarts[field] = i + 1;
+            }
+        }
+        fieldEnds[field] = end;
+        return field == FIELD_COUNT - 1;
+    }
+
+    private City resolveCity(ByteBuffer buf, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buf.get(i);
+        }
+
+        int mask = nameKeys.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (nameKeys[slot] != null) {
+            if (nameHashes[slot] == hash && bytesEqual(buf, start, end, nameKeys[slot])) {
+                return nameValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] key = new byte[end - start];
+        buf.get(start, key);
+        City city = cityMap.computeIfAbsent(new String(key, StandardCharsets.UTF_8), City::new);
+        nameKeys[slot] = key;
+        nameValues[slot] = city;
+        nameHashes[slot] = hash;
+        if (++nameCount * 2 > nameKeys.length) {
+            growNameTable();
+        }
+        return city;
+    }
+
+    private void growNameTable() {
+        byte[][] oldKeys = nameKeys;
+        City[] oldValues = nameValues;
+        int[] oldHashes = nameHashes;
+        nameKeys = new byte[oldKeys.length * 2][];
+        nameValues = new City[oldKeys.length * 2];
+        nameHashes = new int[oldKeys.length * 2];
+
+        int mask = nameKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = (oldHashes[i] ^ (oldHashes[i] >>> 16)) & mask;
+            while (nameKeys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            nameKeys[slot] = oldKeys[i];
+            nameValues[slot] = oldValues[i];
+            nameHashes[slot] = oldHashes[i];
+        }
+    }
+
+    private static boolean bytesEqual(ByteBuffer buf, int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buf.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses {@code yyyy-MM-dd} into an epoch day; any other shape goes through
+     * {@link LocalDate#parse}.
+     */
+    private static int parseEpochDay(ByteBuffer buf, int start, int end) {
+        if (end - start == 10 && buf.get(start + 4) == '-' && buf.get(start + 7) == '-') {
+            int year = digits(buf, start, start + 4);
+            int month = digits(buf, start + 5, start + 7);
+            int day = digits(buf, start + 8, start + 10);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1
+                    && day <= Month.of(month).length(Year.isLeap(year))) {
+                return EpochDays.of(year, month, day);
+            }
+        }
+        return Math.toIntExact(LocalDate.parse(decode(buf, start, end)).toEpochDay());
+    }
+
+    /**
+     * Parses {@code [-]digits[.digits]} exactly; other notations go through
+     * {@link Double#parseDouble}. A mantissa below 2^53 divided by an exact power
+     * of ten rounds the same way the JDK does.
+     */
+    private static double parseDouble(ByteBuffer buf, int start, int end) {
+        int i = start;
+        boolean negative = i < end && buf.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+
+        long mantissa = 0;
+        int digitCount = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digitCount++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+
+        if (i == end && digitCount > 0 && digitCount <= MAX_FAST_DIGITS && fractionDigits != 0) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(decode(buf, start, end));
+    }
+
+    /**
+     * Parses plain unsigned digits; other notations go through {@link Integer#parseInt}.
+     */
+    private static int parseInt(ByteBuffer buf, int start, int end) {
+        if (end > start && end - start <= 9) {
+            int value = digits(buf, start, end);
+            if (value >= 0) {
+                return value;
+            }
+        }
+        return Integer.parseInt(decode(buf, start, end));
+    }
+
+    /**
+     * Matches the enum names case-insensitively with spaces as underscores, which
+     * is what {@link WeatherCondition#fromString} accepts for ASCII input.
+     *
+     * @return the condition, or null if the name is unknown
+     */
+    private static WeatherCondition parseCondition(ByteBuffer buf, int start, int end) {
+        for (int c = 0; c < CONDITIONS.length; c++) {
+            if (CONDITIONS[c] != WeatherCondition.NONE && conditionMatches(buf, start, end, CONDITION_NAMES[c])) {
+                return CONDITIONS[c];
+            }
+        }
+        return WeatherCondition.find(decode(buf, start, end));
+    }
+
+    private static boolean conditionMatches(ByteBuffer buf, int start, int end, byte[] name) {
+        if (end - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            byte b = buf.get(start + i);
+            if (b >= 'a' && b <= 'z') {
+                b -= 'a' - 'A';
+            } else if (b == ' ') {
+                b = '_';
+            }
+            if (b != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the decimal value of {@code [start, end)}, or -1 if any byte is not a digit.
+     */
+    private static int digits(ByteBuffer buf, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    static String decode(ByteBuffer buf, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class RejectedRow {
+        final long lineIndex;
+        final RejectReason reason;
+        final String detail;
+        final String row;
+
+        RejectedRow(long lineIndex, RejectReason reason, String detail, String row) {
+            this.lineIndex = lineIndex;
+            this.reason = reason;
+            this.detail = detail;
+            this.row = row;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package io;
 
+import enums.RejectReason;
 import enums.WeatherCondition;
+import exception.MalformedRowException;
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -12,11 +16,30 @@ import model.City;
 import model.WeatherRecord;
 
 public class CSVWeatherDataLoader implements IWeatherDataLoader {
+    private final Quarantine quarantine;
+
+    /**
+     * Creates a loader that fails on the first malformed row.
+     */
+    public CSVWeatherDataLoader() {
+        this(null);
+    }
+
+    /**
+     * Creates a loader that skips malformed rows into a quarantine.
+     *
+     * @param quarantine where rejected rows go, or null to fail on the first one
+     */
+    public CSVWeatherDataLoader(Quarantine quarantine) {
+        this.quarantine = quarantine;
+    }
+
     @Override
     public List<City> load(String filePath) throws Exception {
+        long start = System.nanoTime();
         Map<String, City> cityMap = new HashMap<>();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath, StandardCharsets.UTF_8))) {
             // Skip header line
             String headerLine = reader.readLine();
             if (headerLine == null) {
@@ -24,33 +47,63 @@ public class CSVWeatherDataLoader implements IWeatherDataLoader {
             }
             
             String line;
+            long lineNumber = 1;
             while ((line = reader.readLine()) != null) {
-                String[] data = line.split(",");
-                if (data.length != 6) {
-                    throw new Exception("Invalid CSV format: each line should have 6 fields");
-                }
-                
+                lineNumber++;
+                WeatherObservation observation;
                 try {
-                    // Parse data
-                    String cityName = data[0];
-                    LocalDate date = LocalDate.parse(data[1]);
-                    double temperature = Double.parseDouble(data[2]);
-                    int humidity = Integer.parseInt(data[3]);
-                    double windSpeed = Double.parseDouble(data[4]);
-                    WeatherCondition condition = WeatherCondition.fromString(data[5]);
-                    
-                    // Create WeatherRecord
-                    WeatherRecord record = new WeatherRecord(date, temperature, humidity, windSpeed, condition);
-                    
-                    // Get or create City
-                    City city = cityMap.computeIfAbsent(cityName, City::new);
-                    city.addWeatherRecord(record);
-                } catch (IllegalArgumentException e) {
-                    throw new Exception("Error parsing line: " + line + ". " + e.getMessage());
+                    observation = parseLine(line);
+                } catch (MalformedRowException e) {
+                    if (quarantine == null) {
+                        throw e;
+                    }
+                    quarantine.reject(lineNumber, e.getReason(), e.getDetail(), line);
+                    continue;
                 }
+
+                // Get or create City
+                City city = cityMap.computeIfAbsent(observation.getCityName(), City::new);
+                city.addWeatherRecord(observation.getRecord());
             }
         }
         
-        return new ArrayList<>(cityMap.values());
+        return LoadMetrics.recordLoad(start, new ArrayList<>(cityMap.values()));
+    }
+
+    /**
+     * Parses one CSV data line.
+     *
+     * @param line a line of the form {@code City,Date,Temperature,Humidity,WindSpeed,Condition}
+     * @return the parsed observation
+     * @throws MalformedRowException if the line does not have six fields or a field cannot be parsed
+     */
+    public static WeatherObservation parseLine(String line) throws MalformedRowException {
+        String[] data = line.split(",");
+        if (data.length != 6) {
+            throw new MalformedRowException(RejectReason.WRONG_FIELD_COUNT,
+                "Invalid CSV format: each line should have 6 fields", line);
+        }
+        
+        // Tracks the field being parsed, to name the reason if it fails
+        RejectReason reason = RejectReason.INVALID_DATE;
+        try {
+            // Parse data
+            String cityName = data[0];
+            LocalDate date = LocalDate.parse(data[1]);
+            reason = RejectReason.INVALID_TEMPERATURE;
+            double temperature = Double.parseDouble(data[2]);
+            reason = RejectReason.INVALID_HUMIDITY;
+            int humidity = Integer.parseInt(data[3]);
+            reason = RejectReason.INVALID_WIND_SPEED;
+            double windSpeed = Double.parseDouble(data[4]);
+            reason = RejectReason.UNKNOWN_CONDITION;
+            WeatherCondition condition = WeatherCondition.fromString(data[5]);
+            
+            // Create WeatherRecord
+            WeatherRecord record = new WeatherRecord(date, temperature, humidity, windSpeed, condition);
+            return new WeatherObservation(cityName, record);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new MalformedRowException(reason, e.getMessage(), line);
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package io;
+import java.util.List;
+
+import model.City;
+
+public interface IWeatherDataWriter {
+    void write(List<City> cities, String filePath) throws Exception;
+}
@@ -0,0 +1,30 @@
+package io;
+
+import enums.CounterMetric;
+import enums.LatencyMetric;
+import java.util.List;
+import metrics.Metrics;
+import model.City;
+
+/**
+ * Records the latency and row count of a completed load, the same way for
+ * every {@link IWeatherDataLoader}.
+ */
+final class LoadMetrics {
+    private LoadMetrics() {
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} reading taken when the load started
+     * @param cities     the loaded cities, returned as they are
+     */
+    static List<City> recordLoad(long startNanos, List<City> cities) {
+        Metrics.recordSince(LatencyMetric.LOAD, startNanos);
+        long rows = 0;
+        for (City city : cities) {
+            rows += city.getRecordStore().size();
+        }
+        Metrics.add(CounterMetric.ROWS_LOADED, rows);
+        return cities;
+    }
+}
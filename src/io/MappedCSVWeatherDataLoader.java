@@ -0,0 +1,98 @@
+package io;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.City;
+
+/**
+ * Loads the same CSV format as {@link CSVWeatherDataLoader}, but memory-maps the
+ * file and parses rows straight from the mapped bytes instead of going through
+ * a Reader, per-line Strings and {@code split}.
+ *
+ * Files larger than a single mapping (2 GB) are processed in newline-aligned
+ * windows. Given a {@link Quarantine}, malformed rows are skipped into it
+ * instead of failing the load.
+ */
+public class MappedCSVWeatherDataLoader implements IWeatherDataLoader {
+    private static final long MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private final long windowSize;
+    private final Quarantine quarantine;
+
+    public MappedCSVWeatherDataLoader() {
+        this(MAX_WINDOW_SIZE, null);
+    }
+
+    /**
+     * @param quarantine where rejected rows go, or null to fail on the first one
+     */
+    public MappedCSVWeatherDataLoader(Quarantine quarantine) {
+        this(MAX_WINDOW_SIZE, quarantine);
+    }
+
+    /**
+     * @param windowSize the maximum number of bytes mapped at a time
+     * @param quarantine where rejected rows go, or null to fail on the first one
+     */
+    MappedCSVWeatherDataLoader(long windowSize, Quarantine quarantine) {
+        if (windowSize <= 0 || windowSize > MAX_WINDOW_SIZE) {
+            throw new IllegalArgumentException("Window size must be between 1 and " + MAX_WINDOW_SIZE);
+        }
+        this.windowSize = windowSize;
+        this.quarantine = quarantine;
+    }
+
+    @Override
+    public List<City> load(String filePath) throws Exception {
+        long loadStart = System.nanoTime();
+        Map<String, City> cityMap = new HashMap<>();
+        CSVChunkParser parser = new CSVChunkParser(cityMap, quarantine);
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                throw new Exception("CSV file is empty");
+            }
+
+            boolean headerSkipped = false;
+            long position = 0;
+            while (position < fileSize) {
+                long length = Math.min(windowSize, fileSize - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastWindow = position + length == fileSize;
+
+                // Only parse up to the last complete line; the remainder is
+                // picked up again at the start of the next window.
+                int end = lastWindow
+                    ? (int) length
+                    : CSVChunkParser.lastIndexOf(window, (byte) '\n', 0, (int) length) + 1;
+                if (end == 0) {
+                    throw new Exception("Invalid CSV format: line longer than " + windowSize + " bytes");
+                }
+
+                int start = 0;
+                if (!headerSkipped) {
+                    int headerEnd = CSVChunkParser.indexOf(window, (byte) '\n', 0, end);
+                    start = headerEnd < 0 ? end : headerEnd + 1;
+                    headerSkipped = true;
+                }
+
+                parser.parse(window, start, end);
+                position += end;
+            }
+        } finally {
+            if (quarantine != null) {
+                // Line 1 is the header
+                parser.writeRejects(2);
+            }
+        }
+
+        return LoadMetrics.recordLoad(loadStart, new ArrayList<>(cityMap.values()));
+    }
+}
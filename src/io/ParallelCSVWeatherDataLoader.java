@@ -0,0 +1,203 @@
+package io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.City;
+
+/**
+ * Loads the CSV format of {@link CSVWeatherDataLoader} on several threads.
+ *
+ * The file is split into newline-aligned byte ranges, each range is mapped and
+ * parsed by a worker into its own partial city map, and the partial maps are
+ * merged in file order at the end. Records of each City are then sorted by date,
+ * so the result does not depend on thread scheduling.
+ *
+ * Given a {@link Quarantine}, workers skip malformed rows and charge them to
+ * the error budget as they go. A worker cannot know the line numbers of its
+ * range, so the rejected rows are written to the quarantine file in file order
+ * once the ranges before theirs are done.
+ */
+public class ParallelCSVWeatherDataLoader implements IWeatherDataLoader {
+    private static final long MAX_RANGE_SIZE = Integer.MAX_VALUE;
+    private static final long MIN_RANGE_SIZE = 1 << 20;
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int BOUNDARY_PROBE_SIZE = 64 * 1024;
+
+    private final int parallelism;
+    private final Quarantine quarantine;
+
+    public ParallelCSVWeatherDataLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism the number of worker threads
+     */
+    public ParallelCSVWeatherDataLoader(int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * @param quarantine where rejected rows go, or null to fail on the first one
+     */
+    public ParallelCSVWeatherDataLoader(Quarantine quarantine) {
+        this(Runtime.getRuntime().availableProcessors(), quarantine);
+    }
+
+    /**
+     * @param parallelism the number of worker threads
+     * @param quarantine  where rejected rows go, or null to fail on the first one
+     */
+    public ParallelCSVWeatherDataLoader(int parallelism, Quarantine quarantine) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.quarantine = quarantine;
+    }
+
+    @Override
+    public List<City> load(String filePath) throws Exception {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                throw new Exception("CSV file is empty");
+            }
+
+            long dataStart = nextLineStart(channel, 0, fileSize);
+            List<long[]> ranges = splitRanges(channel, dataStart, fileSize);
+            List<Map<String, City>> partials = parseRanges(channel, ranges);
+
+            // Partials list their cities in first-seen order and computeIfAbsent
+            // places new keys like the sequential loaders do, so the merged map
+            // iterates in the same order as theirs
+            Map<String, City> cityMap = new HashMap<>();
+            for (Map<String, City> partial : partials) {
+                for (Map.Entry<String, City> entry : partial.entrySet()) {
+                    City city = cityMap.computeIfAbsent(entry.getKey(), name -> entry.getValue());
+                    if (city != entry.getValue()) {
+                        city.addWeatherRecords(entry.getValue());
+                    }
+                }
+            }
+
+            for (City city : cityMap.values()) {
+                city.sortRecordsByDate();
+            }
+            return LoadMetrics.recordLoad(start, new ArrayList<>(cityMap.values()));
+        }
+    }
+
+    /**
+     * Cuts {@code [start, end)} into about {@code RANGES_PER_THREAD} ranges per
+     * thread, each ending right after a newline.
+     */
+    private List<long[]> splitRanges(FileChannel channel, long start, long end) throws Exception {
+        long dataSize = end - start;
+        long rangeSize = Math.max(MIN_RANGE_SIZE, dataSize / ((long) parallelism * RANGES_PER_THREAD));
+        rangeSize = Math.min(rangeSize, MAX_RANGE_SIZE / 2);
+
+        List<long[]> ranges = new ArrayList<>();
+        long rangeStart = start;
+        while (rangeStart < end) {
+            long target = rangeStart + rangeSize;
+            long rangeEnd = target >= end ? end : nextLineStart(channel, target, end);
+            if (rangeEnd - rangeStart > MAX_RANGE_SIZE) {
+                throw new Exception("Invalid CSV format: line longer than " + (MAX_RANGE_SIZE / 2) + " bytes");
+            }
+            ranges.add(new long[] { rangeStart, rangeEnd });
+            rangeStart = rangeEnd;
+        }
+        return ranges;
+    }
+
+    private List<Map<String, City>> parseRanges(FileChannel channel, List<long[]> ranges) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, ranges.size())), r -> {
+            Thread thread = new Thread(r, "csv-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<CSVChunkParser> parsers = new ArrayList<>();
+        // Ranges whose parser has stopped, successfully or not
+        int finished = 0;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long[] range : ranges) {
+                CSVChunkParser parser = new CSVChunkParser(new LinkedHashMap<>(), quarantine);
+                parsers.add(parser);
+                futures.add(executor.submit(() -> {
+                    int length = (int) (range[1] - range[0]);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, range[0], length);
+                    parser.parse(buffer, 0, length);
+                    return null;
+                }));
+            }
+
+            // Collect in file order, so the first failing range reports the
+            // same line the sequential loaders would.
+            List<Map<String, City>> partials = new ArrayList<>();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    finished++;
+                    if (e.getCause() instanceof Exception cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+                partials.add(parsers.get(finished++).getCityMap());
+            }
+            return partials;
+        } finally {
+            executor.shutdownNow();
+            if (quarantine != null) {
+                writeRejects(parsers, finished);
+            }
+        }
+    }
+
+    /**
+     * Writes the rejected rows of the first {@code count} ranges, which have
+     * all stopped, to the quarantine with their line numbers in the file.
+     */
+    private void writeRejects(List<CSVChunkParser> parsers, int count) throws IOException {
+        // Line 1 is the header
+        long firstLineNumber = 2;
+        for (int i = 0; i < count; i++) {
+            parsers.get(i).writeRejects(firstLineNumber);
+            firstLineNumber += parsers.get(i).getLineCount();
+        }
+    }
+
+    /**
+     * Returns the offset just past the first newline at or after {@code from},
+     * or {@code end} if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long end) throws Exception {
+        long position = from;
+        while (position < end) {
+            int length = (int) Math.min(BOUNDARY_PROBE_SIZE, end - position);
+            MappedByteBuffer probe = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int newline = CSVChunkParser.indexOf(probe, (byte) '\n', 0, length);
+            if (newline >= 0) {
+                return position + newline + 1;
+            }
+            position += length;
+        }
+        return end;
+    }
+}
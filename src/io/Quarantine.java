@@ -0,0 +1,141 @@
+package io;
+
+import enums.CounterMetric;
+import enums.RejectReason;
+import exception.ErrorBudgetExceededException;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import metrics.Metrics;
+
+/**
+ * Where a tolerant CSV load puts the rows it skips.
+ *
+ * A loader given a Quarantine no longer stops at the first malformed row. It
+ * skips the row, counts it per {@link RejectReason}, and writes it to the
+ * quarantine file as a tab-separated line of line number, reason, detail and
+ * the row itself. Once more rows than the error budget have been rejected, the
+ * load is aborted with an {@link ErrorBudgetExceededException}: the input is then
+ * taken to be broken as a whole rather than a few bad rows. The outcome only
+ * depends on the number of bad rows, not on which loader thread finds them.
+ *
+ * One Quarantine belongs to one load; close it when the load is done.
+ */
+public class Quarantine implements Closeable {
+    public static final String HEADER = "line\treason\tdetail\trow";
+
+    private final Path path;
+    private final long errorBudget;
+    private final long[] rejected = new long[RejectReason.values().length];
+    private long rejectedTotal = 0;
+    private BufferedWriter writer;
+
+    /**
+     * Creates, or empties, the quarantine file.
+     *
+     * @param filePath    the quarantine file, or null to only count rejected rows
+     * @param errorBudget the number of rows that may be rejected before the load is aborted
+     */
+    public Quarantine(String filePath, long errorBudget) throws IOException {
+        if (errorBudget < 0) {
+            throw new IllegalArgumentException("Error budget must not be negative");
+        }
+        this.path = filePath == null ? null : Path.of(filePath);
+        this.errorBudget = errorBudget;
+        if (path != null) {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            writer.write(HEADER);
+            writer.newLine();
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getErrorBudget() {
+        return errorBudget;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedTotal;
+    }
+
+    public synchronized long getRejectedCount(RejectReason reason) {
+        return rejected[reason.ordinal()];
+    }
+
+    /**
+     * Returns the number of rejected rows per reason, leaving out reasons with none.
+     */
+    public synchronized Map<RejectReason, Long> getRejectedCounts() {
+        Map<RejectReason, Long> counts = new EnumMap<>(RejectReason.class);
+        for (RejectReason reason : RejectReason.values()) {
+            if (rejected[reason.ordinal()] > 0) {
+                counts.put(reason, rejected[reason.ordinal()]);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts one rejected row against the error budget. Loaders charge a row as
+     * soon as they find it, but may {@link #write} it later, once its line
+     * number is known.
+     *
+     * @throws ErrorBudgetExceededException if this row exceeds the budget
+     */
+    synchronized void charge(RejectReason reason) throws ErrorBudgetExceededException {
+        rejected[reason.ordinal()]++;
+        rejectedTotal++;
+        Metrics.increment(CounterMetric.ROWS_REJECTED);
+        if (rejectedTotal > errorBudget) {
+            throw new ErrorBudgetExceededException("Rejected more than " + errorBudget + " rows "
+                + getRejectedCounts() + (path == null ? "" : ", see " + path));
+        }
+    }
+
+    /**
+     * Writes one already charged row to the quarantine file.
+     *
+     * @param lineNumber the 1-based line number of the row in its file, header included
+     */
+    synchronized void write(long lineNumber, RejectReason reason, String detail, String row) throws IOException {
+        if (writer == null) {
+            return;
+        }
+        writer.write(Long.toString(lineNumber));
+        writer.write('\t');
+        writer.write(reason.name());
+        writer.write('\t');
+        writer.write(detail.replace('\t', ' '));
+        writer.write('\t');
+        writer.write(row);
+        writer.newLine();
+    }
+
+    /**
+     * Charges and writes a rejected row whose line number is already known.
+     */
+    void reject(long lineNumber, RejectReason reason, String detail, String row)
+            throws ErrorBudgetExceededException, IOException {
+        try {
+            charge(reason);
+        } finally {
+            write(lineNumber, reason, detail, row);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
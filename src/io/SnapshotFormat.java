@@ -0,0 +1,36 @@
+package io;
+
+/**
+ * Layout of the binary weather snapshot, big-endian throughout:
+ *
+ * <pre>
+ * int     magic            "WXSN"
+ * int     version
+ * long    sourceSize       size of the CSV file the snapshot was built from, or -1
+ * long    sourceModified   its last modification time in epoch millis, or -1
+ * int     cityCount
+ * city dictionary, cityCount times:
+ *   int     nameLength
+ *   byte[]  name           UTF-8
+ * city blocks, cityCount times, in dictionary order:
+ *   int     recordCount
+ *   int[]   epochDays
+ *   double[] temperatures
+ *   float[] humidities
+ *   double[] windSpeeds
+ *   byte[]  conditions     WeatherCondition ordinals
+ * long    checksum         CRC32 of every preceding byte
+ * </pre>
+ *
+ * Version 2 added the source fields; older snapshots are rebuilt.
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x5758534E; // "WXSN"
+    static final int VERSION = 2;
+    static final int CHECKSUM_SIZE = Long.BYTES;
+    // magic, version, source size and modification time
+    static final int HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    private SnapshotFormat() {
+    }
+}
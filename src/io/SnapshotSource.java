@@ -0,0 +1,58 @@
+package io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Identifies the CSV file a snapshot was built from by its size and last
+ * modification time, as recorded in the snapshot header.
+ *
+ * A snapshot is only current for a CSV file with exactly the same size and
+ * modification time. Comparing the two files' timestamps is not enough: a CSV
+ * file replaced by an older one, e.g. copied with preserved times or restored
+ * from a backup, would otherwise be served from the stale snapshot.
+ */
+public final class SnapshotSource {
+    /** The source of a snapshot written without one; never current. */
+    static final SnapshotSource UNKNOWN = new SnapshotSource(-1, -1);
+
+    private final long size;
+    private final long lastModifiedMillis;
+
+    SnapshotSource(long size, long lastModifiedMillis) {
+        this.size = size;
+        this.lastModifiedMillis = lastModifiedMillis;
+    }
+
+    /**
+     * Reads the size and modification time of a file. Read them before
+     * parsing the file, so that changes made meanwhile are not missed.
+     *
+     * @param filePath the CSV file
+     */
+    public static SnapshotSource of(String filePath) throws IOException {
+        Path path = Path.of(filePath);
+        return new SnapshotSource(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getLastModifiedMillis() {
+        return lastModifiedMillis;
+    }
+
+    /**
+     * Returns true if a snapshot of this source is current for another one.
+     */
+    public boolean matches(SnapshotSource other) {
+        return other != null && size >= 0 && size == other.size && lastModifiedMillis == other.lastModifiedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return size + " bytes, modified " + lastModifiedMillis;
+    }
+}
@@ -0,0 +1,267 @@
+package io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import metrics.SnapshotLoadEvent;
+import model.City;
+import model.WeatherRecordStore;
+
+/**
+ * Loads cities from a binary snapshot written by {@link SnapshotWeatherDataWriter}.
+ *
+ * The file is mapped in windows of up to 2 GB, like in
+ * {@link MappedCSVWeatherDataLoader}, verified against its checksum and then
+ * copied column by column straight into each city's {@link WeatherRecordStore};
+ * no text is parsed and no per-record objects are created.
+ */
+public class SnapshotWeatherDataLoader implements IWeatherDataLoader {
+    private static final long MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private final long windowSize;
+
+    public SnapshotWeatherDataLoader() {
+        this(MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize the maximum number of bytes mapped at a time
+     */
+    SnapshotWeatherDataLoader(long windowSize) {
+        if (windowSize < Long.BYTES || windowSize > MAX_WINDOW_SIZE) {
+            throw new IllegalArgumentException("Window size must be between " + Long.BYTES + " and " + MAX_WINDOW_SIZE);
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Returns the CSV file a snapshot was built from, without loading it, or
+     * null if the file is not a snapshot of the current version.
+     *
+     * @param filePath the snapshot file
+     */
+    public static SnapshotSource readSource(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            if (channel.size() < SnapshotFormat.HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SnapshotFormat.HEADER_SIZE);
+            if (header.getInt() != SnapshotFormat.MAGIC || header.getInt() != SnapshotFormat.VERSION) {
+                return null;
+            }
+            return new SnapshotSource(header.getLong(), header.getLong());
+        }
+    }
+
+    @Override
+    public List<City> load(String filePath) throws Exception {
+        long start = System.nanoTime();
+        SnapshotLoadEvent event = new SnapshotLoadEvent();
+        event.begin();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < SnapshotFormat.HEADER_SIZE + Integer.BYTES + SnapshotFormat.CHECKSUM_SIZE) {
+                throw new Exception("Invalid snapshot: file is too short");
+            }
+
+            long payloadSize = fileSize - SnapshotFormat.CHECKSUM_SIZE;
+            long checksum = channel.map(FileChannel.MapMode.READ_ONLY, payloadSize, SnapshotFormat.CHECKSUM_SIZE).getLong();
+            if (checksum(channel, payloadSize) != checksum) {
+                throw new Exception("Invalid snapshot: checksum mismatch");
+            }
+
+            SnapshotInput in = new SnapshotInput(channel, payloadSize, windowSize);
+            if (in.getInt() != SnapshotFormat.MAGIC) {
+                throw new Exception("Invalid snapshot: not a weather snapshot");
+            }
+            int version = in.getInt();
+            if (version != SnapshotFormat.VERSION) {
+                throw new Exception("Unsupported snapshot version: " + version);
+            }
+            // The source is only compared by readSource
+            in.getLong();
+            in.getLong();
+
+            try {
+                List<City> cities = readCities(in);
+                event.end();
+                if (event.shouldCommit()) {
+                    describe(event, filePath, fileSize, cities);
+                    event.commit();
+                }
+                return LoadMetrics.recordLoad(start, cities);
+            } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+                throw new Exception("Invalid snapshot: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void describe(SnapshotLoadEvent event, String filePath, long fileSize, List<City> cities) {
+        event.path = filePath;
+        event.bytes = fileSize;
+        event.cities = cities.size();
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        for (City city : cities) {
+            WeatherRecordStore store = city.getRecordStore();
+            event.rows += store.size();
+            if (store.size() > 0 && store.isSortedByDate()) {
+                firstDay = Math.min(firstDay, store.getEpochDay(0));
+                lastDay = Math.max(lastDay, store.getEpochDay(store.size() - 1));
+            } else {
+                for (int slot = 0; slot < store.size(); slot++) {
+                    firstDay = Math.min(firstDay, store.getEpochDay(slot));
+                    lastDay = Math.max(lastDay, store.getEpochDay(slot));
+                }
+            }
+        }
+        if (event.rows > 0) {
+            event.firstDate = LocalDate.ofEpochDay(firstDay).toString();
+            event.lastDate = LocalDate.ofEpochDay(lastDay).toString();
+        }
+    }
+
+    /**
+     * Computes the CRC32 of the first {@code length} bytes, one window at a time.
+     */
+    private long checksum(FileChannel channel, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long position = 0; position < length; position += windowSize) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, length - position)));
+        }
+        return crc.getValue();
+    }
+
+    private static List<City> readCities(SnapshotInput in) throws IOException {
+        int cityCount = in.getInt();
+        if (cityCount < 0) {
+            throw new IllegalArgumentException("negative city count " + cityCount);
+        }
+        String[] names = new String[cityCount];
+        for (int i = 0; i < cityCount; i++) {
+            byte[] name = new byte[in.getInt()];
+            in.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        List<City> cities = new ArrayList<>(cityCount);
+        for (int i = 0; i < cityCount; i++) {
+            int size = in.getInt();
+            int[] epochDays = new int[size];
+            double[] temperatures = new double[size];
+            float[] humidities = new float[size];
+            double[] windSpeeds = new double[size];
+            byte[] conditions = new byte[size];
+
+            in.get(epochDays);
+            in.get(temperatures);
+            in.get(humidities);
+            in.get(windSpeeds);
+            in.get(conditions);
+
+            cities.add(new City(names[i], new WeatherRecordStore(
+                epochDays, temperatures, humidities, windSpeeds, conditions)));
+        }
+
+        if (in.remaining() > 0) {
+            throw new IllegalArgumentException(in.remaining() + " unexpected trailing bytes");
+        }
+        return cities;
+    }
+
+    /**
+     * Reads big-endian values from a file region through a window mapped over
+     * it, moving the window on when the next value does not fit.
+     */
+    private static final class SnapshotInput {
+        private final FileChannel channel;
+        private final long end;
+        private final long windowSize;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        SnapshotInput(FileChannel channel, long end, long windowSize) throws IOException {
+            this.channel = channel;
+            this.end = end;
+            this.windowSize = windowSize;
+            map(0);
+        }
+
+        long remaining() {
+            return end - windowStart - window.position();
+        }
+
+        int getInt() throws IOException {
+            return need(Integer.BYTES).getInt();
+        }
+
+        long getLong() throws IOException {
+            return need(Long.BYTES).getLong();
+        }
+
+        void get(byte[] dest) throws IOException {
+            for (int offset = 0; offset < dest.length; ) {
+                int count = Math.min(dest.length - offset, need(1).remaining());
+                window.get(dest, offset, count);
+                offset += count;
+            }
+        }
+
+        void get(int[] dest) throws IOException {
+            for (int offset = 0; offset < dest.length; ) {
+                int count = Math.min(dest.length - offset, need(Integer.BYTES).remaining() / Integer.BYTES);
+                window.asIntBuffer().get(dest, offset, count);
+                window.position(window.position() + count * Integer.BYTES);
+                offset += count;
+            }
+        }
+
+        void get(float[] dest) throws IOException {
+            for (int offset = 0; offset < dest.length; ) {
+                int count = Math.min(dest.length - offset, need(Float.BYTES).remaining() / Float.BYTES);
+                window.asFloatBuffer().get(dest, offset, count);
+                window.position(window.position() + count * Float.BYTES);
+                offset += count;
+            }
+        }
+
+        void get(double[] dest) throws IOException {
+            for (int offset = 0; offset < dest.length; ) {
+                int count = Math.min(dest.length - offset, need(Double.BYTES).remaining() / Double.BYTES);
+                window.asDoubleBuffer().get(dest, offset, count);
+                window.position(window.position() + count * Double.BYTES);
+                offset += count;
+            }
+        }
+
+        /**
+         * Returns the window, moved on if needed so that at least {@code bytes}
+         * bytes are left in it.
+         *
+         * @throws BufferUnderflowException if the region ends first
+         */
+        private MappedByteBuffer need(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                if (remaining() < bytes) {
+                    throw new BufferUnderflowException();
+                }
+                map(windowStart + window.position());
+            }
+            return window;
+        }
+
+        private void map(long position) throws IOException {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, end - position));
+            windowStart = position;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import model.City;
+import model.WeatherRecordStore;
+
+/**
+ * Writes cities in the binary snapshot format read by {@link SnapshotWeatherDataLoader}.
+ *
+ * The snapshot is written to a temporary file next to the target and moved into
+ * place at the end, so a crash never leaves a truncated snapshot behind. Its
+ * header records the {@link SnapshotSource} it was built from.
+ */
+public class SnapshotWeatherDataWriter implements IWeatherDataWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final SnapshotSource source;
+
+    /**
+     * Creates a writer of snapshots without a source, which are never current
+     * for any CSV file.
+     */
+    public SnapshotWeatherDataWriter() {
+        this(SnapshotSource.UNKNOWN);
+    }
+
+    /**
+     * @param source the CSV file the cities were loaded from, or null if unknown
+     */
+    public SnapshotWeatherDataWriter(SnapshotSource source) {
+        this.source = source == null ? SnapshotSource.UNKNOWN : source;
+    }
+
+    @Override
+    public void write(List<City> cities, String filePath) throws Exception {
+        Path target = Path.of(filePath).toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+                DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(file, BUFFER_SIZE), crc));
+                out.writeInt(SnapshotFormat.MAGIC);
+                out.writeInt(SnapshotFormat.VERSION);
+                out.writeLong(source.getSize());
+                out.writeLong(source.getLastModifiedMillis());
+                out.writeInt(cities.size());
+
+                for (City city : cities) {
+                    byte[] name = city.getName().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(name.length);
+                    out.write(name);
+                }
+                for (City city : cities) {
+                    writeBlock(out, city.getRecordStore());
+                }
+                out.flush();
+
+                // The checksum itself is not part of the checksummed bytes
+                DataOutputStream trailer = new DataOutputStream(file);
+                trailer.writeLong(crc.getValue());
+                trailer.flush();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeBlock(DataOutputStream out, WeatherRecordStore store) throws IOException {
+        int size = store.size();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(store.getEpochDay(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(store.getTemperature(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeFloat((float) store.getHumidity(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(store.getWindSpeed(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeByte(store.getWeatherConditionOrdinal(i));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package io;
+
+import enums.CounterMetric;
+import exception.MalformedRowException;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import metrics.Metrics;
+
+/**
+ * Reads weather rows continuously from live sources and hands them to a sink in
+ * batches.
+ *
+ * Sources (an append-only CSV file that is tailed, any InputStream such as a
+ * named pipe or stdin, or connections to a loopback socket) each run on their
+ * own reader thread and push parsed rows into one bounded queue. When the
+ * queue is full the readers block, so a fast feed is throttled instead of
+ * growing the heap. A single drain thread takes whatever has accumulated, up
+ * to {@code maxBatchSize} rows, and passes it to the sink. A batch the sink
+ * fails on is reported and dropped, and draining goes on.
+ *
+ * Malformed lines are counted as {@link CounterMetric#ROWS_REJECTED} and
+ * skipped; they do not stop the stream.
+ */
+public class StreamingWeatherIngestor implements Closeable {
+    private static final String HEADER = "City,Date,Temperature,Humidity,WindSpeed,Condition";
+    private static final long TAIL_POLL_MILLIS = 200;
+    private static final int TAIL_READ_SIZE = 64 * 1024;
+
+    private final BlockingQueue<WeatherObservation> queue;
+    private final Consumer<List<WeatherObservation>> sink;
+    private final int maxBatchSize;
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final List<Closeable> resources = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * @param sink          receives each batch of rows, on the drain thread
+     * @param queueCapacity the maximum number of rows waiting to be drained
+     * @param maxBatchSize  the maximum number of rows handed to the sink at once
+     */
+    public StreamingWeatherIngestor(Consumer<List<WeatherObservation>> sink, int queueCapacity, int maxBatchSize) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.sink = sink;
+        this.maxBatchSize = maxBatchSize;
+        start("weather-ingest-drain", this::drain);
+    }
+
+    /**
+     * Follows an append-only CSV file like {@code tail -f}: only lines appended
+     * after this call are read. A truncated file is read again from the start.
+     *
+     * @param path the file to follow
+     */
+    public void followFile(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        resources.add(channel);
+        long startPosition = channel.size();
+        start("weather-ingest-tail", () -> tail(channel, startPosition));
+    }
+
+    /**
+     * Reads CSV lines from a stream until it ends, e.g. a named pipe or stdin.
+     *
+     * @param in the stream to read; closed when the ingestor is closed
+     */
+    public void readStream(InputStream in) {
+        resources.add(in);
+        start("weather-ingest-stream", () -> readLines(in));
+    }
+
+    /**
+     * Accepts connections on a loopback port and reads CSV lines from each of them.
+     *
+     * @param port the local port to listen on
+     */
+    public void listen(int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        resources.add(server);
+        start("weather-ingest-listen", () -> {
+            while (running) {
+                try {
+                    Socket socket = server.accept();
+                    resources.add(socket);
+                    InputStream in = socket.getInputStream();
+                    start("weather-ingest-socket", () -> readLines(in));
+                } catch (IOException e) {
+                    if (running) {
+                        Metrics.reportError(e);
+                    }
+                    return;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (Closeable resource : resources) {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                Metrics.reportError(e);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    private void start(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    private void drain() {
+        List<WeatherObservation> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - 1);
+                try {
+                    sink.accept(List.copyOf(batch));
+                } catch (RuntimeException e) {
+                    // This is the only drain thread: losing it would block every reader
+                    Metrics.reportError(e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readLines(InputStream in) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                offer(line);
+            }
+        } catch (IOException e) {
+            if (running) {
+                Metrics.reportError(e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void tail(FileChannel channel, long startPosition) {
+        ByteBuffer buffer = ByteBuffer.allocate(TAIL_READ_SIZE);
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        long position = startPosition;
+        try {
+            while (running) {
+                long size = channel.size();
+                if (size < position) {
+                    // Truncated or rotated in place: start over
+                    position = 0;
+                    pending.reset();
+                }
+                if (size == position) {
+                    Thread.sleep(TAIL_POLL_MILLIS);
+                    continue;
+                }
+
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    continue;
+                }
+                position += read;
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '\n') {
+                        String line = pending.toString(StandardCharsets.UTF_8);
+                        offer(line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+                        pending.reset();
+                    } else {
+                        pending.write(b);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                Metrics.reportError(e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void offer(String line) throws InterruptedException {
+        if (line.isEmpty() || line.equalsIgnoreCase(HEADER)) {
+            return;
+        }
+        try {
+            queue.put(CSVWeatherDataLoader.parseLine(line));
+        } catch (MalformedRowException e) {
+            Metrics.increment(CounterMetric.ROWS_REJECTED);
+        }
+    }
+}
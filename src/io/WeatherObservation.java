@@ -0,0 +1,24 @@
+package io;
+
+import model.WeatherRecord;
+
+/**
+ * A single parsed CSV row: the city it belongs to and its weather record.
+ */
+public class WeatherObservation {
+    private final String cityName;
+    private final WeatherRecord record;
+
+    public WeatherObservation(String cityName, WeatherRecord record) {
+        this.cityName = cityName;
+        this.record = record;
+    }
+
+    public String getCityName() {
+        return cityName;
+    }
+
+    public WeatherRecord getRecord() {
+        return record;
+    }
+}
@@ -0,0 +1,13 @@
+package listener;
+
+import model.City;
+
+@FunctionalInterface
+public interface CityRecordListener {
+    /**
+     * Called after one or more records have been added to a City.
+     *
+     * @param city the city whose records changed
+     */
+    void onRecordsAdded(City city);
+}
@@ -7,8 +7,8 @@ public interface CitySelectionListener {
     /**
      * Called when the user selects a city and date in the CitySelectionView.
      *
-     * @param city the name of the selected city
-     * @param date the chosen LocalDate
+     * @param cityId the ID of the selected city
+     * @param date   the chosen LocalDate
      */
-    void onCitySelected(String city, LocalDate date);
+    void onCitySelected(int cityId, LocalDate date);
 }
\ No newline at end of file
@@ -1,7 +1,5 @@
 package listener;
 
-import java.util.List;
-
 public interface MultipleCitySelectionListener {
-  void onSelectedCitiesChange(List<String> selectedCities);
+  void onSelectedCitiesChange(int[] selectedCityIds);
 }
\ No newline at end of file
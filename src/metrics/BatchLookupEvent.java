@@ -0,0 +1,32 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Looking up several cities on one date, e.g. the tracked cities. Only
+ * lookups of at least 1 ms are recorded unless the recording lowers the
+ * threshold.
+ */
+@Name("weather.BatchLookup")
+@Label("Batch Weather Lookup")
+@Category({"Weather", "Query"})
+@Description("Looking up several cities on one date")
+@Threshold("1 ms")
+public class BatchLookupEvent extends Event {
+    @Label("Date")
+    public String date;
+
+    @Label("Cities")
+    public int cities;
+
+    @Label("Cities With Data")
+    public int citiesWithData;
+
+    @Label("Snapshot Version")
+    public long snapshotVersion;
+}
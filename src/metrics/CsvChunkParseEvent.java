@@ -0,0 +1,38 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Parsing one newline-aligned range of a CSV file.
+ */
+@Name("weather.CsvChunkParse")
+@Label("CSV Chunk Parse")
+@Category({"Weather", "Load"})
+@Description("Parsing one newline-aligned range of a CSV file into cities")
+public class CsvChunkParseEvent extends Event {
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Rejected")
+    @Description("Malformed rows skipped into the quarantine")
+    public long rejected;
+
+    @Label("Cities")
+    @Description("Distinct cities seen by the parser so far")
+    public int cities;
+
+    @Label("First Date")
+    public String firstDate;
+
+    @Label("Last Date")
+    public String lastDate;
+}
@@ -0,0 +1,29 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * One event handled on the Swing Event Dispatch Thread that took long enough
+ * to make the UI stutter: 20 ms unless the recording sets another threshold.
+ */
+@Name("weather.EdtDispatch")
+@Label("Slow EDT Dispatch")
+@Category({"Weather", "View"})
+@Description("An event that kept the Swing Event Dispatch Thread busy")
+@Threshold("20 ms")
+public class EdtDispatchEvent extends Event {
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Source")
+    public String source;
+
+    @Label("Detail")
+    @Description("The event's parameter string, e.g. the runnable of an invokeLater")
+    public String detail;
+}
@@ -0,0 +1,156 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with a relative error below 1%.
+ *
+ * Like an HDR histogram, values below 256 ns get a bucket each, and every
+ * higher power of two is split into 128 equal buckets, each at most 1/128 of
+ * its lowest value wide, so the buckets widen with the value and 4,352 of them
+ * cover up to {@link #MAX_TRACKABLE} (about 18 minutes); longer values are
+ * clamped. Recording finds the bucket with a
+ * leading-zero count and increments it atomically, without allocating or
+ * locking, so it can be called on hot paths from any number of threads.
+ * The count, mean and percentiles are all read by walking the buckets.
+ */
+public class LatencyHistogram {
+    /** The largest value told apart from larger ones, in nanoseconds. */
+    public static final long MAX_TRACKABLE = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE);
+        counts.incrementAndGet(indexOf(value));
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Lost a race with a larger or concurrent update; re-read
+        }
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the mean latency in nanoseconds, taking each value as the middle
+     * of its bucket, or NaN if nothing was recorded.
+     */
+    public double getMean() {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long n = counts.get(i);
+            if (n != 0) {
+                total += n;
+                sum += n * (lowestValueOf(i) + highestValueOf(i)) / 2.0;
+            }
+        }
+        return total == 0 ? Double.NaN : sum / total;
+    }
+
+    /**
+     * Returns the largest latency recorded, in nanoseconds, or 0.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the latency that a given percentage of the recorded latencies do
+     * not exceed, as the upper end of its bucket, or 0 if nothing was recorded.
+     *
+     * @param percentile between 0 and 100, e.g. 99.9
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Returns the count, mean, common percentiles and maximum in one object.
+     */
+    public LatencySummary summary() {
+        return new LatencySummary(getCount(), getMean(), getValueAtPercentile(50), getValueAtPercentile(90),
+            getValueAtPercentile(99), getValueAtPercentile(99.9), getMax());
+    }
+
+    /**
+     * Forgets everything recorded. Recordings racing with a reset may be
+     * partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    private static long lowestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        return (index - (long) shift * SUB_BUCKET_HALF) << shift;
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long subBucket = index - (long) shift * SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
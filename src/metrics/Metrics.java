@@ -0,0 +1,192 @@
+package metrics;
+
+import enums.CounterMetric;
+import enums.LatencyMetric;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The process-wide latency histograms and counters.
+ *
+ * There is one {@link LatencyHistogram} per {@link LatencyMetric} and one
+ * {@link LongAdder} per {@link CounterMetric}, created up front, so recording
+ * is an array read and an atomic add. They can be read through JMX once
+ * {@link #registerMBean()} has run, e.g. in JConsole under
+ * {@value #OBJECT_NAME}, or dumped as text with {@link #startReporting}.
+ */
+public final class Metrics {
+    public static final String OBJECT_NAME = "weather:type=Metrics";
+
+    /** One in this many calls is timed by {@link #startSampled()}. */
+    public static final int SAMPLE_RATE = 16;
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private static final LatencyMetric[] LATENCY_METRICS = LatencyMetric.values();
+    private static final CounterMetric[] COUNTER_METRICS = CounterMetric.values();
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[LATENCY_METRICS.length];
+    private static final LongAdder[] COUNTERS = new LongAdder[COUNTER_METRICS.length];
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static LatencyHistogram histogram(LatencyMetric metric) {
+        return HISTOGRAMS[metric.ordinal()];
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading taken
+     * when the operation started.
+     */
+    public static void recordSince(LatencyMetric metric, long startNanos) {
+        HISTOGRAMS[metric.ordinal()].recordSince(startNanos);
+    }
+
+    /**
+     * Starts timing one in {@link #SAMPLE_RATE} calls, for operations so short
+     * that reading the clock twice would noticeably slow them down. Pass the
+     * result to {@link #recordSampled}.
+     */
+    public static long startSampled() {
+        return (ThreadLocalRandom.current().nextInt() & (SAMPLE_RATE - 1)) == 0 ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    /**
+     * Records the time elapsed since {@link #startSampled()}, if that call was sampled.
+     */
+    public static void recordSampled(LatencyMetric metric, long sampledStart) {
+        if (sampledStart != NOT_SAMPLED) {
+            HISTOGRAMS[metric.ordinal()].recordSince(sampledStart);
+        }
+    }
+
+    public static void increment(CounterMetric metric) {
+        COUNTERS[metric.ordinal()].increment();
+    }
+
+    public static void add(CounterMetric metric, long amount) {
+        COUNTERS[metric.ordinal()].add(amount);
+    }
+
+    public static long count(CounterMetric metric) {
+        return COUNTERS[metric.ordinal()].sum();
+    }
+
+    /**
+     * Counts an error that is reported rather than thrown, and prints its
+     * stack trace.
+     */
+    public static void reportError(Throwable error) {
+        increment(CounterMetric.ERRORS);
+        error.printStackTrace();
+    }
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        for (LongAdder counter : COUNTERS) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Returns all counters and histograms as text, one line each, with
+     * latencies in microseconds.
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder("Weather metrics\n");
+        for (CounterMetric metric : COUNTER_METRICS) {
+            report.append(String.format("  %-20s %,d%n", metric, count(metric)));
+        }
+        for (LatencyMetric metric : LATENCY_METRICS) {
+            LatencySummary summary = histogram(metric).summary();
+            report.append(String.format(
+                "  %-20s n=%,d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                metric, summary.getCount(), summary.getCount() == 0 ? 0 : summary.getMean() / 1e3,
+                summary.getP50() / 1e3, summary.getP90() / 1e3, summary.getP99() / 1e3,
+                summary.getP999() / 1e3, summary.getMax() / 1e3));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Registers the {@link MetricsMXBean} with the platform MBean server.
+     * Registering again does nothing.
+     */
+    public static void registerMBean() throws JMException {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Already registered
+        }
+    }
+
+    /**
+     * Prints {@link #report()} at a fixed rate on a daemon thread.
+     *
+     * @param out           where to print
+     * @param periodSeconds the time between two reports
+     * @return the scheduler; shut it down to stop reporting
+     */
+    public static ScheduledExecutorService startReporting(PrintStream out, long periodSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "weather-metrics-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> out.print(report()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return scheduler;
+    }
+
+    private static final class MBean implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            for (CounterMetric metric : COUNTER_METRICS) {
+                counters.put(metric.name(), count(metric));
+            }
+            return counters;
+        }
+
+        @Override
+        public Map<String, LatencySummary> getLatencies() {
+            Map<String, LatencySummary> latencies = new LinkedHashMap<>();
+            for (LatencyMetric metric : LATENCY_METRICS) {
+                latencies.put(metric.name(), histogram(metric).summary());
+            }
+            return latencies;
+        }
+
+        @Override
+        public String getReport() {
+            return report();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
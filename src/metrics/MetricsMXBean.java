@@ -0,0 +1,28 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link Metrics}, registered as {@value Metrics#OBJECT_NAME}.
+ */
+public interface MetricsMXBean {
+    /**
+     * Returns every counter by name, e.g. {@code ROWS_LOADED}.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Returns a summary of every latency histogram by name, e.g. {@code WEATHER_LOOKUP}.
+     */
+    Map<String, LatencySummary> getLatencies();
+
+    /**
+     * Returns the same text as the periodic dump.
+     */
+    String getReport();
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    void reset();
+}
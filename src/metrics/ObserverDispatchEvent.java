@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Delivering one change, or a full refresh, to one observer.
+ */
+@Name("weather.ObserverDispatch")
+@Label("Observer Dispatch")
+@Category({"Weather", "View"})
+@Description("Delivering one change, or a full refresh, to one observer")
+public class ObserverDispatchEvent extends Event {
+    @Label("Observer")
+    public String observer;
+
+    @Label("Change")
+    @Description("The kind of change, or REFRESH for a full refresh")
+    public String change;
+
+    @Label("Cities")
+    @Description("Cities that received records, for appended records")
+    public int cities;
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+}
@@ -0,0 +1,36 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Loading all cities from a binary snapshot.
+ */
+@Name("weather.SnapshotLoad")
+@Label("Snapshot Load")
+@Category({"Weather", "Load"})
+@Description("Mapping, verifying and copying a binary snapshot into cities")
+public class SnapshotLoadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Cities")
+    public int cities;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("First Date")
+    public String firstDate;
+
+    @Label("Last Date")
+    public String lastDate;
+}
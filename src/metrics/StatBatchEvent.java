@@ -0,0 +1,27 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Running a batch of statistic queries, e.g. one StatCalculator run.
+ */
+@Name("weather.StatBatch")
+@Label("Statistics Batch")
+@Category({"Weather", "Stats"})
+@Description("Running a batch of statistic queries over a list of cities")
+public class StatBatchEvent extends Event {
+    @Label("Queries")
+    public int queries;
+
+    @Label("Cities")
+    @Description("Valid cities the queries ran over")
+    public int cities;
+
+    @Label("Date Ranges")
+    @Description("Distinct date ranges read from the calendar rollups")
+    public int dateRanges;
+}
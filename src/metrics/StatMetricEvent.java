@@ -0,0 +1,38 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Ranking the cities of one statistic query within a {@link StatBatchEvent}.
+ */
+@Name("weather.StatMetric")
+@Label("Statistic Metric")
+@Category({"Weather", "Stats"})
+@Description("Ranking the cities of one statistic query")
+public class StatMetricEvent extends Event {
+    @Label("Query")
+    public String query;
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+
+    @Label("Cities")
+    public int cities;
+
+    @Label("Ranked")
+    @Description("Cities in the result, ties included")
+    public int ranked;
+
+    @Label("Leader")
+    public String leader;
+
+    @Label("Leader Value")
+    public double leaderValue;
+}
@@ -0,0 +1,31 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Looking up one city's record on a date. Only lookups of at least 1 ms are
+ * recorded unless the recording lowers the threshold.
+ */
+@Name("weather.WeatherLookup")
+@Label("Weather Lookup")
+@Category({"Weather", "Query"})
+@Description("Looking up one city's record on a date")
+@Threshold("1 ms")
+public class WeatherLookupEvent extends Event {
+    @Label("City ID")
+    public int cityId;
+
+    @Label("City")
+    public String city;
+
+    @Label("Date")
+    public String date;
+
+    @Label("Found")
+    public boolean found;
+}
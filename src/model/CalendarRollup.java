@@ -0,0 +1,462 @@
+package model;
+
+import enums.CalendarLevel;
+import enums.WeatherMeasure;
+import java.time.LocalDate;
+import java.util.Arrays;
+import util.EpochDays;
+
+/**
+ * Count, sum, min and max of every {@link WeatherMeasure} per day, week, month
+ * and year of one city's records.
+ *
+ * Each level keeps dense cells indexed by period (epoch day, Monday-based week,
+ * year * 12 + month, year) between its earliest and latest period, so a record
+ * is added in O(1) per level and a cell is read in O(1). A date range is
+ * answered by covering it with the coarsest aligned cells: at most a few days
+ * and weeks at each end, up to eleven months on each side, and whole years in
+ * between. Unlike {@link WeatherAggregates}, months of different years stay
+ * apart.
+ *
+ * Day and week cells take far more memory than the records they summarize, so
+ * they are not kept for history compressed in the {@link WeatherRecordStore}:
+ * the rollup remembers the store and asks it for those stretches instead,
+ * which costs one lookup in the stats of its compressed blocks.
+ *
+ * Copies are cheap: the cells are kept in fixed-size chunks that a copy shares
+ * with its original, and each side copies a chunk only before writing to it.
+ */
+public class CalendarRollup {
+    private static final WeatherMeasure[] MEASURES = WeatherMeasure.values();
+    private static final int DAY = CalendarLevel.DAY.ordinal();
+    private static final int WEEK = CalendarLevel.WEEK.ordinal();
+    private static final int MONTH = CalendarLevel.MONTH.ordinal();
+    private static final int YEAR = CalendarLevel.YEAR.ordinal();
+
+    private final Cells[] levels = new Cells[CalendarLevel.values().length];
+    // Day and week cells exist from this date on; earlier ones come from the store
+    private int detailFrom = Integer.MIN_VALUE;
+    private WeatherRecordStore store;
+
+    public CalendarRollup() {
+        // Chunks of 64 days, 16 weeks, 16 months and 4 years
+        levels[DAY] = new Cells(6);
+        levels[WEEK] = new Cells(4);
+        levels[MONTH] = new Cells(4);
+        levels[YEAR] = new Cells(2);
+    }
+
+    // Copy Constructor
+    public CalendarRollup(CalendarRollup rollup) {
+        this(rollup, rollup.store);
+    }
+
+    /**
+     * Copies a rollup for a copy of the store it was built from, sharing the
+     * cells with it until either side adds to them.
+     */
+    CalendarRollup(CalendarRollup rollup, WeatherRecordStore store) {
+        for (int level = 0; level < levels.length; level++) {
+            levels[level] = new Cells(rollup.levels[level]);
+        }
+        this.detailFrom = rollup.detailFrom;
+        this.store = store;
+    }
+
+    /**
+     * Rolls up all records of a store, without day and week cells for its
+     * compressed history.
+     */
+    public static CalendarRollup of(WeatherRecordStore store) {
+        CalendarRollup rollup = new CalendarRollup();
+        rollup.store = store;
+        rollup.detailFrom = detailFromOf(store);
+        RecordCursor cursor = store.cursor();
+        while (cursor.next()) {
+            rollup.add(cursor.getEpochDay(), cursor.getTemperature(), cursor.getHumidity(), cursor.getWindSpeed());
+        }
+        return rollup;
+    }
+
+    /**
+     * Drops the day and week cells of the history the store has compressed
+     * since, see {@link WeatherRecordStore#compressHistory(int)}. The store
+     * answers for those dates from then on.
+     *
+     * @param store the store holding the records rolled up here
+     */
+    public void releaseCompressedDetail(WeatherRecordStore store) {
+        this.store = store;
+        raiseDetailFrom(detailFromOf(store));
+    }
+
+    /**
+     * Adds one record to its day, week, month and year.
+     *
+     * @param epochDay the date of the record as days since 1970-01-01
+     */
+    public void add(int epochDay, double temperature, double humidity, double windSpeed) {
+        int year = EpochDays.yearOf(epochDay);
+        int month = EpochDays.monthOf(epochDay);
+        if (epochDay >= detailFrom) {
+            levels[DAY].add(epochDay, temperature, humidity, windSpeed);
+        }
+        int week = EpochDays.weekOf(epochDay);
+        if (EpochDays.firstDayOfWeek(week) >= detailFrom) {
+            levels[WEEK].add(week, temperature, humidity, windSpeed);
+        }
+        levels[MONTH].add(monthPeriod(year, month), temperature, humidity, windSpeed);
+        levels[YEAR].add(year, temperature, humidity, windSpeed);
+    }
+
+    /**
+     * Merges another rollup into this one, as if its records had been added
+     * here. The store of this rollup must hold the records of both.
+     */
+    public void addAll(CalendarRollup other) {
+        for (int level = 0; level < levels.length; level++) {
+            levels[level].addAll(other.levels[level]);
+        }
+        raiseDetailFrom(other.detailFrom);
+        dropDetailBefore(detailFrom);
+    }
+
+    /**
+     * Returns the stats of the day, week, month or year that contains a date.
+     */
+    public MeasureStats getCell(CalendarLevel level, LocalDate date, WeatherMeasure measure) {
+        int epochDay = (int) date.toEpochDay();
+        if (level == CalendarLevel.DAY && epochDay < detailFrom) {
+            return store.getMeasureStats(measure, epochDay, epochDay);
+        }
+        if (level == CalendarLevel.WEEK) {
+            int firstDay = EpochDays.firstDayOfWeek(EpochDays.weekOf(epochDay));
+            if (firstDay < detailFrom) {
+                return store.getMeasureStats(measure, firstDay, firstDay + 6);
+            }
+        }
+        int period = switch (level) {
+            case DAY -> epochDay;
+            case WEEK -> EpochDays.weekOf(epochDay);
+            case MONTH -> monthPeriod(EpochDays.yearOf(epochDay), EpochDays.monthOf(epochDay));
+            case YEAR -> EpochDays.yearOf(epochDay);
+        };
+        Accumulator accumulator = new Accumulator(measure);
+        accumulator.add(levels[level.ordinal()], period);
+        return accumulator.toStats();
+    }
+
+    /**
+     * Returns the stats of a measure between two dates, both inclusive.
+     */
+    public MeasureStats aggregate(WeatherMeasure measure, LocalDate from, LocalDate to) {
+        Accumulator accumulator = new Accumulator(measure);
+        int day = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        while (day <= last) {
+            int year = EpochDays.yearOf(day);
+            int month = EpochDays.monthOf(day);
+            int dayOfMonth = EpochDays.dayOfMonthOf(day);
+            int nextMonth = day - dayOfMonth + 1 + EpochDays.lengthOfMonth(year, month);
+
+            if (month == 1 && dayOfMonth == 1) {
+                int nextYear = EpochDays.of(year + 1, 1, 1);
+                if (nextYear - 1 <= last) {
+                    accumulator.add(levels[YEAR], year);
+                    day = nextYear;
+                    continue;
+                }
+            }
+            if (dayOfMonth == 1 && nextMonth - 1 <= last) {
+                accumulator.add(levels[MONTH], monthPeriod(year, month));
+                day = nextMonth;
+                continue;
+            }
+            if (day < detailFrom) {
+                // No day or week cells here; the store sums the stretch from its blocks
+                int end = Math.min(last, Math.min(nextMonth, detailFrom) - 1);
+                accumulator.add(store.getMeasureStats(measure, day, end));
+                day = end + 1;
+                continue;
+            }
+            if (Math.floorMod(day + 3, 7) == 0 && day + 6 <= last) {
+                // Don't let a week straddle into a month that could be taken whole
+                int nextMonthEnd = month == 12
+                    ? nextMonth + 30
+                    : nextMonth + EpochDays.lengthOfMonth(year, month + 1) - 1;
+                if (day + 6 < nextMonth || last < nextMonthEnd) {
+                    accumulator.add(levels[WEEK], EpochDays.weekOf(day));
+                    day += 7;
+                    continue;
+                }
+            }
+            accumulator.add(levels[DAY], day);
+            day++;
+        }
+        return accumulator.toStats();
+    }
+
+    private static int monthPeriod(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    private static int detailFromOf(WeatherRecordStore store) {
+        int lastCompressedDay = store.getLastCompressedDay();
+        return lastCompressedDay == Integer.MIN_VALUE ? Integer.MIN_VALUE : lastCompressedDay + 1;
+    }
+
+    private void raiseDetailFrom(int day) {
+        if (day > detailFrom) {
+            detailFrom = day;
+            dropDetailBefore(day);
+        }
+    }
+
+    private void dropDetailBefore(int day) {
+        if (day == Integer.MIN_VALUE) {
+            return;
+        }
+        levels[DAY].dropBefore(day);
+        // A week straddling the boundary goes too
+        int week = EpochDays.weekOf(day);
+        levels[WEEK].dropBefore(EpochDays.firstDayOfWeek(week) >= day ? week : week + 1);
+    }
+
+    /**
+     * Folds cells of one measure into a single {@link MeasureStats}.
+     */
+    private static final class Accumulator {
+        private final int measure;
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        Accumulator(WeatherMeasure measure) {
+            this.measure = measure.ordinal();
+        }
+
+        void add(Cells cells, int period) {
+            Chunk chunk = cells.chunkOf(period);
+            int cell = cells.cellOf(period);
+            if (chunk == null || chunk.counts[cell] == 0) {
+                return;
+            }
+            int i = cell * MEASURES.length + measure;
+            count += chunk.counts[cell];
+            sum += chunk.sums[i];
+            min = Math.min(min, chunk.mins[i]);
+            max = Math.max(max, chunk.maxs[i]);
+        }
+
+        void add(MeasureStats stats) {
+            if (stats.isEmpty()) {
+                return;
+            }
+            count += stats.getCount();
+            sum += stats.getSum();
+            min = Math.min(min, stats.getMin());
+            max = Math.max(max, stats.getMax());
+        }
+
+        MeasureStats toStats() {
+            return count == 0 ? MeasureStats.EMPTY : new MeasureStats(count, sum, min, max);
+        }
+    }
+
+    /**
+     * Cells of one calendar level, in chunks of a power of two consecutive
+     * periods. Only chunks with records are allocated.
+     *
+     * A copy shares the chunks and clones only the small array of them, in
+     * O(periods / chunk size). Each chunk is tagged with the owner
+     * that may write it in place; a copy gives both sides new owners, so either
+     * copies a shared chunk before writing to it, which is mostly the one chunk
+     * at the end that records are still added to.
+     */
+    private static final class Cells {
+        private static final int INITIAL_CHUNKS = 4;
+        private static final Chunk[] NO_CHUNKS = new Chunk[0];
+
+        private final int chunkShift;
+        private final int chunkMask;
+        // chunks[i] holds the periods from (firstChunk + i) << chunkShift on
+        private int firstChunk;
+        private Chunk[] chunks = NO_CHUNKS;
+        private Object owner = new Object();
+
+        /**
+         * @param chunkShift log2 of the number of periods per chunk
+         */
+        Cells(int chunkShift) {
+            this.chunkShift = chunkShift;
+            this.chunkMask = (1 << chunkShift) - 1;
+        }
+
+        Cells(Cells cells) {
+            chunkShift = cells.chunkShift;
+            chunkMask = cells.chunkMask;
+            firstChunk = cells.firstChunk;
+            chunks = cells.chunks.clone();
+            // From now on neither side writes the shared chunks in place
+            cells.owner = new Object();
+        }
+
+        /**
+         * Returns the chunk holding a period, or null if it has no records.
+         */
+        Chunk chunkOf(int period) {
+            long chunk = (long) (period >> chunkShift) - firstChunk;
+            return chunk >= 0 && chunk < chunks.length ? chunks[(int) chunk] : null;
+        }
+
+        int cellOf(int period) {
+            return period & chunkMask;
+        }
+
+        void add(int period, double temperature, double humidity, double windSpeed) {
+            Chunk chunk = writableChunk(period >> chunkShift);
+            int cell = cellOf(period);
+            chunk.counts[cell]++;
+            int i = cell * MEASURES.length;
+            chunk.update(i + WeatherMeasure.TEMPERATURE.ordinal(), temperature);
+            chunk.update(i + WeatherMeasure.HUMIDITY.ordinal(), humidity);
+            chunk.update(i + WeatherMeasure.WIND.ordinal(), windSpeed);
+        }
+
+        void addAll(Cells other) {
+            for (int otherChunk = 0; otherChunk < other.chunks.length; otherChunk++) {
+                Chunk source = other.chunks[otherChunk];
+                if (source == null) {
+                    continue;
+                }
+                Chunk chunk = writableChunk(other.firstChunk + otherChunk);
+                for (int cell = 0; cell <= chunkMask; cell++) {
+                    if (source.counts[cell] == 0) {
+                        continue;
+                    }
+                    chunk.counts[cell] += source.counts[cell];
+                    for (int m = 0; m < MEASURES.length; m++) {
+                        int i = cell * MEASURES.length + m;
+                        chunk.sums[i] += source.sums[i];
+                        chunk.mins[i] = Math.min(chunk.mins[i], source.mins[i]);
+                        chunk.maxs[i] = Math.max(chunk.maxs[i], source.maxs[i]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Forgets all periods before a given one, and the spare chunks after
+         * the last one with records.
+         */
+        void dropBefore(int period) {
+            if (chunks.length == 0) {
+                return;
+            }
+            int firstKept = period >> chunkShift;
+            int from = (int) Math.max(0, Math.min((long) firstKept - firstChunk, chunks.length));
+            int to = chunks.length;
+            while (to > from && chunks[to - 1] == null) {
+                to--;
+            }
+            if (from > 0 || to < chunks.length) {
+                chunks = Arrays.copyOfRange(chunks, from, to);
+                firstChunk += from;
+            }
+            // The chunk holding the period keeps only the periods from it on
+            Chunk chunk = chunkOf(period);
+            if (chunk != null && chunk.hasRecordsBefore(cellOf(period))) {
+                writableChunk(firstKept).clearBefore(cellOf(period));
+            }
+        }
+
+        /**
+         * Returns a chunk this level may write in place, allocating or copying it.
+         */
+        private Chunk writableChunk(int chunkIndex) {
+            int i = ensureChunk(chunkIndex);
+            Chunk chunk = chunks[i];
+            if (chunk == null) {
+                chunk = new Chunk(chunkMask + 1, owner);
+                chunks[i] = chunk;
+            } else if (chunk.owner != owner) {
+                chunk = new Chunk(chunk, owner);
+                chunks[i] = chunk;
+            }
+            return chunk;
+        }
+
+        /**
+         * Grows the array of chunks to cover a chunk index and returns its position.
+         */
+        private int ensureChunk(int chunkIndex) {
+            if (chunks.length == 0) {
+                firstChunk = chunkIndex;
+                chunks = new Chunk[INITIAL_CHUNKS];
+            } else if (chunkIndex < firstChunk) {
+                // Leave as much room below as there is data, for more back-filled periods
+                int newFirst = (int) Math.min(chunkIndex, (long) firstChunk - chunks.length);
+                Chunk[] newChunks = new Chunk[firstChunk + chunks.length - newFirst];
+                System.arraycopy(chunks, 0, newChunks, firstChunk - newFirst, chunks.length);
+                chunks = newChunks;
+                firstChunk = newFirst;
+            } else if ((long) chunkIndex - firstChunk >= chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(2 * chunks.length, chunkIndex - firstChunk + 1));
+            }
+            return chunkIndex - firstChunk;
+        }
+    }
+
+    /**
+     * Consecutive cells of one level, written in place only by the
+     * {@link Cells} whose owner it carries.
+     */
+    private static final class Chunk {
+        private final Object owner;
+        private final long[] counts;
+        private final double[] sums;
+        private final double[] mins;
+        private final double[] maxs;
+
+        Chunk(int size, Object owner) {
+            this.owner = owner;
+            counts = new long[size];
+            sums = new double[size * MEASURES.length];
+            mins = new double[size * MEASURES.length];
+            maxs = new double[size * MEASURES.length];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        }
+
+        Chunk(Chunk chunk, Object owner) {
+            this.owner = owner;
+            counts = chunk.counts.clone();
+            sums = chunk.sums.clone();
+            mins = chunk.mins.clone();
+            maxs = chunk.maxs.clone();
+        }
+
+        boolean hasRecordsBefore(int cell) {
+            for (int i = 0; i < cell; i++) {
+                if (counts[i] != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void clearBefore(int cell) {
+            Arrays.fill(counts, 0, cell, 0);
+            Arrays.fill(sums, 0, cell * MEASURES.length, 0);
+            Arrays.fill(mins, 0, cell * MEASURES.length, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, 0, cell * MEASURES.length, Double.NEGATIVE_INFINITY);
+        }
+
+        private void update(int i, double value) {
+            sums[i] += value;
+            mins[i] = Math.min(mins[i], value);
+            maxs[i] = Math.max(maxs[i], value);
+        }
+    }
+}
@@ -1,97 +1,310 @@
 package model;
+import enums.CalendarLevel;
+import enums.WeatherCondition;
+import enums.WeatherMeasure;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.YearMonth;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.stream.Stream;
+import listener.CityRecordListener;
+import util.EpochDays;
 
 public class City {
     private String name;
-    private ArrayList<WeatherRecord> weatherRecords;
+    private WeatherRecordStore weatherRecords;
+    private WeatherAggregates aggregates;
+    private volatile CalendarRollup rollup;
+    private final List<CityRecordListener> recordListeners = new ArrayList<>();
     private boolean isValidCity = false;
+    private final boolean readOnly;
+    // The last snapshot taken, until the next change
+    private City snapshot;
 
     // Default Constructor
-    public City() 
+    public City()
     {
         this.name = "";
-        this.weatherRecords = new ArrayList<>();
+        this.weatherRecords = new WeatherRecordStore();
+        this.aggregates = new WeatherAggregates();
+        this.rollup = CalendarRollup.of(weatherRecords);
+        this.readOnly = false;
     }
     // Full Constructor
-    public City(String name) 
+    public City(String name)
     {
         this.name = name;
-        this.weatherRecords = new ArrayList<>();
+        this.weatherRecords = new WeatherRecordStore();
+        this.aggregates = new WeatherAggregates();
+        this.rollup = CalendarRollup.of(weatherRecords);
         this.isValidCity = true;
+        this.readOnly = false;
+    }
+    /**
+     * Creates a city around an existing record store, e.g. one read from a snapshot.
+     */
+    public City(String name, WeatherRecordStore weatherRecords)
+    {
+        this.name = name;
+        this.weatherRecords = weatherRecords;
+        this.aggregates = WeatherAggregates.of(weatherRecords);
+        this.rollup = CalendarRollup.of(weatherRecords);
+        this.isValidCity = true;
+        this.readOnly = false;
     }
     // Copy Constructor
-    public City(City city) 
+    public City(City city)
     {
         this.name = city.getName();
-        this.weatherRecords = new ArrayList<>(city.getWeatherRecords());
+        this.weatherRecords = new WeatherRecordStore(city.weatherRecords);
+        this.aggregates = new WeatherAggregates(city.aggregates);
+        this.rollup = new CalendarRollup(city.getRollup(), weatherRecords);
+        this.isValidCity = city.isValidCity;
+        this.readOnly = false;
+    }
+    // Snapshot Constructor
+    private City(City city, WeatherRecordStore snapshotRecords)
+    {
+        this.name = city.name;
+        this.weatherRecords = snapshotRecords;
+        this.aggregates = new WeatherAggregates(city.aggregates);
+        this.rollup = new CalendarRollup(city.getRollup(), snapshotRecords);
         this.isValidCity = city.isValidCity;
+        this.readOnly = true;
     }
 
-    public String getName() 
+    /**
+     * Returns a read-only copy of this city as it is now. The records and their
+     * indexes are shared with this city in O(1), see
+     * {@link WeatherRecordStore#snapshot()}, and the rollup shares its cells
+     * until this city writes them again; only the small aggregates are copied.
+     * So no snapshot rescans or copies the history. Until this city changes
+     * again, the same snapshot is returned.
+     */
+    public City snapshot()
+    {
+        if (readOnly) {
+            return this;
+        }
+        if (snapshot == null) {
+            snapshot = new City(this, weatherRecords.snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns true if this city is a {@link #snapshot()} and rejects changes.
+     */
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    public String getName()
     {
         return name;
     }
 
-    public ArrayList<WeatherRecord> getWeatherRecords() 
+    /**
+     * Returns a read-only list of the records as they are now; records added
+     * later do not show up in it. Each {@code get} materializes a new
+     * WeatherRecord from the columnar store.
+     */
+    public List<WeatherRecord> getWeatherRecords()
+    {
+        WeatherRecordStore store = weatherRecords.snapshot();
+        return new AbstractList<>() {
+            @Override
+            public WeatherRecord get(int index) {
+                Objects.checkIndex(index, store.size());
+                return store.getRecord(index);
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+    }
+
+    /**
+     * Returns the columnar store backing this city.
+     */
+    public WeatherRecordStore getRecordStore()
     {
         return weatherRecords;
     }
 
-    public boolean isValidCity() 
+    /**
+     * Returns the running aggregates of this city's records. They are updated in
+     * O(1) on every insert, so reading them never rescans the history.
+     */
+    public WeatherAggregates getAggregates()
+    {
+        return aggregates;
+    }
+
+    /**
+     * Returns the day/week/month/year rollup of this city's records, maintained
+     * on every insert like the aggregates.
+     */
+    public CalendarRollup getRollup()
+    {
+        CalendarRollup rollup = this.rollup;
+        if (rollup == null) {
+            rollup = CalendarRollup.of(weatherRecords);
+            this.rollup = rollup;
+        }
+        return rollup;
+    }
+
+    public boolean isValidCity()
     {
         return isValidCity;
     }
 
-    public void setName(String name) 
+    public void setName(String name)
     {
+        checkWritable();
         this.name = name;
+        this.snapshot = null;
     }
 
-    public void setWeatherRecords(ArrayList<WeatherRecord> weatherRecords) 
+    public void setWeatherRecords(List<WeatherRecord> weatherRecords)
     {
-        this.weatherRecords = weatherRecords;
+        checkWritable();
+        WeatherRecordStore store = new WeatherRecordStore(Math.max(1, weatherRecords.size()));
+        for (WeatherRecord record : weatherRecords) {
+            checkRecord(record);
+            store.add((int) record.getDate().toEpochDay(), record.getTemperature(),
+                record.getHumidity(), record.getWindSpeed(), record.getWeatherCondition());
+        }
+        this.weatherRecords = store;
+        this.aggregates = WeatherAggregates.of(store);
+        this.rollup = CalendarRollup.of(store);
+        fireRecordsAdded();
     }
 
-    public void addWeatherRecord(WeatherRecord record) 
+    public void addRecordListener(CityRecordListener listener)
     {
-        if (!record.isValidWeatherRecord()) {
-            throw new IllegalArgumentException(
-                "WeatherRecord must not be null when adding to city: " + name);
-        }
-        weatherRecords.add(record);
+        checkWritable();
+        recordListeners.add(listener);
+    }
 
+    public void removeRecordListener(CityRecordListener listener)
+    {
+        recordListeners.remove(listener);
     }
 
-    public WeatherRecord getRecordByDate(LocalDate date) {
-        return validRecords()
-                .filter(r -> r.getDate() != null && r.getDate().equals(date))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                    "No valid weather record found for " + date + " in city: " + name));
-    }    
+    public void addWeatherRecord(WeatherRecord record)
+    {
+        checkWritable();
+        checkRecord(record);
+        addWeatherRecord((int) record.getDate().toEpochDay(), record.getTemperature(),
+            record.getHumidity(), record.getWindSpeed(), record.getWeatherCondition());
+    }
 
     /**
-     * Helper: all valid records as a Stream.
+     * Appends a record from its primitive fields, without creating a WeatherRecord.
+     *
+     * @param epochDay the date as days since 1970-01-01
      */
-    private Stream<WeatherRecord> validRecords() {
-        return weatherRecords.stream()
-                             .filter(WeatherRecord::isValidWeatherRecord);
+    public void addWeatherRecord(int epochDay, double temperature, double humidity, double windSpeed,
+                                 WeatherCondition condition)
+    {
+        checkWritable();
+        Objects.requireNonNull(condition, "WeatherCondition must not be null");
+        weatherRecords.add(epochDay, temperature, humidity, windSpeed, condition);
+        int slot = weatherRecords.size() - 1;
+        aggregates.add(EpochDays.monthOf(epochDay), weatherRecords.getTemperature(slot),
+            weatherRecords.getHumidity(slot), weatherRecords.getWindSpeed(slot));
+        rollup.add(epochDay, weatherRecords.getTemperature(slot),
+            weatherRecords.getHumidity(slot), weatherRecords.getWindSpeed(slot));
+        fireRecordsAdded();
     }
 
     /**
-     * Helper: all valid records in a given month.
+     * Appends all records of another city, e.g. a partial city built by a loader thread.
+     *
+     * @param other the city whose records are appended, in their current order
      */
-    private Stream<WeatherRecord> validRecordsInMonth(Month month) {
-        Objects.requireNonNull(month, "Month must not be null");
-        return validRecords()
-               .filter(r -> {
-                   LocalDate d = r.getDate();
-                   return d != null && d.getMonth() == month;
-               });
+    public void addWeatherRecords(City other)
+    {
+        checkWritable();
+        weatherRecords.addAll(other.weatherRecords);
+        aggregates.addAll(other.aggregates);
+        rollup.addAll(other.getRollup());
+        fireRecordsAdded();
+    }
+
+    /**
+     * Sorts the records by date. The sort is stable, so records sharing a date
+     * keep their insertion order.
+     */
+    public void sortRecordsByDate()
+    {
+        checkWritable();
+        weatherRecords.sortByDate();
+        snapshot = null;
+    }
+
+    /**
+     * Compresses all but the newest records, see
+     * {@link WeatherRecordStore#compressHistory(int)}, and drops the day and
+     * week cells of the rollup for the compressed dates.
+     *
+     * @param hotRecords the number of newest records to leave uncompressed
+     * @return the number of records compressed
+     */
+    public int compressHistory(int hotRecords)
+    {
+        checkWritable();
+        int compressed = weatherRecords.compressHistory(hotRecords);
+        if (compressed > 0) {
+            getRollup().releaseCompressedDetail(weatherRecords);
+            snapshot = null;
+        }
+        return compressed;
+    }
+
+    private void checkWritable()
+    {
+        if (readOnly) {
+            throw new UnsupportedOperationException("A snapshot of city " + name + " is read-only");
+        }
+    }
+
+    private void checkRecord(WeatherRecord record)
+    {
+        if (!record.isValidWeatherRecord()) {
+            throw new IllegalArgumentException(
+                "WeatherRecord must not be null when adding to city: " + name);
+        }
+        if (record.getDate() == null) {
+            throw new IllegalArgumentException(
+                "WeatherRecord must have a date when adding to city: " + name);
+        }
+    }
+
+    private void fireRecordsAdded()
+    {
+        snapshot = null;
+        for (CityRecordListener listener : recordListeners) {
+            listener.onRecordsAdded(this);
+        }
+    }
+
+    public WeatherRecord getRecordByDate(LocalDate date) {
+        if (date != null) {
+            int slot = weatherRecords.findSlot((int) date.toEpochDay());
+            if (slot >= 0) {
+                return weatherRecords.getRecord(slot);
+            }
+        }
+        throw new IllegalArgumentException(
+            "No valid weather record found for " + date + " in city: " + name);
     }
 
     /**
@@ -101,15 +314,16 @@ public class City {
      * @throws IllegalStateException if there are no valid records
      */
     public double calculateAverageTemperature() {
-        return validRecords()
-            .mapToDouble(WeatherRecord::getTemperature)
-            .average()
-            .orElseThrow(() ->
-                new IllegalStateException("No valid weather records to calculate average temperature for city: " + name));
+        double average = aggregates.getAverage(WeatherMeasure.TEMPERATURE);
+        if (Double.isNaN(average)) {
+            throw new IllegalStateException("No valid weather records to calculate average temperature for city: " + name);
+        }
+        return average;
     }
 
     /**
-     * Find the lowest temperature in a specific month across valid records.
+     * Find the lowest temperature in a specific month across valid records,
+     * i.e. in that month of every year.
      *
      * @param month the Month to search (JANUARY … DECEMBER)
      * @return the lowest temperature observed in that month
@@ -117,15 +331,16 @@ public class City {
      * @throws IllegalStateException    if no valid records exist for that month
      */
     public double getLowestTemperatureInMonth(Month month) {
-        return validRecordsInMonth(month)
-            .mapToDouble(WeatherRecord::getTemperature)
-            .min()
-            .orElseThrow(() ->
-                new IllegalStateException("No valid weather records found for " + month + " in city: " + name));
+        double min = aggregates.getMin(WeatherMeasure.TEMPERATURE, requireMonth(month));
+        if (Double.isNaN(min)) {
+            throw new IllegalStateException("No valid weather records found for " + month + " in city: " + name);
+        }
+        return min;
     }
 
     /**
-     * Calculate the average humidity in a given month across valid records.
+     * Calculate the average humidity in a given month across valid records,
+     * i.e. in that month of every year.
      *
      * @param month the Month to search
      * @return the average humidity for that month
@@ -133,15 +348,16 @@ public class City {
      * @throws IllegalStateException    if no valid records exist for that month
      */
     public double calculateAverageHumidityInMonth(Month month) {
-        return validRecordsInMonth(month)
-            .mapToDouble(WeatherRecord::getHumidity)
-            .average()
-            .orElseThrow(() ->
-                new IllegalStateException("No valid weather records found for humidity in " + month + " for city: " + name));
+        double average = aggregates.getAverage(WeatherMeasure.HUMIDITY, requireMonth(month));
+        if (Double.isNaN(average)) {
+            throw new IllegalStateException("No valid weather records found for humidity in " + month + " for city: " + name);
+        }
+        return average;
     }
 
     /**
-     * Calculate the average wind speed in a given month across valid records.
+     * Calculate the average wind speed in a given month across valid records,
+     * i.e. in that month of every year.
      *
      * @param month the Month to search
      * @return the average wind speed for that month
@@ -149,10 +365,119 @@ public class City {
      * @throws IllegalStateException    if no valid records exist for that month
      */
     public double calculateAverageWindSpeedInMonth(Month month) {
-        return validRecordsInMonth(month)
-            .mapToDouble(WeatherRecord::getWindSpeed)
-            .average()
-            .orElseThrow(() ->
-                new IllegalStateException("No valid weather records found for wind speed in " + month + " for city: " + name));
+        double average = aggregates.getAverage(WeatherMeasure.WIND, requireMonth(month));
+        if (Double.isNaN(average)) {
+            throw new IllegalStateException("No valid weather records found for wind speed in " + month + " for city: " + name);
+        }
+        return average;
+    }
+
+    /**
+     * Find the lowest temperature in one month of one year.
+     *
+     * @param month the month, e.g. January 2025
+     * @return the lowest temperature observed in that month
+     * @throws IllegalArgumentException if month is null
+     * @throws IllegalStateException    if no valid records exist for that month
+     */
+    public double getLowestTemperatureInMonth(YearMonth month) {
+        double min = getMonthStats(WeatherMeasure.TEMPERATURE, month).getMin();
+        if (Double.isNaN(min)) {
+            throw new IllegalStateException("No valid weather records found for " + month + " in city: " + name);
+        }
+        return min;
+    }
+
+    /**
+     * Calculate the average humidity in one month of one year.
+     *
+     * @param month the month, e.g. May 2025
+     * @return the average humidity for that month
+     * @throws IllegalArgumentException if month is null
+     * @throws IllegalStateException    if no valid records exist for that month
+     */
+    public double calculateAverageHumidityInMonth(YearMonth month) {
+        double average = getMonthStats(WeatherMeasure.HUMIDITY, month).getAverage();
+        if (Double.isNaN(average)) {
+            throw new IllegalStateException("No valid weather records found for humidity in " + month + " for city: " + name);
+        }
+        return average;
+    }
+
+    /**
+     * Calculate the average wind speed in one month of one year.
+     *
+     * @param month the month, e.g. April 2025
+     * @return the average wind speed for that month
+     * @throws IllegalArgumentException if month is null
+     * @throws IllegalStateException    if no valid records exist for that month
+     */
+    public double calculateAverageWindSpeedInMonth(YearMonth month) {
+        double average = getMonthStats(WeatherMeasure.WIND, month).getAverage();
+        if (Double.isNaN(average)) {
+            throw new IllegalStateException("No valid weather records found for wind speed in " + month + " for city: " + name);
+        }
+        return average;
+    }
+
+    /**
+     * Returns the count, sum, min and max of a measure between two dates, both
+     * inclusive, in O(log n) from the store's range index.
+     */
+    public MeasureStats getMeasureStats(WeatherMeasure measure, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return weatherRecords.getMeasureStats(measure, (int) from.toEpochDay(), (int) to.toEpochDay());
+    }
+
+    /**
+     * Returns the record with the lowest value of a measure between two dates,
+     * both inclusive, e.g. the coldest day. On ties the earliest record wins.
+     *
+     * @throws IllegalArgumentException if there is no record in the range
+     */
+    public WeatherRecord getRecordWithLowest(WeatherMeasure measure, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return recordInRange(weatherRecords.findSlotOfMin(measure, (int) from.toEpochDay(), (int) to.toEpochDay()), from, to);
+    }
+
+    /**
+     * Returns the record with the highest value of a measure between two dates,
+     * both inclusive, e.g. the windiest day. On ties the earliest record wins.
+     *
+     * @throws IllegalArgumentException if there is no record in the range
+     */
+    public WeatherRecord getRecordWithHighest(WeatherMeasure measure, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return recordInRange(weatherRecords.findSlotOfMax(measure, (int) from.toEpochDay(), (int) to.toEpochDay()), from, to);
+    }
+
+    private WeatherRecord recordInRange(int slot, LocalDate from, LocalDate to) {
+        if (slot < 0) {
+            throw new IllegalArgumentException(
+                "No valid weather record found between " + from + " and " + to + " in city: " + name);
+        }
+        return weatherRecords.getRecord(slot);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        Objects.requireNonNull(from, "Start date must not be null");
+        Objects.requireNonNull(to, "End date must not be null");
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date " + from + " is after end date " + to);
+        }
+    }
+
+    private MeasureStats getMonthStats(WeatherMeasure measure, YearMonth month) {
+        if (month == null) {
+            throw new IllegalArgumentException("Month must not be null for city: " + name);
+        }
+        return getRollup().getCell(CalendarLevel.MONTH, month.atDay(1), measure);
+    }
+
+    private Month requireMonth(Month month) {
+        if (month == null) {
+            throw new IllegalArgumentException("Month must not be null for city: " + name);
+        }
+        return month;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns city names into dense int IDs: the first name added gets ID 0, the
+ * next new one ID 1, and so on. IDs never change, so they can index plain
+ * arrays, and code that holds an ID never hashes or compares the name again.
+ *
+ * Interning is serialized; {@link #idOf(String)} and {@link #nameOf(int)} may
+ * be called from any thread, e.g. by queries running off the EDT.
+ */
+public class CityDictionary {
+    /** Returned by {@link #idOf(String)} for a name that was never interned. */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile int size;
+
+    /**
+     * Returns the ID of a name, assigning the next free ID if it is new.
+     */
+    public synchronized int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        int newId = size;
+        names[newId] = name;
+        size = newId + 1;
+        ids.put(name, newId);
+        return newId;
+    }
+
+    /**
+     * Returns the ID of a name, or {@link #UNKNOWN} if it was never interned.
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Returns the name with an ID.
+     *
+     * @throws IndexOutOfBoundsException if no name has that ID
+     */
+    public String nameOf(int id) {
+        int count = size; // read before names, which is published first
+        return names[Objects.checkIndex(id, count)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns all names, indexed by ID.
+     */
+    public String[] names() {
+        int count = size; // read before names, which is published first
+        return Arrays.copyOf(names, count);
+    }
+}
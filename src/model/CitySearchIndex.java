@@ -0,0 +1,242 @@
+package model;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+
+/**
+ * Type-ahead index over city names.
+ *
+ * Every name is folded to a search key with its case, diacritics and the
+ * Turkish dotted/dotless i distinction removed, so "izmir" finds "İzmir" and
+ * "diyarbakir" finds "Diyarbakır". Each later word of a name is indexed too,
+ * so "merkez" finds "Ağrı Merkez".
+ *
+ * The keys are kept in one sorted array, where all keys starting with a
+ * prefix are adjacent; a search is a binary search for that range. A min-tree
+ * over the rank of every key then yields the best matches of the range one
+ * at a time, so a search costs O(limit log n) however many names share a
+ * short prefix.
+ *
+ * New cities are appended unsorted and merged into the sorted keys by the
+ * next search, so adding a whole data set costs one sort, and a stream of new
+ * cities one linear merge per search that sees them.
+ */
+public class CitySearchIndex {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int WORD_MATCH = 1 << 16;
+
+    private String[] keys = new String[DEFAULT_CAPACITY];
+    private int[] keyCityIds = new int[DEFAULT_CAPACITY];
+    private boolean[] wordKeys = new boolean[DEFAULT_CAPACITY];
+    private int size;
+    private int sortedSize;
+    private long[] scores = new long[0];
+    private String[] foldedNames = new String[DEFAULT_CAPACITY];
+
+    /**
+     * Adds a city under its full name and each later word of it.
+     */
+    public void add(int cityId, String name) {
+        String folded = fold(name);
+        if (cityId >= foldedNames.length) {
+            foldedNames = Arrays.copyOf(foldedNames, Math.max(cityId + 1, foldedNames.length * 2));
+        }
+        foldedNames[cityId] = folded;
+
+        insert(folded, cityId, false);
+        for (int i = 1; i < folded.length(); i++) {
+            if (!Character.isLetterOrDigit(folded.charAt(i - 1)) && Character.isLetterOrDigit(folded.charAt(i))) {
+                insert(folded.substring(i), cityId, true);
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the cities whose name, or a word of it, starts with
+     * the query, best match first: an exact name, then names that start with
+     * the query, then names with a word that does; shorter names first within
+     * each group, then alphabetically.
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of IDs to return
+     * @return the matching city IDs, empty if the query is blank
+     */
+    public int[] search(String query, int limit) {
+        String prefix = fold(query.strip());
+        if (prefix.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        mergePending();
+
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE); // past every key extending the prefix
+
+        int[] result = new int[limit];
+        int count = 0;
+        BitSet seen = new BitSet();
+
+        // Exact names sort first within the range
+        for (int i = from; i < to && count < limit && keys[i].length() == prefix.length(); i++) {
+            if (!wordKeys[i] && !seen.get(keyCityIds[i])) {
+                seen.set(keyCityIds[i]);
+                result[count++] = keyCityIds[i];
+            }
+        }
+
+        // Then the best ranked keys, taken one at a time: the best key of a
+        // range is its minimum, and the rest lie in the ranges left and right of it
+        PriorityQueue<long[]> ranges = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        if (from < to) {
+            ranges.add(new long[] { minScore(from, to), from, to });
+        }
+        while (count < limit && !ranges.isEmpty()) {
+            long[] range = ranges.poll();
+            int position = (int) range[0];
+            int cityId = keyCityIds[position];
+            if (!seen.get(cityId)) {
+                seen.set(cityId);
+                result[count++] = cityId;
+            }
+            int left = (int) range[1];
+            int right = (int) range[2];
+            if (left < position) {
+                ranges.add(new long[] { minScore(left, position), left, position });
+            }
+            if (position + 1 < right) {
+                ranges.add(new long[] { minScore(position + 1, right), position + 1, right });
+            }
+        }
+        return count == limit ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns the smallest score among the keys in [from, to).
+     */
+    private long minScore(int from, int to) {
+        long min = Long.MAX_VALUE;
+        for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                min = Math.min(min, scores[low++]);
+            }
+            if ((high & 1) == 1) {
+                min = Math.min(min, scores[--high]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Rebuilds the score tree: leaf i holds the rank of key i in its high half
+     * and i itself in its low half, so smaller scores are better ranks and,
+     * among equal ranks, alphabetically first. Inner nodes hold the minimum of
+     * their children.
+     */
+    private void buildScores() {
+        scores = new long[2 * size];
+        for (int i = 0; i < size; i++) {
+            int rank = Math.min(foldedNames[keyCityIds[i]].length(), WORD_MATCH - 1);
+            if (wordKeys[i]) {
+                rank |= WORD_MATCH;
+            }
+            scores[size + i] = (long) rank << 32 | i;
+        }
+        for (int node = size - 1; node >= 1; node--) {
+            scores[node] = Math.min(scores[2 * node], scores[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Returns the number of keys, i.e. of names and later words indexed.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Folds text to its search key: decomposed, without combining marks,
+     * dotless i as i, and lower case, e.g. "İzmir" and "IZMIR" both become
+     * "izmir".
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            folded.append(c == 'ı' ? 'i' : Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+
+    private void insert(String key, int cityId, boolean wordKey) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            keyCityIds = Arrays.copyOf(keyCityIds, capacity);
+            wordKeys = Arrays.copyOf(wordKeys, capacity);
+        }
+        keys[size] = key;
+        keyCityIds[size] = cityId;
+        wordKeys[size] = wordKey;
+        size++;
+    }
+
+    /**
+     * Sorts the keys added since the last search and merges them into the
+     * sorted ones.
+     */
+    private void mergePending() {
+        if (sortedSize == size) {
+            return;
+        }
+        Integer[] pending = new Integer[size - sortedSize];
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = sortedSize + i;
+        }
+        Arrays.sort(pending, (a, b) -> keys[a].compareTo(keys[b]));
+
+        String[] mergedKeys = new String[keys.length];
+        int[] mergedCityIds = new int[keys.length];
+        boolean[] mergedWordKeys = new boolean[keys.length];
+        int sorted = 0;
+        int next = 0;
+        for (int out = 0; out < size; out++) {
+            int source;
+            if (next == pending.length
+                    || (sorted < sortedSize && keys[sorted].compareTo(keys[pending[next]]) <= 0)) {
+                source = sorted++;
+            } else {
+                source = pending[next++];
+            }
+            mergedKeys[out] = keys[source];
+            mergedCityIds[out] = keyCityIds[source];
+            mergedWordKeys[out] = wordKeys[source];
+        }
+        keys = mergedKeys;
+        keyCityIds = mergedCityIds;
+        wordKeys = mergedWordKeys;
+        sortedSize = size;
+        buildScores();
+    }
+
+    /**
+     * Returns the first position whose key is not less than {@code key}.
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
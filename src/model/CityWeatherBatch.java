@@ -0,0 +1,128 @@
+package model;
+
+import enums.WeatherCondition;
+import java.time.LocalDate;
+import java.util.BitSet;
+
+/**
+ * The weather of several cities on one date, as answered by
+ * {@link WeatherDataManager#getWeather(int[], LocalDate)}.
+ *
+ * One row per requested city, in request order, stored column by column. A
+ * city without a record on the date is a row without data: {@link
+ * #hasData(int)} is false, its measures are NaN and its condition and record
+ * are null. Instances are immutable.
+ */
+public class CityWeatherBatch {
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+
+    private final LocalDate date;
+    private final int[] cityIds;
+    private final BitSet hasData;
+    private final double[] temperatures;
+    private final double[] humidities;
+    private final double[] windSpeeds;
+    private final byte[] conditions;
+
+    /**
+     * Reads the rows from the cities' stores.
+     *
+     * @param cities the city of each row
+     * @param slots  the slot of each row's record in its city's store, or -1 for no data
+     */
+    CityWeatherBatch(LocalDate date, int[] cityIds, City[] cities, int[] slots) {
+        int size = cityIds.length;
+        this.date = date;
+        this.cityIds = cityIds.clone();
+        this.hasData = new BitSet(size);
+        this.temperatures = new double[size];
+        this.humidities = new double[size];
+        this.windSpeeds = new double[size];
+        this.conditions = new byte[size];
+        for (int row = 0; row < size; row++) {
+            int slot = slots[row];
+            if (slot < 0) {
+                temperatures[row] = Double.NaN;
+                humidities[row] = Double.NaN;
+                windSpeeds[row] = Double.NaN;
+                conditions[row] = -1;
+                continue;
+            }
+            WeatherRecordStore store = cities[row].getRecordStore();
+            hasData.set(row);
+            temperatures[row] = store.getTemperature(slot);
+            humidities[row] = store.getHumidity(slot);
+            windSpeeds[row] = store.getWindSpeed(slot);
+            conditions[row] = store.getWeatherConditionOrdinal(slot);
+        }
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * @return the number of rows, i.e. of requested cities
+     */
+    public int size() {
+        return cityIds.length;
+    }
+
+    /**
+     * @return the number of rows with data
+     */
+    public int countWithData() {
+        return hasData.cardinality();
+    }
+
+    public int getCityId(int row) {
+        return cityIds[row];
+    }
+
+    /**
+     * @return true if the row's city has a record on the date
+     */
+    public boolean hasData(int row) {
+        return hasData.get(row);
+    }
+
+    /**
+     * @return the temperature in Celsius, or NaN if the row has no data
+     */
+    public double getTemperature(int row) {
+        return temperatures[row];
+    }
+
+    /**
+     * @return the humidity, or NaN if the row has no data
+     */
+    public double getHumidity(int row) {
+        return humidities[row];
+    }
+
+    /**
+     * @return the wind speed in km/h, or NaN if the row has no data
+     */
+    public double getWindSpeed(int row) {
+        return windSpeeds[row];
+    }
+
+    /**
+     * @return the weather condition, or null if the row has no data
+     */
+    public WeatherCondition getWeatherCondition(int row) {
+        return hasData(row) ? CONDITIONS[conditions[row]] : null;
+    }
+
+    /**
+     * Materializes a row as a record.
+     *
+     * @return a new WeatherRecord, or null if the row has no data
+     */
+    public WeatherRecord getRecord(int row) {
+        if (!hasData(row)) {
+            return null;
+        }
+        return new WeatherRecord(date, temperatures[row], humidities[row], windSpeeds[row], CONDITIONS[conditions[row]]);
+    }
+}
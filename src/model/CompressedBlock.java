@@ -0,0 +1,535 @@
+package model;
+
+import enums.WeatherCondition;
+import enums.WeatherMeasure;
+import java.util.Arrays;
+
+/**
+ * An immutable, compressed run of {@value #SIZE} consecutive records of a
+ * {@link WeatherRecordStore}, in date order.
+ *
+ * Dates are delta-of-deltas with Gorilla's variable-length codes; a run of
+ * consecutive days stores no date bits at all. A measure whose values are all
+ * decimals with at most {@value #MAX_SCALE} fraction digits, as feeds report
+ * them, is stored in fixed point as offsets from the block's minimum,
+ * bit-packed at the width of the largest one; for weather that is as small as
+ * packed deltas, and any single value can be read without decoding the others.
+ * Any other measure is XOR-encoded against the previous value like Gorilla
+ * floats. Either way decoding restores the exact doubles. Conditions take 3
+ * bits each. Daily series come to about 4 bytes per record instead of 29.
+ *
+ * The block also keeps the sum, min and max of every measure, so range queries
+ * only decode the blocks they cover partially.
+ */
+final class CompressedBlock {
+    static final int SHIFT = 9;
+    static final int SIZE = 1 << SHIFT;
+    static final int MASK = SIZE - 1;
+
+    private static final int MAX_SCALE = 6;
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6 };
+    // Largest magnitude whose fixed-point value is still an exact double
+    private static final double MAX_EXACT = 1L << 52;
+    private static final byte XOR = -1;
+    private static final WeatherMeasure[] MEASURES = WeatherMeasure.values();
+    private static final int CONDITION_BITS = 32 - Integer.numberOfLeadingZeros(WeatherCondition.values().length - 1);
+
+    private final int firstDay;
+    private final int lastDay;
+    private final boolean contiguous;
+    private final long[] bits;
+    // Where the bits of each measure start, then where the conditions start
+    private final int[] starts = new int[MEASURES.length + 1];
+    // Per measure: fraction digits of the fixed-point encoding or XOR, the bit
+    // width of its offsets, and its minimum (fixed point) or first value (raw bits)
+    private final byte[] scales = new byte[MEASURES.length];
+    private final byte[] widths = new byte[MEASURES.length];
+    private final long[] firsts = new long[MEASURES.length];
+    // Per measure: sum, min and max, then the offsets of the first min and max
+    private final double[] stats = new double[3 * MEASURES.length];
+    private final short[] extremes = new short[2 * MEASURES.length];
+
+    private CompressedBlock(int[] days, int from, double[][] values, byte[] conditions) {
+        firstDay = days[from];
+        lastDay = days[from + SIZE - 1];
+        contiguous = lastDay - firstDay == SIZE - 1 && isContiguous(days, from);
+
+        BitWriter out = new BitWriter();
+        if (!contiguous) {
+            writeDays(out, days, from);
+        }
+        for (int m = 0; m < MEASURES.length; m++) {
+            starts[m] = out.position();
+            writeMeasure(out, m, values[m]);
+            summarize(m, values[m]);
+        }
+        starts[MEASURES.length] = out.position();
+        for (int i = 0; i < SIZE; i++) {
+            out.write(conditions[from + i], CONDITION_BITS);
+        }
+        bits = out.toArray();
+    }
+
+    /**
+     * Compresses the {@value #SIZE} records from slot {@code from} of a store's
+     * columns. Their dates must not decrease.
+     */
+    static CompressedBlock encode(int[] days, double[] temperatures, float[] humidities, double[] windSpeeds,
+                                  byte[] conditions, int from) {
+        double[][] values = new double[MEASURES.length][];
+        values[WeatherMeasure.TEMPERATURE.ordinal()] = Arrays.copyOfRange(temperatures, from, from + SIZE);
+        double[] widened = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            widened[i] = humidities[from + i];
+        }
+        values[WeatherMeasure.HUMIDITY.ordinal()] = widened;
+        values[WeatherMeasure.WIND.ordinal()] = Arrays.copyOfRange(windSpeeds, from, from + SIZE);
+        return new CompressedBlock(days, from, values, conditions);
+    }
+
+    int getFirstDay() {
+        return firstDay;
+    }
+
+    int getLastDay() {
+        return lastDay;
+    }
+
+    /**
+     * Returns true if the block holds one record per day, without gaps.
+     */
+    boolean isContiguous() {
+        return contiguous;
+    }
+
+    double getSum(WeatherMeasure measure) {
+        return stats[3 * measure.ordinal()];
+    }
+
+    double getMin(WeatherMeasure measure) {
+        return stats[3 * measure.ordinal() + 1];
+    }
+
+    double getMax(WeatherMeasure measure) {
+        return stats[3 * measure.ordinal() + 2];
+    }
+
+    /**
+     * Returns the offset in this block of the first record with the lowest value of a measure.
+     */
+    int getMinOffset(WeatherMeasure measure) {
+        return extremes[2 * measure.ordinal()];
+    }
+
+    /**
+     * Returns the offset in this block of the first record with the highest value of a measure.
+     */
+    int getMaxOffset(WeatherMeasure measure) {
+        return extremes[2 * measure.ordinal() + 1];
+    }
+
+    /**
+     * Returns the approximate heap size of this block in bytes.
+     */
+    long estimateBytes() {
+        return 64 + (16 + 8L * bits.length) + (16 + 4 * starts.length) + 2 * (16 + MEASURES.length)
+            + (16 + 8 * firsts.length) + (16 + 8 * stats.length) + (16 + 2 * extremes.length);
+    }
+
+    /**
+     * Returns true if single values of a measure can be read with
+     * {@link #readValue}, i.e. it is not XOR-encoded.
+     */
+    boolean isRandomAccess(WeatherMeasure measure) {
+        return scales[measure.ordinal()] != XOR;
+    }
+
+    /**
+     * Reads the value of a measure at an offset in O(1); the measure must be
+     * {@link #isRandomAccess random access}.
+     */
+    double readValue(WeatherMeasure measure, int offset) {
+        int m = measure.ordinal();
+        int width = widths[m];
+        return (firsts[m] + BitReader.read(bits, starts[m] + offset * width, width)) / POWERS_OF_TEN[scales[m]];
+    }
+
+    /**
+     * Reads the condition ordinal at an offset in O(1).
+     */
+    byte readCondition(int offset) {
+        return (byte) BitReader.read(bits, starts[MEASURES.length] + offset * CONDITION_BITS, CONDITION_BITS);
+    }
+
+    /**
+     * Decodes all dates into {@code days}, from index 0.
+     */
+    void decodeDays(int[] days) {
+        if (contiguous) {
+            for (int i = 0; i < SIZE; i++) {
+                days[i] = firstDay + i;
+            }
+        } else {
+            readDays(new BitReader(bits, 0), days);
+        }
+    }
+
+    /**
+     * Decodes all values of a measure into {@code dest}, from index 0.
+     * Humidities come out widened to double, the way {@link WeatherRecordStore}
+     * returns them.
+     */
+    void decodeMeasure(WeatherMeasure measure, double[] dest) {
+        int m = measure.ordinal();
+        BitReader in = new BitReader(bits, starts[m]);
+        if (scales[m] == XOR) {
+            readXor(in, firsts[m], dest);
+            return;
+        }
+        double power = POWERS_OF_TEN[scales[m]];
+        int width = widths[m];
+        long base = firsts[m];
+        for (int i = 0; i < SIZE; i++) {
+            dest[i] = (base + in.read(width)) / power;
+        }
+    }
+
+    /**
+     * Decodes all condition ordinals into {@code conditions}, from index 0.
+     */
+    void decodeConditions(byte[] conditions) {
+        BitReader in = new BitReader(bits, starts[MEASURES.length]);
+        for (int i = 0; i < SIZE; i++) {
+            conditions[i] = (byte) in.read(CONDITION_BITS);
+        }
+    }
+
+    private static boolean isContiguous(int[] days, int from) {
+        for (int i = from + 1; i < from + SIZE; i++) {
+            if (days[i] != days[i - 1] + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void summarize(int m, double[] values) {
+        double sum = 0;
+        int minOffset = 0;
+        int maxOffset = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += values[i];
+            if (values[i] < values[minOffset]) {
+                minOffset = i;
+            }
+            if (values[i] > values[maxOffset]) {
+                maxOffset = i;
+            }
+        }
+        stats[3 * m] = sum;
+        stats[3 * m + 1] = values[minOffset];
+        stats[3 * m + 2] = values[maxOffset];
+        extremes[2 * m] = (short) minOffset;
+        extremes[2 * m + 1] = (short) maxOffset;
+    }
+
+    // A delta-of-delta of 0 takes one bit, small ones 9 to 16 bits, and
+    // anything else 68 bits.
+    private static void writeDays(BitWriter out, int[] days, int from) {
+        long previousDelta = 1;
+        for (int i = from + 1; i < from + SIZE; i++) {
+            long delta = (long) days[i] - days[i - 1];
+            long deltaOfDelta = delta - previousDelta;
+            long zigzag = zigzag(deltaOfDelta);
+            if (deltaOfDelta == 0) {
+                out.write(0b0, 1);
+            } else if (zigzag < 1 << 7) {
+                out.write(0b10, 2);
+                out.write(zigzag, 7);
+            } else if (zigzag < 1 << 9) {
+                out.write(0b110, 3);
+                out.write(zigzag, 9);
+            } else if (zigzag < 1 << 12) {
+                out.write(0b1110, 4);
+                out.write(zigzag, 12);
+            } else {
+                out.write(0b1111, 4);
+                out.write(deltaOfDelta, 64);
+            }
+            previousDelta = delta;
+        }
+    }
+
+    private void readDays(BitReader in, int[] days) {
+        long delta = 1;
+        long day = firstDay;
+        days[0] = firstDay;
+        for (int i = 1; i < SIZE; i++) {
+            long deltaOfDelta;
+            if (in.read(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = unzigzag(in.read(7));
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = unzigzag(in.read(9));
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = unzigzag(in.read(12));
+            } else {
+                deltaOfDelta = in.read(64);
+            }
+            delta += deltaOfDelta;
+            day += delta;
+            days[i] = (int) day;
+        }
+    }
+
+    private void writeMeasure(BitWriter out, int m, double[] values) {
+        int scale = findScale(values);
+        if (scale < 0) {
+            scales[m] = XOR;
+            firsts[m] = Double.doubleToRawLongBits(values[0]);
+            writeXor(out, values);
+            return;
+        }
+
+        double power = POWERS_OF_TEN[scale];
+        long[] fixed = new long[SIZE];
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < SIZE; i++) {
+            fixed[i] = Math.round(values[i] * power);
+            min = Math.min(min, fixed[i]);
+            max = Math.max(max, fixed[i]);
+        }
+        int width = 64 - Long.numberOfLeadingZeros(max - min);
+        for (int i = 0; i < SIZE; i++) {
+            out.write(fixed[i] - min, width);
+        }
+        scales[m] = (byte) scale;
+        widths[m] = (byte) width;
+        firsts[m] = min;
+    }
+
+    /**
+     * Returns the fewest fraction digits that represent every value exactly,
+     * i.e. {@code Math.round(v * 10^scale) / 10^scale} gives back the same
+     * double, or -1 if there is no such scale up to {@value #MAX_SCALE}.
+     */
+    private static int findScale(double[] values) {
+        for (int scale = 0; scale <= MAX_SCALE; scale++) {
+            double power = POWERS_OF_TEN[scale];
+            boolean exact = true;
+            for (int i = 0; i < SIZE && exact; i++) {
+                double scaled = values[i] * power;
+                exact = Math.abs(scaled) <= MAX_EXACT
+                    && Double.doubleToRawLongBits(Math.round(scaled) / power) == Double.doubleToRawLongBits(values[i]);
+            }
+            if (exact) {
+                return scale;
+            }
+        }
+        return -1;
+    }
+
+    // Gorilla: '0' if the value repeats; otherwise '1', then '0' and the
+    // meaningful bits if the XOR fits the previous window, or '1', 6 bits of
+    // leading zeros, 6 bits of length and the meaningful bits.
+    private static void writeXor(BitWriter out, double[] values) {
+        long previous = Double.doubleToRawLongBits(values[0]);
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 1; i < SIZE; i++) {
+            long value = Double.doubleToRawLongBits(values[i]);
+            long xor = value ^ previous;
+            if (xor == 0) {
+                out.write(0b0, 1);
+            } else {
+                int newLeading = Long.numberOfLeadingZeros(xor);
+                int newTrailing = Long.numberOfTrailingZeros(xor);
+                if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                    out.write(0b10, 2);
+                    out.write(xor >>> trailing, 64 - leading - trailing);
+                } else {
+                    int significant = 64 - newLeading - newTrailing;
+                    out.write(0b11, 2);
+                    out.write(newLeading, 6);
+                    out.write(significant - 1, 6);
+                    out.write(xor >>> newTrailing, significant);
+                    leading = newLeading;
+                    trailing = newTrailing;
+                }
+            }
+            previous = value;
+        }
+    }
+
+    private static void readXor(BitReader in, long first, double[] dest) {
+        long previous = first;
+        dest[0] = Double.longBitsToDouble(first);
+        int leading = 0;
+        int significant = 0;
+        for (int i = 1; i < SIZE; i++) {
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(6);
+                    significant = (int) in.read(6) + 1;
+                }
+                previous ^= in.read(significant) << (64 - leading - significant);
+            }
+            dest[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    /**
+     * The records of one block, decoded column by column into reusable arrays
+     * as they are asked for. Single values are read straight from the block
+     * where that is O(1).
+     */
+    static final class Decoded {
+        private static final int DAYS = 1 << MEASURES.length;
+        private static final int CONDITIONS = DAYS << 1;
+
+        private final int[] days = new int[SIZE];
+        private final double[][] values = new double[MEASURES.length][SIZE];
+        private final byte[] conditions = new byte[SIZE];
+        private CompressedBlock block;
+        // One bit per decoded column: the measures by ordinal, then DAYS and CONDITIONS
+        private int decodedColumns;
+
+        Decoded load(CompressedBlock block) {
+            if (this.block != block) {
+                this.block = block;
+                decodedColumns = 0;
+            }
+            return this;
+        }
+
+        CompressedBlock block() {
+            return block;
+        }
+
+        int[] days() {
+            if ((decodedColumns & DAYS) == 0) {
+                block.decodeDays(days);
+                decodedColumns |= DAYS;
+            }
+            return days;
+        }
+
+        double[] values(WeatherMeasure measure) {
+            int column = 1 << measure.ordinal();
+            if ((decodedColumns & column) == 0) {
+                block.decodeMeasure(measure, values[measure.ordinal()]);
+                decodedColumns |= column;
+            }
+            return values[measure.ordinal()];
+        }
+
+        byte[] conditions() {
+            if ((decodedColumns & CONDITIONS) == 0) {
+                block.decodeConditions(conditions);
+                decodedColumns |= CONDITIONS;
+            }
+            return conditions;
+        }
+
+        int day(int offset) {
+            return block.isContiguous() ? block.getFirstDay() + offset : days()[offset];
+        }
+
+        double value(WeatherMeasure measure, int offset) {
+            if ((decodedColumns & (1 << measure.ordinal())) == 0 && block.isRandomAccess(measure)) {
+                return block.readValue(measure, offset);
+            }
+            return values(measure)[offset];
+        }
+
+        byte condition(int offset) {
+            return (decodedColumns & CONDITIONS) != 0 ? conditions[offset] : block.readCondition(offset);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Appends bit strings, most significant bit first.
+     */
+    private static final class BitWriter {
+        private long[] words = new long[64];
+        private int position = 0;
+
+        /**
+         * Writes the low {@code count} bits of a value, 0 to 64.
+         */
+        void write(long value, int count) {
+            if (count == 0) {
+                return;
+            }
+            if (count < 64) {
+                value &= (1L << count) - 1;
+            }
+            int word = position >>> 6;
+            int free = 64 - (position & 63);
+            if (word + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            if (count <= free) {
+                words[word] |= value << (free - count);
+            } else {
+                words[word] |= value >>> (count - free);
+                words[word + 1] |= value << (64 - (count - free));
+            }
+            position += count;
+        }
+
+        int position() {
+            return position;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (position + 63) >>> 6);
+        }
+    }
+
+    /**
+     * Reads back what a {@link BitWriter} wrote.
+     */
+    private static final class BitReader {
+        private final long[] words;
+        private int position;
+
+        BitReader(long[] words, int position) {
+            this.words = words;
+            this.position = position;
+        }
+
+        /**
+         * Reads the next {@code count} bits, 0 to 64, as an unsigned value.
+         */
+        long read(int count) {
+            long value = read(words, position, count);
+            position += count;
+            return value;
+        }
+
+        /**
+         * Reads {@code count} bits, 0 to 64, from a bit position as an unsigned value.
+         */
+        static long read(long[] words, int position, int count) {
+            if (count == 0) {
+                return 0;
+            }
+            int word = position >>> 6;
+            int offset = position & 63;
+            long high = (words[word] << offset) >>> (64 - count);
+            int rest = count - (64 - offset);
+            return rest <= 0 ? high : high | (words[word + 1] >>> (64 - rest));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Maps epoch days to slots of a {@link WeatherRecordStore} whose records are
+ * not in date order.
+ *
+ * When the dates cover most of their span the index is a dense offset array
+ * ({@code slot = offsets[day - firstDay]}); otherwise it is a pair of sorted
+ * arrays searched with binary search. Either way the first slot inserted for a
+ * date wins, like a linear scan would.
+ */
+class DateIndex {
+    private static final int NO_SLOT = -1;
+
+    private final int firstDay;
+    private final int[] offsets;
+    private final int[] sortedDays;
+    private final int[] sortedSlots;
+
+    private DateIndex(int firstDay, int[] offsets, int[] sortedDays, int[] sortedSlots) {
+        this.firstDay = firstDay;
+        this.offsets = offsets;
+        this.sortedDays = sortedDays;
+        this.sortedSlots = sortedSlots;
+    }
+
+    /**
+     * Builds an index over the uncompressed records of a store; compressed
+     * history is in date order and needs none.
+     */
+    static DateIndex build(WeatherRecordStore store) {
+        int first = store.getCompressedCount();
+        int size = store.size() - first;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = first; i < store.size(); i++) {
+            min = Math.min(min, store.getEpochDay(i));
+            max = Math.max(max, store.getEpochDay(i));
+        }
+
+        long span = (long) max - min + 1;
+        if (size > 0 && span <= 2L * size) {
+            int[] offsets = new int[(int) span];
+            Arrays.fill(offsets, NO_SLOT);
+            for (int i = store.size() - 1; i >= first; i--) {
+                offsets[store.getEpochDay(i) - min] = i;
+            }
+            return new DateIndex(min, offsets, null, null);
+        }
+
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) store.getEpochDay(first + i) << 32) | (first + i);
+        }
+        Arrays.sort(keys);
+        int[] sortedDays = new int[size];
+        int[] sortedSlots = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedDays[i] = (int) (keys[i] >> 32);
+            sortedSlots[i] = (int) keys[i];
+        }
+        return new DateIndex(0, null, sortedDays, sortedSlots);
+    }
+
+    /**
+     * Returns the slot of the first record on an epoch day, or -1 if there is none.
+     */
+    int find(int epochDay) {
+        if (offsets != null) {
+            long offset = (long) epochDay - firstDay;
+            return offset >= 0 && offset < offsets.length ? offsets[(int) offset] : NO_SLOT;
+        }
+        int position = lowerBound(sortedDays, sortedDays.length, epochDay);
+        return position < sortedDays.length && sortedDays[position] == epochDay
+            ? sortedSlots[position]
+            : NO_SLOT;
+    }
+
+    /**
+     * Returns the first position in {@code days[0, length)} whose value is not
+     * below {@code epochDay}. {@code days} must be in ascending order.
+     */
+    static int lowerBound(int[] days, int length, int epochDay) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
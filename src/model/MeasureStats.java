@@ -0,0 +1,75 @@
+package model;
+
+/**
+ * Count, sum, min and max of one measure over a set of records.
+ *
+ * Instances are immutable. An empty set has a count and sum of 0, and NaN as
+ * min, max and average.
+ */
+public class MeasureStats {
+    public static final MeasureStats EMPTY = new MeasureStats(0, 0, Double.NaN, Double.NaN);
+
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    public MeasureStats(long count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the minimum, or NaN if there are no records
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the maximum, or NaN if there are no records
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return the average, or NaN if there are no records
+     */
+    public double getAverage() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the stats of the union of both record sets.
+     */
+    public MeasureStats merge(MeasureStats other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            return other;
+        }
+        return new MeasureStats(count + other.count, sum + other.sum,
+            Math.min(min, other.min), Math.max(max, other.max));
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max;
+    }
+}
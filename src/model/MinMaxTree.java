@@ -0,0 +1,143 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Append-only segment tree that finds the position of the minimum and the
+ * maximum value in any range of positions in O(log n).
+ *
+ * Leaves hold positions of values; every inner node holds the position of the
+ * smallest (resp. largest) value below it. Appending replays one path to the
+ * root, and the tree doubles its capacity when full. On ties the lower
+ * position wins.
+ *
+ * Appending never rewrites a node that only covers earlier positions, and
+ * growing allocates new arrays, so a {@link #snapshot()} can share the arrays.
+ */
+class MinMaxTree {
+    private static final int NONE = -1;
+
+    private double[] values;
+    private int[] minPositions;
+    private int[] maxPositions;
+    private int capacity;
+    private int size;
+
+    MinMaxTree(int capacity) {
+        this.capacity = Math.max(1, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        this.values = new double[this.capacity];
+        this.minPositions = new int[2 * this.capacity];
+        this.maxPositions = new int[2 * this.capacity];
+        Arrays.fill(minPositions, NONE);
+        Arrays.fill(maxPositions, NONE);
+    }
+
+    private MinMaxTree(MinMaxTree tree) {
+        this.values = tree.values;
+        this.minPositions = tree.minPositions;
+        this.maxPositions = tree.maxPositions;
+        this.capacity = tree.capacity;
+        this.size = tree.size;
+    }
+
+    /**
+     * Returns a view of the values appended so far, in O(1). It must not be
+     * appended to; this tree may be, also while the view is read.
+     */
+    MinMaxTree snapshot() {
+        return new MinMaxTree(this);
+    }
+
+    int size() {
+        return size;
+    }
+
+    double value(int position) {
+        return values[position];
+    }
+
+    void append(double value) {
+        if (size == capacity) {
+            grow();
+        }
+        int position = size++;
+        values[position] = value;
+        int node = capacity + position;
+        minPositions[node] = position;
+        maxPositions[node] = position;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            minPositions[node] = lower(minPositions[2 * node], minPositions[2 * node + 1]);
+            maxPositions[node] = higher(maxPositions[2 * node], maxPositions[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Returns the position of the smallest value in {@code [from, to)}, or -1 if the range is empty.
+     */
+    int minPosition(int from, int to) {
+        int best = NONE;
+        for (int left = from + capacity, right = to + capacity; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                best = lower(best, minPositions[left++]);
+            }
+            if ((right & 1) == 1) {
+                best = lower(best, minPositions[--right]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the position of the largest value in {@code [from, to)}, or -1 if the range is empty.
+     */
+    int maxPosition(int from, int to) {
+        int best = NONE;
+        for (int left = from + capacity, right = to + capacity; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                best = higher(best, maxPositions[left++]);
+            }
+            if ((right & 1) == 1) {
+                best = higher(best, maxPositions[--right]);
+            }
+        }
+        return best;
+    }
+
+    private int lower(int a, int b) {
+        if (a == NONE || b == NONE) {
+            return a == NONE ? b : a;
+        }
+        double x = values[a];
+        double y = values[b];
+        return x < y || (x == y && a < b) ? a : b;
+    }
+
+    private int higher(int a, int b) {
+        if (a == NONE || b == NONE) {
+            return a == NONE ? b : a;
+        }
+        double x = values[a];
+        double y = values[b];
+        return x > y || (x == y && a < b) ? a : b;
+    }
+
+    private void grow() {
+        int newCapacity = capacity * 2;
+        values = Arrays.copyOf(values, newCapacity);
+        int[] newMins = new int[2 * newCapacity];
+        int[] newMaxs = new int[2 * newCapacity];
+        Arrays.fill(newMins, NONE);
+        Arrays.fill(newMaxs, NONE);
+        minPositions = newMins;
+        maxPositions = newMaxs;
+        capacity = newCapacity;
+        for (int i = 0; i < size; i++) {
+            minPositions[capacity + i] = i;
+            maxPositions[capacity + i] = i;
+        }
+        for (int node = capacity - 1; node >= 1; node--) {
+            minPositions[node] = lower(minPositions[2 * node], minPositions[2 * node + 1]);
+            maxPositions[node] = higher(maxPositions[2 * node], maxPositions[2 * node + 1]);
+        }
+    }
+}
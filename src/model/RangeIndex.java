@@ -0,0 +1,161 @@
+package model;
+
+import enums.WeatherMeasure;
+import java.util.Arrays;
+
+/**
+ * Answers count, sum, min and max of a measure over any date range of a
+ * {@link WeatherRecordStore} in O(log n), however long the history.
+ *
+ * Records are indexed in date order (stable, so records sharing a date keep
+ * their insertion order). A date range maps to a run of positions by binary
+ * search; sums come from prefix-sum arrays and extremes from one
+ * {@link MinMaxTree} per measure. Records appended in date order extend the
+ * index in O(log n); an earlier date makes {@link #canAppend(int)} false and
+ * the owner rebuilds the index instead. Appends only write past the indexed
+ * records or into new arrays, so a {@link #snapshot()} shares them.
+ */
+class RangeIndex {
+    private static final WeatherMeasure[] MEASURES = WeatherMeasure.values();
+
+    private int size;
+    private int[] days;
+    private int[] slots;
+    private final double[][] prefixSums = new double[MEASURES.length][];
+    private final MinMaxTree[] trees = new MinMaxTree[MEASURES.length];
+
+    private RangeIndex(int capacity) {
+        days = new int[Math.max(1, capacity)];
+        slots = new int[days.length];
+        for (int m = 0; m < MEASURES.length; m++) {
+            prefixSums[m] = new double[days.length + 1];
+            trees[m] = new MinMaxTree(days.length);
+        }
+    }
+
+    private RangeIndex(RangeIndex index) {
+        size = index.size;
+        days = index.days;
+        slots = index.slots;
+        for (int m = 0; m < MEASURES.length; m++) {
+            prefixSums[m] = index.prefixSums[m];
+            trees[m] = index.trees[m].snapshot();
+        }
+    }
+
+    /**
+     * Returns a view of the records indexed so far, in O(1). It must not be
+     * appended to; this index may be, also while the view is read.
+     */
+    RangeIndex snapshot() {
+        return new RangeIndex(this);
+    }
+
+    /**
+     * Returns the number of indexed records.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Builds an index over the uncompressed records of a store; compressed
+     * history answers from the stats of its blocks instead.
+     */
+    static RangeIndex build(WeatherRecordStore store) {
+        int first = store.getCompressedCount();
+        int size = store.size() - first;
+        RangeIndex index = new RangeIndex(size);
+        if (store.isSortedByDate()) {
+            for (int slot = first; slot < store.size(); slot++) {
+                index.append(store, slot);
+            }
+            return index;
+        }
+
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) store.getEpochDay(first + i) << 32) | (first + i);
+        }
+        Arrays.sort(keys);
+        for (long key : keys) {
+            index.append(store, (int) key);
+        }
+        return index;
+    }
+
+    /**
+     * Returns true if a record on {@code epochDay} can be appended, i.e. it is
+     * not earlier than any indexed record.
+     */
+    boolean canAppend(int epochDay) {
+        return size == 0 || epochDay >= days[size - 1];
+    }
+
+    /**
+     * Indexes the record in a slot of the store; its date must pass {@link #canAppend(int)}.
+     */
+    void append(WeatherRecordStore store, int slot) {
+        if (size == days.length) {
+            int newCapacity = days.length * 2;
+            days = Arrays.copyOf(days, newCapacity);
+            slots = Arrays.copyOf(slots, newCapacity);
+            for (int m = 0; m < MEASURES.length; m++) {
+                prefixSums[m] = Arrays.copyOf(prefixSums[m], newCapacity + 1);
+            }
+        }
+        days[size] = store.getEpochDay(slot);
+        slots[size] = slot;
+        appendValue(WeatherMeasure.TEMPERATURE, store.getTemperature(slot));
+        appendValue(WeatherMeasure.HUMIDITY, store.getHumidity(slot));
+        appendValue(WeatherMeasure.WIND, store.getWindSpeed(slot));
+        size++;
+    }
+
+    private void appendValue(WeatherMeasure measure, double value) {
+        int m = measure.ordinal();
+        prefixSums[m][size + 1] = prefixSums[m][size] + value;
+        trees[m].append(value);
+    }
+
+    /**
+     * Returns the stats of a measure between two epoch days, both inclusive.
+     */
+    MeasureStats stats(WeatherMeasure measure, int fromDay, int toDay) {
+        int from = firstPosition(fromDay);
+        int to = endPosition(toDay);
+        if (from >= to) {
+            return MeasureStats.EMPTY;
+        }
+        int m = measure.ordinal();
+        MinMaxTree tree = trees[m];
+        return new MeasureStats(to - from, prefixSums[m][to] - prefixSums[m][from],
+            tree.value(tree.minPosition(from, to)), tree.value(tree.maxPosition(from, to)));
+    }
+
+    /**
+     * Returns the store slot of the earliest record with the lowest value of a
+     * measure between two epoch days, both inclusive, or -1 if there is none.
+     */
+    int slotOfMin(WeatherMeasure measure, int fromDay, int toDay) {
+        int position = trees[measure.ordinal()].minPosition(firstPosition(fromDay), endPosition(toDay));
+        return position < 0 ? -1 : slots[position];
+    }
+
+    /**
+     * Returns the store slot of the earliest record with the highest value of a
+     * measure between two epoch days, both inclusive, or -1 if there is none.
+     */
+    int slotOfMax(WeatherMeasure measure, int fromDay, int toDay) {
+        int position = trees[measure.ordinal()].maxPosition(firstPosition(fromDay), endPosition(toDay));
+        return position < 0 ? -1 : slots[position];
+    }
+
+    private int firstPosition(int fromDay) {
+        return DateIndex.lowerBound(days, size, fromDay);
+    }
+
+    private int endPosition(int toDay) {
+        return toDay == Integer.MAX_VALUE ? size : DateIndex.lowerBound(days, size, toDay + 1);
+    }
+}
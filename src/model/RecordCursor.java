@@ -0,0 +1,96 @@
+package model;
+
+import enums.WeatherCondition;
+import enums.WeatherMeasure;
+
+/**
+ * Walks the records of a {@link WeatherRecordStore} in slot order, decoding
+ * each compressed block once into buffers of its own. Meant for full scans;
+ * the store's slot getters suit random access.
+ *
+ * <pre>
+ * RecordCursor cursor = store.cursor();
+ * while (cursor.next()) {
+ *     sum += cursor.getTemperature();
+ * }
+ * </pre>
+ *
+ * A cursor sees the records the store had when it was created.
+ */
+public class RecordCursor {
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+
+    private final WeatherRecordStore store;
+    private final int size;
+    private final int compressedCount;
+    private CompressedBlock.Decoded decoded;
+    private int[] days;
+    private double[] temperatures;
+    private double[] humidities;
+    private double[] windSpeeds;
+    private byte[] conditions;
+    private int slot = -1;
+    private int offset;
+
+    RecordCursor(WeatherRecordStore store) {
+        this.store = store.snapshot();
+        this.size = store.size();
+        this.compressedCount = store.getCompressedCount();
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false once all records have been visited
+     */
+    public boolean next() {
+        if (slot + 1 >= size) {
+            slot = size;
+            return false;
+        }
+        slot++;
+        if (slot < compressedCount) {
+            offset = slot & CompressedBlock.MASK;
+            if (offset == 0) {
+                if (decoded == null) {
+                    decoded = new CompressedBlock.Decoded();
+                }
+                decoded.load(store.getCompressedBlock(slot >> CompressedBlock.SHIFT));
+                days = decoded.days();
+                temperatures = decoded.values(WeatherMeasure.TEMPERATURE);
+                humidities = decoded.values(WeatherMeasure.HUMIDITY);
+                windSpeeds = decoded.values(WeatherMeasure.WIND);
+                conditions = decoded.conditions();
+            }
+        }
+        return true;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getEpochDay() {
+        return slot < compressedCount ? days[offset] : store.getEpochDay(slot);
+    }
+
+    public double getTemperature() {
+        return slot < compressedCount ? temperatures[offset] : store.getTemperature(slot);
+    }
+
+    public double getHumidity() {
+        return slot < compressedCount ? humidities[offset] : store.getHumidity(slot);
+    }
+
+    public double getWindSpeed() {
+        return slot < compressedCount ? windSpeeds[offset] : store.getWindSpeed(slot);
+    }
+
+    public byte getWeatherConditionOrdinal() {
+        return slot < compressedCount ? conditions[offset] : store.getWeatherConditionOrdinal(slot);
+    }
+
+    public WeatherCondition getWeatherCondition() {
+        return CONDITIONS[getWeatherConditionOrdinal()];
+    }
+}
@@ -1,13 +1,24 @@
 package model;
+import enums.Aggregation;
+import enums.LatencyMetric;
+import enums.RankDirection;
+import enums.WeatherMeasure;
 import enums.WeatherStatKey;
 import java.time.Month;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import metrics.Metrics;
 
 public class StatCalculator {
+    private static final Map<WeatherStatKey, StatQuery> QUERIES = new EnumMap<>(WeatherStatKey.class);
+
+    static {
+        for (WeatherStatKey key : WeatherStatKey.values()) {
+            QUERIES.put(key, createQuery(key));
+        }
+    }
 
     /**
      * Computes weather statistics for a list of valid cities.
@@ -16,60 +27,86 @@ public class StatCalculator {
      * @return a populated and valid WeatherStats object
      */
     public static WeatherStats calculate(List<City> cities) {
-        Map<WeatherStatKey, String> statMap = new EnumMap<>(WeatherStatKey.class);
-
-        // Filter only valid cities
-        List<City> validCities = cities.stream()
-            .filter(City::isValidCity)
-            .toList();
+        return calculate(cities, 1);
+    }
 
-        // Highest average temperature
-        statMap.put(WeatherStatKey.HIGHEST_AVG_TEMP,
-            cityWithExtreme(validCities, Comparator.comparingDouble(City::calculateAverageTemperature)));
+    /**
+     * Computes weather statistics for a list of valid cities, ranking the best
+     * {@code topK} cities of each statistic.
+     *
+     * Every {@link WeatherStatKey} is a {@link StatQuery}, and all of them run as
+     * one batch through the {@link StatQueryEngine}.
+     *
+     * @param cities the list of City objects
+     * @param topK   the number of cities to rank per statistic, ties included
+     * @return a populated and valid WeatherStats object with rankings
+     */
+    public static WeatherStats calculate(List<City> cities, int topK) {
+        long start = System.nanoTime();
+        WeatherStatKey[] keys = WeatherStatKey.values();
+        List<StatQuery> queries = new ArrayList<>(keys.length);
+        for (WeatherStatKey key : keys) {
+            queries.add(queryFor(key).limit(topK));
+        }
+        List<StatResult> results = StatQueryEngine.execute(cities, queries);
 
-        // Lowest average temperature
-        statMap.put(WeatherStatKey.LOWEST_AVG_TEMP,
-            cityWithExtreme(validCities, Comparator.comparingDouble(City::calculateAverageTemperature).reversed()));
+        Map<WeatherStatKey, String> statMap = new EnumMap<>(WeatherStatKey.class);
+        for (int i = 0; i < keys.length; i++) {
+            statMap.put(keys[i], results.get(i).getLeader());
+        }
 
-        // Lowest temperature in January
-        statMap.put(WeatherStatKey.LOWEST_TEMP_IN_JANUARY,
-            cityWithExtreme(validCities, c -> c.getLowestTemperatureInMonth(Month.JANUARY), Comparator.naturalOrder()));
+        WeatherStats stats = new WeatherStats(statMap);
+        for (int i = 0; i < keys.length; i++) {
+            stats.setRanking(keys[i], results.get(i));
+        }
+        Metrics.recordSince(LatencyMetric.STAT_CALCULATION, start);
+        return stats;
+    }
 
-        // Highest average humidity in May
-        statMap.put(WeatherStatKey.HIGHEST_AVG_HUMIDITY_IN_MAY,
-            cityWithExtreme(validCities, c -> c.calculateAverageHumidityInMonth(Month.MAY), Comparator.reverseOrder()));
+    /**
+     * Computes weather statistics over the cities of a snapshot. Records
+     * appended while this runs are not seen, so every statistic describes the
+     * same point in time.
+     *
+     * @param snapshot the cities, e.g. {@link WeatherDataManager#getSnapshot()}
+     * @param topK     the number of cities to rank per statistic, ties included
+     */
+    public static WeatherStats calculate(WeatherSnapshot snapshot, int topK) {
+        return calculate(snapshot.getCities(), topK);
+    }
 
-        // Highest average wind speed in April
-        statMap.put(WeatherStatKey.HIGHEST_AVG_WIND_SPEED_IN_APRIL,
-            cityWithExtreme(validCities, c -> c.calculateAverageWindSpeedInMonth(Month.APRIL), Comparator.reverseOrder()));
+    /**
+     * Returns the query that answers a statistic.
+     */
+    public static StatQuery queryFor(WeatherStatKey key) {
+        return QUERIES.get(key);
+    }
 
-        WeatherStats stats = new WeatherStats(statMap);
-        return stats;
+    private static StatQuery createQuery(WeatherStatKey key) {
+        return switch (key) {
+            case HIGHEST_AVG_TEMP -> new StatQuery(WeatherMeasure.TEMPERATURE, Aggregation.AVG, RankDirection.HIGHEST);
+            case LOWEST_AVG_TEMP -> new StatQuery(WeatherMeasure.TEMPERATURE, Aggregation.AVG, RankDirection.LOWEST);
+            case LOWEST_TEMP_IN_JANUARY -> new StatQuery(WeatherMeasure.TEMPERATURE, Aggregation.MIN, RankDirection.LOWEST)
+                .in(Month.JANUARY);
+            case HIGHEST_AVG_HUMIDITY_IN_MAY -> new StatQuery(WeatherMeasure.HUMIDITY, Aggregation.AVG, RankDirection.HIGHEST)
+                .in(Month.MAY);
+            case HIGHEST_AVG_WIND_SPEED_IN_APRIL -> new StatQuery(WeatherMeasure.WIND, Aggregation.AVG, RankDirection.HIGHEST)
+                .in(Month.APRIL);
+        };
     }
 
     /**
-     * Returns the name of the city with the extreme (max/min) value based on the provided comparator.
-     * This overload uses a method reference (like average temperature).
+     * Returns the value of a statistic for one city, or NaN if the city has no
+     * records for it.
      */
-    private static String cityWithExtreme(List<City> cities, Comparator<City> comparator) {
-        return cities.stream()
-            .min(comparator)
-            .map(City::getName)
-            .orElse("N/A");
+    static double metric(WeatherStatKey key, WeatherAggregates aggregates) {
+        return StatQueryEngine.evaluate(queryFor(key), aggregates);
     }
 
     /**
-     * Returns the name of the city with the extreme (max/min) value based on a double-producing function.
-     * This overload allows comparison by extracted values (e.g., temperature in a specific month).
+     * Returns true if the statistic is won by the largest value, false if by the smallest.
      */
-    private static String cityWithExtreme(List<City> cities,
-                                          Function<City, Double> valueExtractor,
-                                          Comparator<Double> comparator) {
-        return cities.stream()
-            .map(city -> Map.entry(city.getName(), valueExtractor.apply(city)))
-            .filter(entry -> !entry.getValue().isNaN())
-            .min(Map.Entry.comparingByValue(comparator))
-            .map(Map.Entry::getKey)
-            .orElse("N/A");
+    static boolean prefersHighest(WeatherStatKey key) {
+        return queryFor(key).getDirection() == RankDirection.HIGHEST;
     }
 }
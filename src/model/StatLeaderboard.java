@@ -0,0 +1,145 @@
+package model;
+
+import enums.WeatherStatKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import listener.CityRecordListener;
+
+/**
+ * Keeps the leading city of every {@link WeatherStatKey} up to date while
+ * records arrive.
+ *
+ * The board listens to each City it tracks. When a city gets new records, its
+ * metrics are re-read from the city's {@link WeatherAggregates} in O(1) and
+ * replayed through one {@link TournamentTree} per statistic in O(log n), so the
+ * leaders are always current without rescanning any history. Cities may
+ * report new records from several threads at once.
+ *
+ * A board that does not listen is updated explicitly instead, e.g. by a
+ * {@link WeatherDataManager} with the cities of each commit, so its leaders
+ * never include uncommitted records.
+ */
+public class StatLeaderboard implements CityRecordListener {
+    private final List<City> cities = new ArrayList<>();
+    private final Map<City, Integer> positions = new IdentityHashMap<>();
+    private final Map<WeatherStatKey, TournamentTree> trees = new EnumMap<>(WeatherStatKey.class);
+    private final boolean listening;
+
+    /**
+     * Creates a leaderboard over the valid cities of a list.
+     *
+     * @param cities the cities to track
+     */
+    public StatLeaderboard(List<City> cities) {
+        this(cities, true);
+    }
+
+    /**
+     * @param cities    the cities to track
+     * @param listening false to take new records only through {@link #update}
+     */
+    StatLeaderboard(List<City> cities, boolean listening) {
+        this.listening = listening;
+        for (WeatherStatKey key : WeatherStatKey.values()) {
+            trees.put(key, new TournamentTree(StatCalculator.prefersHighest(key)));
+        }
+        for (City city : cities) {
+            addCity(city);
+        }
+    }
+
+    /**
+     * Starts tracking a city. Invalid or already tracked cities are ignored.
+     *
+     * @param city the city to track
+     */
+    public synchronized void addCity(City city) {
+        if (!city.isValidCity() || positions.containsKey(city)) {
+            return;
+        }
+        positions.put(city, cities.size());
+        cities.add(city);
+        for (Map.Entry<WeatherStatKey, TournamentTree> entry : trees.entrySet()) {
+            entry.getValue().add(StatCalculator.metric(entry.getKey(), city.getAggregates()));
+        }
+        if (listening) {
+            city.addRecordListener(this);
+        }
+    }
+
+    @Override
+    public void onRecordsAdded(City city) {
+        update(city, city.getAggregates());
+    }
+
+    /**
+     * Re-reads the metrics of a tracked city. Untracked cities are ignored.
+     *
+     * @param city       the tracked city
+     * @param aggregates its aggregates, e.g. those of a snapshot of it
+     */
+    synchronized void update(City city, WeatherAggregates aggregates) {
+        Integer position = positions.get(city);
+        if (position == null) {
+            return;
+        }
+        for (Map.Entry<WeatherStatKey, TournamentTree> entry : trees.entrySet()) {
+            entry.getValue().set(position, StatCalculator.metric(entry.getKey(), aggregates));
+        }
+    }
+
+    /**
+     * Returns the name of the city currently leading a statistic.
+     *
+     * @param key the statistic
+     * @return the city name, or "N/A" if no city has data for it
+     */
+    public synchronized String getLeader(WeatherStatKey key) {
+        int winner = trees.get(key).winner();
+        return winner < 0 ? "N/A" : cities.get(winner).getName();
+    }
+
+    /**
+     * Returns the current leaders of all statistics. Each ranking holds the
+     * leader only; use {@link StatCalculator#calculate(List, int)} for deeper ones.
+     *
+     * @return a populated and valid WeatherStats object
+     */
+    public WeatherStats getStats() {
+        return toStats(getRankings());
+    }
+
+    /**
+     * Returns the current leader of every statistic as an immutable map; each
+     * ranking holds the leader only, or nothing if no city has data for it.
+     */
+    synchronized Map<WeatherStatKey, StatResult> getRankings() {
+        Map<WeatherStatKey, StatResult> rankings = new EnumMap<>(WeatherStatKey.class);
+        for (Map.Entry<WeatherStatKey, TournamentTree> entry : trees.entrySet()) {
+            TournamentTree tree = entry.getValue();
+            int winner = tree.winner();
+            List<StatResult.Entry> leaders = winner < 0
+                ? List.of()
+                : List.of(new StatResult.Entry(cities.get(winner).getName(), tree.value(winner), 1));
+            rankings.put(entry.getKey(), new StatResult(StatCalculator.queryFor(entry.getKey()), leaders));
+        }
+        return Collections.unmodifiableMap(rankings);
+    }
+
+    /**
+     * Builds a fresh WeatherStats from the rankings of {@link #getRankings()}.
+     */
+    static WeatherStats toStats(Map<WeatherStatKey, StatResult> rankings) {
+        Map<WeatherStatKey, String> statMap = new EnumMap<>(WeatherStatKey.class);
+        for (Map.Entry<WeatherStatKey, StatResult> entry : rankings.entrySet()) {
+            statMap.put(entry.getKey(), entry.getValue().getLeader());
+        }
+        WeatherStats stats = new WeatherStats(statMap);
+        rankings.forEach(stats::setRanking);
+        return stats;
+    }
+}
@@ -0,0 +1,154 @@
+package model;
+
+import enums.Aggregation;
+import enums.RankDirection;
+import enums.WeatherMeasure;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Describes one ranking question over the cities, e.g. "the 3 cities with the
+ * highest average wind speed in April".
+ *
+ * A query aggregates a {@link WeatherMeasure} per city over a time window, keeps
+ * the cities accepted by its filter and ranks them in a {@link RankDirection},
+ * returning the best {@code limit} of them (plus any tied with the last, see
+ * {@link StatResult}). The time window is either all
+ * records, a month of the year (matched across years, like
+ * {@link WeatherAggregates}) or an inclusive date range.
+ *
+ * Queries are immutable; the {@code in}, {@code between}, {@code where} and
+ * {@code limit} methods return modified copies. Run them through
+ * {@link StatQueryEngine}.
+ */
+public class StatQuery {
+    private static final Predicate<City> ALL_CITIES = city -> true;
+
+    private final WeatherMeasure measure;
+    private final Aggregation aggregation;
+    private final RankDirection direction;
+    private final Month month;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Predicate<City> cityFilter;
+    private final int limit;
+
+    /**
+     * Creates a query over all records of all cities that returns the first city only.
+     *
+     * @param measure     the measure to aggregate; ignored by {@link Aggregation#COUNT}
+     * @param aggregation how the measure is aggregated per city
+     * @param direction   whether the highest or lowest value ranks first
+     */
+    public StatQuery(WeatherMeasure measure, Aggregation aggregation, RankDirection direction) {
+        this(measure, aggregation, direction, null, null, null, ALL_CITIES, 1);
+    }
+
+    private StatQuery(WeatherMeasure measure, Aggregation aggregation, RankDirection direction,
+                      Month month, LocalDate from, LocalDate to, Predicate<City> cityFilter, int limit) {
+        this.measure = Objects.requireNonNull(measure, "measure");
+        this.aggregation = Objects.requireNonNull(aggregation, "aggregation");
+        this.direction = Objects.requireNonNull(direction, "direction");
+        this.month = month;
+        this.from = from;
+        this.to = to;
+        this.cityFilter = Objects.requireNonNull(cityFilter, "cityFilter");
+        this.limit = limit;
+    }
+
+    /**
+     * Returns a copy restricted to the records of a month of the year.
+     */
+    public StatQuery in(Month month) {
+        return new StatQuery(measure, aggregation, direction, Objects.requireNonNull(month, "month"),
+            null, null, cityFilter, limit);
+    }
+
+    /**
+     * Returns a copy restricted to the records between two dates, both inclusive.
+     */
+    public StatQuery between(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date " + from + " is after end date " + to);
+        }
+        return new StatQuery(measure, aggregation, direction, null, from, to, cityFilter, limit);
+    }
+
+    /**
+     * Returns a copy that only ranks the cities accepted by a filter.
+     */
+    public StatQuery where(Predicate<City> cityFilter) {
+        return new StatQuery(measure, aggregation, direction, month, from, to, cityFilter, limit);
+    }
+
+    /**
+     * Returns a copy that returns the best {@code limit} cities and their ties.
+     */
+    public StatQuery limit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        return new StatQuery(measure, aggregation, direction, month, from, to, cityFilter, limit);
+    }
+
+    public WeatherMeasure getMeasure() {
+        return measure;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    public RankDirection getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the month of the year the query is restricted to, or null
+     */
+    public Month getMonth() {
+        return month;
+    }
+
+    /**
+     * @return the first date of the query's date range, or null if it has none
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the last date of the query's date range, or null if it has none
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Predicate<City> getCityFilter() {
+        return cityFilter;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns true if the query is restricted to a date range. Such queries
+     * are answered from the {@link CalendarRollup} of each city, all others
+     * from its {@link WeatherAggregates}.
+     */
+    public boolean hasDateRange() {
+        return from != null;
+    }
+
+    @Override
+    public String toString() {
+        String window = hasDateRange() ? " from " + from + " to " + to
+            : month != null ? " in " + month
+            : "";
+        String subject = aggregation == Aggregation.COUNT ? aggregation.toString() : aggregation + " " + measure;
+        return direction + " " + subject + window + " (top " + limit + ")";
+    }
+}
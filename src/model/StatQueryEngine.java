@@ -0,0 +1,197 @@
+package model;
+
+import enums.Aggregation;
+import enums.RankDirection;
+import enums.WeatherMeasure;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import metrics.StatBatchEvent;
+import metrics.StatMetricEvent;
+
+/**
+ * Runs batches of {@link StatQuery} over a list of cities.
+ *
+ * A batch is planned before anything is read. Queries over all records or a
+ * month of the year are answered from each city's {@link WeatherAggregates} in
+ * O(1). Queries over date ranges are grouped by distinct range, and each range
+ * is read once per city and measure from the city's {@link CalendarRollup},
+ * whose day, week, month and year cells cover it without touching individual
+ * records. So a dashboard of dozens of metrics costs a handful of cell reads
+ * per city, not one pass over the records per metric.
+ */
+public class StatQueryEngine {
+    private static final WeatherMeasure[] MEASURES = WeatherMeasure.values();
+
+    /**
+     * Runs a single query.
+     */
+    public static StatResult execute(List<City> cities, StatQuery query) {
+        return execute(cities, List.of(query)).get(0);
+    }
+
+    /**
+     * Runs a batch of queries over the valid cities of a list.
+     *
+     * @param cities  the cities to rank
+     * @param queries the queries to answer
+     * @return one result per query, in the order of {@code queries}
+     */
+    public static List<StatResult> execute(List<City> cities, List<StatQuery> queries) {
+        StatBatchEvent batchEvent = new StatBatchEvent();
+        batchEvent.begin();
+        List<City> validCities = cities.stream()
+            .filter(City::isValidCity)
+            .toList();
+        int cityCount = validCities.size();
+
+        // Plan: one window per distinct date range
+        Map<List<LocalDate>, Integer> windowsByRange = new HashMap<>();
+        int[] windowOf = new int[queries.size()];
+        for (int q = 0; q < queries.size(); q++) {
+            StatQuery query = queries.get(q);
+            if (!query.hasDateRange()) {
+                windowOf[q] = -1;
+                continue;
+            }
+            windowOf[q] = windowsByRange.computeIfAbsent(List.of(query.getFrom(), query.getTo()),
+                range -> windowsByRange.size());
+        }
+
+        // Execute: aggregates or rollup cells, each range and measure read once per city
+        double[][] values = new double[queries.size()][cityCount];
+        MeasureStats[] rangeStats = new MeasureStats[windowsByRange.size() * MEASURES.length];
+        for (int c = 0; c < cityCount; c++) {
+            City city = validCities.get(c);
+            Arrays.fill(rangeStats, null);
+            for (int q = 0; q < queries.size(); q++) {
+                StatQuery query = queries.get(q);
+                if (!query.getCityFilter().test(city)) {
+                    values[q][c] = Double.NaN;
+                } else if (windowOf[q] < 0) {
+                    values[q][c] = evaluate(query, city.getAggregates());
+                } else {
+                    int i = windowOf[q] * MEASURES.length + query.getMeasure().ordinal();
+                    if (rangeStats[i] == null) {
+                        rangeStats[i] = city.getRollup().aggregate(query.getMeasure(), query.getFrom(), query.getTo());
+                    }
+                    values[q][c] = evaluate(query.getAggregation(), rangeStats[i]);
+                }
+            }
+        }
+
+        List<StatResult> results = new ArrayList<>(queries.size());
+        for (int q = 0; q < queries.size(); q++) {
+            StatMetricEvent event = new StatMetricEvent();
+            event.begin();
+            StatResult result = rank(queries.get(q), validCities, values[q]);
+            results.add(result);
+            event.end();
+            if (event.shouldCommit()) {
+                describe(event, result, cityCount);
+                event.commit();
+            }
+        }
+
+        batchEvent.end();
+        if (batchEvent.shouldCommit()) {
+            batchEvent.queries = queries.size();
+            batchEvent.cities = cityCount;
+            batchEvent.dateRanges = windowsByRange.size();
+            batchEvent.commit();
+        }
+        return results;
+    }
+
+    private static void describe(StatMetricEvent event, StatResult result, int cityCount) {
+        StatQuery query = result.getQuery();
+        event.query = query.toString();
+        event.from = query.getFrom() == null ? null : query.getFrom().toString();
+        event.to = query.getTo() == null ? null : query.getTo().toString();
+        event.cities = cityCount;
+        event.ranked = result.getEntries().size();
+        if (!result.getEntries().isEmpty()) {
+            event.leader = result.getEntries().get(0).getCityName();
+            event.leaderValue = result.getEntries().get(0).getValue();
+        } else {
+            event.leaderValue = Double.NaN;
+        }
+    }
+
+    /**
+     * Answers a query without a date range for one city from its aggregates.
+     *
+     * @return the value, or NaN if the city has no records in the query's window
+     *         (except for {@link Aggregation#COUNT}, which is then 0)
+     */
+    static double evaluate(StatQuery query, WeatherAggregates aggregates) {
+        if (query.hasDateRange()) {
+            throw new IllegalArgumentException("Only queries without a date range are answered from aggregates: " + query);
+        }
+        WeatherMeasure measure = query.getMeasure();
+        Month month = query.getMonth();
+        long count = month == null ? aggregates.getCount() : aggregates.getCount(month);
+        if (query.getAggregation() == Aggregation.COUNT) {
+            return count;
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return switch (query.getAggregation()) {
+            case COUNT -> count;
+            case SUM -> month == null ? aggregates.getSum(measure) : aggregates.getSum(measure, month);
+            case AVG -> month == null ? aggregates.getAverage(measure) : aggregates.getAverage(measure, month);
+            case MIN -> month == null ? aggregates.getMin(measure) : aggregates.getMin(measure, month);
+            case MAX -> month == null ? aggregates.getMax(measure) : aggregates.getMax(measure, month);
+        };
+    }
+
+    /**
+     * Selects the best cities of a query from their values, extended by any
+     * city tied with the last one selected.
+     */
+    private static StatResult rank(StatQuery query, List<City> cities, double[] values) {
+        boolean highest = query.getDirection() == RankDirection.HIGHEST;
+        int[] selected = TopK.select(values, query.getLimit(), highest);
+
+        List<StatResult.Entry> entries = new ArrayList<>(selected.length);
+        int rank = 0;
+        for (int i = 0; i < selected.length; i++) {
+            double value = values[selected[i]];
+            if (i == 0 || value != values[selected[i - 1]]) {
+                rank = i + 1;
+            }
+            entries.add(new StatResult.Entry(cities.get(selected[i]).getName(), value, rank));
+        }
+
+        if (selected.length == query.getLimit()) {
+            // Ties go to the lower index, so the rest of the last tie group
+            // comes after the last selected city
+            int last = selected[selected.length - 1];
+            for (int c = last + 1; c < values.length; c++) {
+                if (values[c] == values[last]) {
+                    entries.add(new StatResult.Entry(cities.get(c).getName(), values[c], rank));
+                }
+            }
+        }
+        return new StatResult(query, entries);
+    }
+
+    /**
+     * Returns an aggregation of a measure's stats, or NaN if they cover no
+     * records (except for {@link Aggregation#COUNT}, which is then 0).
+     */
+    private static double evaluate(Aggregation aggregation, MeasureStats stats) {
+        return switch (aggregation) {
+            case COUNT -> stats.getCount();
+            case SUM -> stats.isEmpty() ? Double.NaN : stats.getSum();
+            case AVG -> stats.getAverage();
+            case MIN -> stats.getMin();
+            case MAX -> stats.getMax();
+        };
+    }
+}
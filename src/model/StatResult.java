@@ -0,0 +1,94 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ranked answer to a {@link StatQuery}: the cities with a value for the
+ * query, best first.
+ *
+ * It holds the best {@link StatQuery#getLimit()} cities plus any city tied with
+ * the last of them, so a tie group is never cut in half. Tied cities share a
+ * rank ("1, 2, 2, 4") and appear in the order of the city list.
+ */
+public class StatResult {
+    private final StatQuery query;
+    private final List<Entry> entries;
+
+    public StatResult(StatQuery query, List<Entry> entries) {
+        this.query = query;
+        this.entries = List.copyOf(entries);
+    }
+
+    public StatQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the ranked cities, best first; empty if no city has a value
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the name of the first-ranked city, or "N/A" if no city has a value
+     */
+    public String getLeader() {
+        return entries.isEmpty() ? "N/A" : entries.get(0).getCityName();
+    }
+
+    /**
+     * Returns the entries grouped by rank, best group first. A group holds more
+     * than one entry only when cities are tied.
+     */
+    public List<List<Entry>> getTieGroups() {
+        List<List<Entry>> groups = new ArrayList<>();
+        List<Entry> group = null;
+        for (Entry entry : entries) {
+            if (group == null || group.get(0).getRank() != entry.getRank()) {
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+            group.add(entry);
+        }
+        return groups;
+    }
+
+    /**
+     * One ranked city and its value for the query.
+     */
+    public static class Entry {
+        private final String cityName;
+        private final double value;
+        private final int rank;
+
+        /**
+         * @param cityName the name of the city
+         * @param value    the city's value for the query
+         * @param rank     1 for the best value; tied entries share a rank
+         */
+        public Entry(String cityName, double value, int rank) {
+            this.cityName = cityName;
+            this.value = value;
+            this.rank = rank;
+        }
+
+        public String getCityName() {
+            return cityName;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            return rank + ". " + cityName + "=" + value;
+        }
+    }
+}
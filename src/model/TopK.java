@@ -0,0 +1,95 @@
+package model;
+
+/**
+ * Selects the best {@code k} entries of a primitive array with a bounded heap,
+ * in O(n log k) time and O(k) extra space.
+ *
+ * NaN marks an entry without a value and is never selected. On equal values
+ * the lower index ranks first, so the result matches a stable sort.
+ */
+final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * Returns the indices of the best {@code k} values, best first.
+     *
+     * @param values  the values to rank
+     * @param k       the maximum number of indices to return
+     * @param highest true if larger values rank first, false if smaller ones do
+     */
+    static int[] select(double[] values, int k, boolean highest) {
+        // Max-heap on "worse", so the root is the weakest entry kept so far
+        int[] heap = new int[Math.min(k, values.length)];
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (Double.isNaN(values[i])) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = i;
+                siftUp(heap, size++, values, highest);
+            } else if (size > 0 && ranksBefore(i, heap[0], values, highest)) {
+                heap[0] = i;
+                siftDown(heap, size, values, highest);
+            }
+        }
+
+        int[] selected = new int[size];
+        for (int position = size - 1; position >= 0; position--) {
+            selected[position] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, values, highest);
+        }
+        return selected;
+    }
+
+    /**
+     * Returns true if entry {@code a} ranks before entry {@code b}.
+     */
+    static boolean ranksBefore(int a, int b, double[] values, boolean highest) {
+        double x = values[a];
+        double y = values[b];
+        if (x == y) {
+            return a < b;
+        }
+        return highest ? x > y : x < y;
+    }
+
+    private static void siftUp(int[] heap, int position, double[] values, boolean highest) {
+        int entry = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!ranksBefore(heap[parent], entry, values, highest)) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = entry;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] values, boolean highest) {
+        if (size == 0) {
+            return;
+        }
+        int entry = heap[0];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksBefore(heap[child], heap[child + 1], values, highest)) {
+                child++;
+            }
+            if (!ranksBefore(entry, heap[child], values, highest)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = entry;
+    }
+}
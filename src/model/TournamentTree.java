@@ -0,0 +1,104 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the winning entry among a set of double values, with O(log n) updates
+ * and O(1) access to the winner.
+ *
+ * Leaves hold the values; every inner node holds the index of the winning leaf
+ * below it. NaN marks an entry without a value and never wins. On ties the
+ * lower index wins, so the result matches a first-wins linear scan.
+ */
+class TournamentTree {
+    private static final int NONE = -1;
+
+    private final boolean highestWins;
+    private double[] values;
+    private int[] winners;
+    private int capacity;
+    private int size;
+
+    /**
+     * @param highestWins true if the largest value wins, false if the smallest
+     */
+    TournamentTree(boolean highestWins) {
+        this.highestWins = highestWins;
+        this.capacity = 1;
+        this.values = new double[] { Double.NaN };
+        this.winners = new int[] { NONE, NONE };
+        this.size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a new entry and returns its index.
+     */
+    int add(double value) {
+        if (size == capacity) {
+            grow();
+        }
+        int index = size++;
+        set(index, value);
+        return index;
+    }
+
+    /**
+     * Replaces the value of an entry and replays the matches on its path to the root.
+     */
+    void set(int index, double value) {
+        values[index] = value;
+        int node = capacity + index;
+        winners[node] = Double.isNaN(value) ? NONE : index;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            winners[node] = play(winners[2 * node], winners[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Returns the index of the winning entry, or -1 if no entry has a value.
+     */
+    int winner() {
+        return winners[1];
+    }
+
+    double value(int index) {
+        return values[index];
+    }
+
+    private int play(int left, int right) {
+        if (left == NONE) {
+            return right;
+        }
+        if (right == NONE) {
+            return left;
+        }
+        double a = values[left];
+        double b = values[right];
+        if (a == b) {
+            return Math.min(left, right);
+        }
+        return (highestWins ? a > b : a < b) ? left : right;
+    }
+
+    private void grow() {
+        int newCapacity = capacity * 2;
+        double[] newValues = Arrays.copyOf(values, newCapacity);
+        Arrays.fill(newValues, capacity, newCapacity, Double.NaN);
+        int[] newWinners = new int[2 * newCapacity];
+        Arrays.fill(newWinners, NONE);
+
+        values = newValues;
+        winners = newWinners;
+        capacity = newCapacity;
+        for (int i = 0; i < size; i++) {
+            winners[capacity + i] = Double.isNaN(values[i]) ? NONE : i;
+        }
+        for (int node = capacity - 1; node >= 1; node--) {
+            winners[node] = play(winners[2 * node], winners[2 * node + 1]);
+        }
+    }
+}
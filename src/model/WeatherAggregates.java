@@ -0,0 +1,207 @@
+package model;
+
+import enums.WeatherMeasure;
+import java.time.Month;
+import java.util.Arrays;
+import util.EpochDays;
+
+/**
+ * Count, sum, min, max and variance of every {@link WeatherMeasure}, per
+ * calendar month and over all records.
+ *
+ * Every update is O(1): the variance is kept with Welford's running mean and
+ * sum of squared deviations, so a City can maintain its aggregates as records
+ * arrive instead of rescanning its history.
+ *
+ * Months are matched by month-of-year, i.e. January 2024 and January 2025 fall
+ * into the same bucket, as in {@link City#getLowestTemperatureInMonth(Month)}.
+ */
+public class WeatherAggregates {
+    private static final int BUCKETS = 13; // 0 = all records, 1-12 = months
+    private static final int ALL = 0;
+    private static final WeatherMeasure[] MEASURES = WeatherMeasure.values();
+
+    private final long[] counts = new long[BUCKETS];
+    private final double[] sums = new double[MEASURES.length * BUCKETS];
+    private final double[] mins = new double[MEASURES.length * BUCKETS];
+    private final double[] maxs = new double[MEASURES.length * BUCKETS];
+    private final double[] means = new double[MEASURES.length * BUCKETS];
+    private final double[] squaredDeviations = new double[MEASURES.length * BUCKETS];
+
+    public WeatherAggregates() {
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+    }
+
+    // Copy Constructor
+    public WeatherAggregates(WeatherAggregates aggregates) {
+        System.arraycopy(aggregates.counts, 0, counts, 0, BUCKETS);
+        System.arraycopy(aggregates.sums, 0, sums, 0, sums.length);
+        System.arraycopy(aggregates.mins, 0, mins, 0, mins.length);
+        System.arraycopy(aggregates.maxs, 0, maxs, 0, maxs.length);
+        System.arraycopy(aggregates.means, 0, means, 0, means.length);
+        System.arraycopy(aggregates.squaredDeviations, 0, squaredDeviations, 0, squaredDeviations.length);
+    }
+
+    /**
+     * Aggregates all records of a store in one pass.
+     */
+    public static WeatherAggregates of(WeatherRecordStore store) {
+        WeatherAggregates aggregates = new WeatherAggregates();
+        RecordCursor cursor = store.cursor();
+        while (cursor.next()) {
+            aggregates.add(EpochDays.monthOf(cursor.getEpochDay()),
+                cursor.getTemperature(), cursor.getHumidity(), cursor.getWindSpeed());
+        }
+        return aggregates;
+    }
+
+    /**
+     * Adds one record.
+     *
+     * @param month the month of the record, 1-12
+     */
+    public void add(int month, double temperature, double humidity, double windSpeed) {
+        counts[ALL]++;
+        counts[month]++;
+        accumulate(WeatherMeasure.TEMPERATURE, month, temperature);
+        accumulate(WeatherMeasure.HUMIDITY, month, humidity);
+        accumulate(WeatherMeasure.WIND, month, windSpeed);
+    }
+
+    /**
+     * Merges another set of aggregates into this one, as if its records had been
+     * added here (Chan et al. parallel variance combination).
+     */
+    public void addAll(WeatherAggregates other) {
+        for (WeatherMeasure measure : MEASURES) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                long otherCount = other.counts[bucket];
+                if (otherCount == 0) {
+                    continue;
+                }
+                int i = index(measure, bucket);
+                long count = counts[bucket];
+                long total = count + otherCount;
+                double delta = other.means[i] - means[i];
+                means[i] += delta * otherCount / total;
+                squaredDeviations[i] += other.squaredDeviations[i] + delta * delta * count * otherCount / total;
+                sums[i] += other.sums[i];
+                mins[i] = Math.min(mins[i], other.mins[i]);
+                maxs[i] = Math.max(maxs[i], other.maxs[i]);
+            }
+        }
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+    }
+
+    private void accumulate(WeatherMeasure measure, int month, double value) {
+        update(index(measure, ALL), counts[ALL], value);
+        update(index(measure, month), counts[month], value);
+    }
+
+    /**
+     * Folds one value into a cell whose count already includes it.
+     */
+    private void update(int i, long count, double value) {
+        sums[i] += value;
+        mins[i] = Math.min(mins[i], value);
+        maxs[i] = Math.max(maxs[i], value);
+        double delta = value - means[i];
+        means[i] += delta / count;
+        squaredDeviations[i] += delta * (value - means[i]);
+    }
+
+    public long getCount() {
+        return counts[ALL];
+    }
+
+    public long getCount(Month month) {
+        return counts[month.getValue()];
+    }
+
+    /**
+     * @return the average over all records, or NaN if there are none
+     */
+    public double getAverage(WeatherMeasure measure) {
+        return average(measure, ALL);
+    }
+
+    /**
+     * @return the average over the records in a month, or NaN if there are none
+     */
+    public double getAverage(WeatherMeasure measure, Month month) {
+        return average(measure, month.getValue());
+    }
+
+    /**
+     * @return the sum over all records, 0 if there are none
+     */
+    public double getSum(WeatherMeasure measure) {
+        return sums[index(measure, ALL)];
+    }
+
+    /**
+     * @return the sum over the records in a month, 0 if there are none
+     */
+    public double getSum(WeatherMeasure measure, Month month) {
+        return sums[index(measure, month.getValue())];
+    }
+
+    /**
+     * @return the minimum over all records, or NaN if there are none
+     */
+    public double getMin(WeatherMeasure measure) {
+        return counts[ALL] == 0 ? Double.NaN : mins[index(measure, ALL)];
+    }
+
+    /**
+     * @return the maximum over all records, or NaN if there are none
+     */
+    public double getMax(WeatherMeasure measure) {
+        return counts[ALL] == 0 ? Double.NaN : maxs[index(measure, ALL)];
+    }
+
+    /**
+     * @return the minimum over the records in a month, or NaN if there are none
+     */
+    public double getMin(WeatherMeasure measure, Month month) {
+        int bucket = month.getValue();
+        return counts[bucket] == 0 ? Double.NaN : mins[index(measure, bucket)];
+    }
+
+    /**
+     * @return the maximum over the records in a month, or NaN if there are none
+     */
+    public double getMax(WeatherMeasure measure, Month month) {
+        int bucket = month.getValue();
+        return counts[bucket] == 0 ? Double.NaN : maxs[index(measure, bucket)];
+    }
+
+    /**
+     * @return the population variance over all records, or NaN if there are none
+     */
+    public double getVariance(WeatherMeasure measure) {
+        return variance(measure, ALL);
+    }
+
+    /**
+     * @return the population variance over the records in a month, or NaN if there are none
+     */
+    public double getVariance(WeatherMeasure measure, Month month) {
+        return variance(measure, month.getValue());
+    }
+
+    private double variance(WeatherMeasure measure, int bucket) {
+        return counts[bucket] == 0 ? Double.NaN : squaredDeviations[index(measure, bucket)] / counts[bucket];
+    }
+
+    private double average(WeatherMeasure measure, int bucket) {
+        return counts[bucket] == 0 ? Double.NaN : sums[index(measure, bucket)] / counts[bucket];
+    }
+
+    private static int index(WeatherMeasure measure, int bucket) {
+        return measure.ordinal() * BUCKETS + bucket;
+    }
+}
@@ -0,0 +1,117 @@
+package model;
+
+import enums.ChangeKind;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * One change of the weather model, as delivered to its observers.
+ *
+ * A {@link ChangeKind#RECORDS_APPENDED} change names the cities that received
+ * records and the range of dates the records fall into, so an observer can
+ * tell whether anything it shows is affected. Instances are immutable.
+ */
+public class WeatherChange {
+    private static final int[] NO_CITIES = new int[0];
+
+    private final ChangeKind kind;
+    private final int[] cityIds;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    private WeatherChange(ChangeKind kind, int[] cityIds, LocalDate from, LocalDate to) {
+        this.kind = kind;
+        this.cityIds = cityIds;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static WeatherChange unitChanged() {
+        return new WeatherChange(ChangeKind.UNIT_CHANGED, NO_CITIES, null, null);
+    }
+
+    public static WeatherChange dateChanged() {
+        return new WeatherChange(ChangeKind.DATE_CHANGED, NO_CITIES, null, null);
+    }
+
+    public static WeatherChange trackedSetChanged() {
+        return new WeatherChange(ChangeKind.TRACKED_SET_CHANGED, NO_CITIES, null, null);
+    }
+
+    /**
+     * @param cityIds the IDs of the cities that received records
+     * @param from    the earliest date of the records
+     * @param to      the latest date of the records
+     */
+    public static WeatherChange recordsAppended(int[] cityIds, LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Invalid date range: " + from + " to " + to);
+        }
+        return new WeatherChange(ChangeKind.RECORDS_APPENDED, IntStream.of(cityIds).sorted().distinct().toArray(), from, to);
+    }
+
+    public ChangeKind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the IDs of the cities that received records, in ascending order;
+     *         empty for other kinds of change
+     */
+    public int[] getCityIds() {
+        return cityIds.clone();
+    }
+
+    /**
+     * @return the earliest date of the appended records, or null for other kinds of change
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the latest date of the appended records, or null for other kinds of change
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Returns true if records were appended to a city.
+     */
+    public boolean affects(int cityId) {
+        return Arrays.binarySearch(cityIds, cityId) >= 0;
+    }
+
+    /**
+     * Returns true if records were appended on a date, to any of the cities.
+     */
+    public boolean covers(LocalDate date) {
+        return from != null && !date.isBefore(from) && !date.isAfter(to);
+    }
+
+    /**
+     * Combines two appends into one that names the cities of both and spans
+     * both date ranges.
+     *
+     * @throws IllegalArgumentException if either change is not an append
+     */
+    public WeatherChange merge(WeatherChange other) {
+        if (kind != ChangeKind.RECORDS_APPENDED || other.kind != ChangeKind.RECORDS_APPENDED) {
+            throw new IllegalArgumentException("Only appended records can be merged.");
+        }
+        int[] merged = IntStream.concat(IntStream.of(cityIds), IntStream.of(other.cityIds)).toArray();
+        LocalDate mergedFrom = from.isBefore(other.from) ? from : other.from;
+        LocalDate mergedTo = to.isAfter(other.to) ? to : other.to;
+        return recordsAppended(merged, mergedFrom, mergedTo);
+    }
+
+    @Override
+    public String toString() {
+        if (kind != ChangeKind.RECORDS_APPENDED) {
+            return kind.toString();
+        }
+        return kind + Arrays.toString(cityIds) + " " + from + " to " + to;
+    }
+}
@@ -1,40 +1,97 @@
 package model;
 
+import enums.ChangeKind;
+import enums.CounterMetric;
+import enums.LatencyMetric;
 import enums.TempUnit;
+import enums.WeatherMeasure;
 import exception.WeatherDataManagerNotValidException;
+import metrics.BatchLookupEvent;
+import metrics.Metrics;
+import metrics.ObserverDispatchEvent;
+import metrics.WeatherLookupEvent;
 import view.WeatherObserver;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntPredicate;
 
+/**
+ * The model: all cities, their records, and the unit, date and tracked cities
+ * the views show.
+ *
+ * It is safe for concurrent use. Writers append under a lock per city, striped
+ * over {@value #LOCK_STRIPES} locks, so different cities are written in
+ * parallel. Their records become visible on {@link #commit()}, which publishes
+ * a new immutable {@link WeatherSnapshot} copying only what changed. Every
+ * query reads the snapshot current when it starts, so it sees one consistent
+ * point in time, never waits for a writer and never blocks one.
+ */
 public class WeatherDataManager implements WeatherSubject {
+    private static final int LOCK_STRIPES = 64;
 
-    private List<City> cities;
-    private List<City> trackedCities;
-    private TempUnit tempUnit;
-    private LocalDate date;
-    private List<WeatherObserver> observers;
+    private CityDictionary cityDictionary;
+    private CitySearchIndex citySearchIndex;
+    private List<City> citiesById;
+    private final Object[] cityLocks = new Object[LOCK_STRIPES];
+    // Guards registering cities and publishing snapshots
+    private final Object commitLock = new Object();
+    private final Set<Integer> changedCityIds = ConcurrentHashMap.newKeySet();
+    private volatile WeatherSnapshot snapshot;
+    private volatile int[] trackedCityIds;
+    private volatile BitSet trackedCitySet;
+    private StatLeaderboard statLeaderboard;
+    private volatile TempUnit tempUnit;
+    private volatile LocalDate date;
+    // Records kept uncompressed per city, or -1 to compress nothing
+    private volatile int hotRecords = -1;
+    private List<Subscription> observers;
     private boolean isValid;
 
     public WeatherDataManager() {
-        this.cities = new ArrayList<>();
-        this.trackedCities = new ArrayList<>();
+        this.cityDictionary = new CityDictionary();
+        this.citySearchIndex = new CitySearchIndex();
+        this.citiesById = new CopyOnWriteArrayList<>();
+        Arrays.setAll(cityLocks, i -> new Object());
+        this.snapshot = WeatherSnapshot.empty();
+        this.trackedCityIds = new int[0];
+        this.trackedCitySet = new BitSet();
+        this.statLeaderboard = new StatLeaderboard(List.of(), false);
         this.tempUnit = TempUnit.CELSIUS;
         this.date = LocalDate.now();
-        this.observers = new ArrayList<>();
+        this.observers = new CopyOnWriteArrayList<>();
         this.isValid = false;
     }
 
+    /**
+     * Creates a model that takes ownership of the given cities: from here on
+     * they are only changed through this manager.
+     */
     public WeatherDataManager(List<City> cities, List<City> trackedCities, TempUnit tempUnit, LocalDate date) {
-        this.cities = cities;
-        this.trackedCities = trackedCities;
+        this.cityDictionary = new CityDictionary();
+        this.citySearchIndex = new CitySearchIndex();
+        this.citiesById = new CopyOnWriteArrayList<>();
+        Arrays.setAll(cityLocks, i -> new Object());
+        this.snapshot = WeatherSnapshot.empty();
+        this.statLeaderboard = new StatLeaderboard(cities, false);
+        for (City city : cities) {
+            register(city);
+        }
+        this.trackedCityIds = idsOf(trackedCities);
+        this.trackedCitySet = setOf(trackedCityIds);
         this.tempUnit = tempUnit;
         this.date = date;
-        this.observers = new ArrayList<>();
+        this.observers = new CopyOnWriteArrayList<>();
         this.isValid = true;
+        commit();
     }
 
     public WeatherRecord getWeather(String cityName, LocalDate date) throws WeatherDataManagerNotValidException {
@@ -43,12 +100,326 @@ public class WeatherDataManager implements WeatherSubject {
         if (cityName == null || date == null) {
             throw new IllegalArgumentException("City name and date must not be null.");
         }
-    
-        return cities.stream()
-            .filter(city -> city.getName().equals(cityName))
-            .findFirst()
-            .map(city -> city.getRecordByDate(date))
-            .orElseThrow(() -> new IllegalArgumentException("City not found: " + cityName));
+        return getWeather(getCityId(cityName), date);
+    }
+
+    /**
+     * Returns a city's record on a date.
+     *
+     * @param cityId the ID of the city, see {@link #getCityId(String)}
+     */
+    public WeatherRecord getWeather(int cityId, LocalDate date) throws WeatherDataManagerNotValidException {
+        checkValidity();
+
+        if (date == null) {
+            throw new IllegalArgumentException("Date must not be null.");
+        }
+        long start = Metrics.startSampled();
+        Metrics.increment(CounterMetric.LOOKUPS);
+        WeatherLookupEvent event = new WeatherLookupEvent();
+        event.begin();
+        WeatherRecord record = null;
+        try {
+            record = getCity(cityId).getRecordByDate(date);
+            return record;
+        } finally {
+            Metrics.recordSampled(LatencyMetric.WEATHER_LOOKUP, start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.cityId = cityId;
+                event.city = cityId >= 0 && cityId < cityDictionary.size() ? cityDictionary.nameOf(cityId) : null;
+                event.date = date.toString();
+                event.found = record != null;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Returns the weather of several cities on one date in one pass. A city
+     * without a record on the date is a row without data rather than an
+     * exception.
+     *
+     * @param cityIds the IDs of the cities, one row each, in this order
+     * @throws IllegalArgumentException if an ID is unknown or the date is null
+     */
+    public CityWeatherBatch getWeather(int[] cityIds, LocalDate date) throws WeatherDataManagerNotValidException {
+        checkValidity();
+        if (date == null) {
+            throw new IllegalArgumentException("Date must not be null.");
+        }
+        long start = System.nanoTime();
+        BatchLookupEvent event = new BatchLookupEvent();
+        event.begin();
+        WeatherSnapshot snapshot = this.snapshot;
+        int epochDay = (int) date.toEpochDay();
+        City[] rowCities = new City[cityIds.length];
+        int[] slots = new int[cityIds.length];
+        try {
+            for (int row = 0; row < cityIds.length; row++) {
+                rowCities[row] = snapshot.getCity(cityIds[row]);
+                slots[row] = rowCities[row].getRecordStore().findSlot(epochDay);
+            }
+        } finally {
+            Metrics.recordSince(LatencyMetric.BATCH_LOOKUP, start);
+        }
+        CityWeatherBatch batch = new CityWeatherBatch(date, cityIds, rowCities, slots);
+        event.end();
+        if (event.shouldCommit()) {
+            event.date = date.toString();
+            event.cities = cityIds.length;
+            event.citiesWithData = batch.countWithData();
+            event.snapshotVersion = snapshot.getVersion();
+            event.commit();
+        }
+        return batch;
+    }
+
+    /**
+     * Returns the count, sum, min and max of a measure for several cities
+     * between two dates, both inclusive, in O(log n) per city. A city without
+     * records in the range gets {@link MeasureStats#EMPTY}.
+     *
+     * @param cityIds the IDs of the cities; the result is indexed like it
+     */
+    public MeasureStats[] getMeasureStats(int[] cityIds, WeatherMeasure measure, LocalDate from, LocalDate to)
+            throws WeatherDataManagerNotValidException {
+        WeatherSnapshot snapshot = getSnapshot();
+        MeasureStats[] stats = new MeasureStats[cityIds.length];
+        for (int row = 0; row < cityIds.length; row++) {
+            stats[row] = snapshot.getCity(cityIds[row]).getMeasureStats(measure, from, to);
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the count, sum, min and max of a measure for a city between two
+     * dates, both inclusive, in O(log n).
+     */
+    public MeasureStats getMeasureStats(String cityName, WeatherMeasure measure, LocalDate from, LocalDate to)
+            throws WeatherDataManagerNotValidException {
+        return getMeasureStats(getCityId(cityName), measure, from, to);
+    }
+
+    public MeasureStats getMeasureStats(int cityId, WeatherMeasure measure, LocalDate from, LocalDate to)
+            throws WeatherDataManagerNotValidException {
+        return getCity(cityId).getMeasureStats(measure, from, to);
+    }
+
+    /**
+     * Returns a city's record with the lowest value of a measure between two
+     * dates, both inclusive, e.g. the coldest day between 2025-02-14 and
+     * 2025-04-03 for Konya.
+     */
+    public WeatherRecord getRecordWithLowest(String cityName, WeatherMeasure measure, LocalDate from, LocalDate to)
+            throws WeatherDataManagerNotValidException {
+        return getRecordWithLowest(getCityId(cityName), measure, from, to);
+    }
+
+    public WeatherRecord getRecordWithLowest(int cityId, WeatherMeasure measure, LocalDate from, LocalDate to)
+            throws WeatherDataManagerNotValidException {
+        return getCity(cityId).getRecordWithLowest(measure, from, to);
+    }
+
+    /**
+     * Returns a city's record with the highest value of a measure between two
+     * dates, both inclusive.
+     */
+    public WeatherRecord getRecordWithHighest(String cityName, WeatherMeasure measure, LocalDate from, LocalDate to)
+            throws WeatherDataManagerNotValidException {
+        return getRecordWithHighest(getCityId(cityName), measure, from, to);
+    }
+
+    public WeatherRecord getRecordWithHighest(int cityId, WeatherMeasure measure, LocalDate from, LocalDate to)
+            throws WeatherDataManagerNotValidException {
+        return getCity(cityId).getRecordWithHighest(measure, from, to);
+    }
+
+    /**
+     * Resolves a city name to its ID. This is the only lookup that hashes the
+     * name; everything past it works on IDs.
+     *
+     * @throws IllegalArgumentException if no city has that name
+     */
+    public int getCityId(String cityName) throws WeatherDataManagerNotValidException {
+        checkValidity();
+        if (cityName == null) {
+            throw new IllegalArgumentException("City name must not be null.");
+        }
+        int cityId = cityDictionary.idOf(cityName);
+        if (cityId == CityDictionary.UNKNOWN) {
+            throw new IllegalArgumentException("City not found: " + cityName);
+        }
+        return cityId;
+    }
+
+    /**
+     * Returns a city as of the current snapshot; it is read-only.
+     *
+     * @throws IllegalArgumentException if no city has that ID
+     */
+    public City getCity(int cityId) throws WeatherDataManagerNotValidException {
+        return getSnapshot().getCity(cityId);
+    }
+
+    /**
+     * Returns the latest published snapshot of all cities. Holding on to it
+     * keeps that point in time, e.g. for a {@link StatCalculator} run, while
+     * records keep being appended.
+     */
+    public WeatherSnapshot getSnapshot() throws WeatherDataManagerNotValidException {
+        checkValidity();
+        return snapshot;
+    }
+
+    public String getCityName(int cityId) throws WeatherDataManagerNotValidException {
+        return getCity(cityId).getName();
+    }
+
+    /**
+     * Returns the IDs of the cities whose name, or a word of it, starts with
+     * the query, best match first. Case, diacritics and the Turkish dotted and
+     * dotless i are ignored, so "izmir" finds "İzmir".
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of IDs to return
+     */
+    public int[] searchCities(String query, int limit) throws WeatherDataManagerNotValidException {
+        checkValidity();
+        if (query == null) {
+            throw new IllegalArgumentException("Query must not be null.");
+        }
+        synchronized (citySearchIndex) {
+            return citySearchIndex.search(query, limit);
+        }
+    }
+
+    /**
+     * Returns the dictionary of city names. Its IDs index
+     * {@link #getCity(int)}, and {@link CityDictionary#names()} lists every
+     * city once, in ID order.
+     */
+    public CityDictionary getCityDictionary() throws WeatherDataManagerNotValidException {
+        checkValidity();
+        return cityDictionary;
+    }
+
+    /**
+     * Appends a record to a city, creating the city if it is not known yet.
+     * Like the notifications, the record is batched: queries see it after the
+     * next {@link #commit()}, and observers after one
+     * {@link WeatherChange#recordsAppended} change for the batch. A new city is
+     * published right away, without records.
+     *
+     * @param cityName the name of the city
+     * @param record   the record to append
+     * @return the ID of the city
+     */
+    public int addWeatherRecord(String cityName, WeatherRecord record) throws WeatherDataManagerNotValidException {
+        checkValidity();
+        if (cityName == null) {
+            throw new IllegalArgumentException("City name must not be null.");
+        }
+        int cityId = cityDictionary.idOf(cityName);
+        if (cityId == CityDictionary.UNKNOWN) {
+            synchronized (commitLock) {
+                cityId = cityDictionary.idOf(cityName);
+                if (cityId == CityDictionary.UNKNOWN) {
+                    City city = new City(cityName);
+                    statLeaderboard.addCity(city);
+                    cityId = register(city);
+                    commit();
+                }
+            }
+        }
+        addWeatherRecord(cityId, record);
+        return cityId;
+    }
+
+    /**
+     * Appends a record to a known city; see {@link #addWeatherRecord(String, WeatherRecord)}.
+     * Appends to different cities run in parallel.
+     */
+    public void addWeatherRecord(int cityId, WeatherRecord record) throws WeatherDataManagerNotValidException {
+        checkValidity();
+        if (cityId < 0 || cityId >= citiesById.size()) {
+            throw new IllegalArgumentException("City not found: #" + cityId);
+        }
+        City city = citiesById.get(cityId);
+        synchronized (cityLocks[cityId % LOCK_STRIPES]) {
+            city.addWeatherRecord(record);
+        }
+        changedCityIds.add(cityId);
+    }
+
+    /**
+     * Publishes every record appended so far as a new snapshot, copying only
+     * the cities that changed since the last one.
+     *
+     * @return the version of the current snapshot
+     */
+    public long commit() {
+        synchronized (commitLock) {
+            BitSet changed = new BitSet();
+            for (Iterator<Integer> it = changedCityIds.iterator(); it.hasNext(); ) {
+                changed.set(it.next());
+                it.remove();
+            }
+            if (changed.isEmpty()) {
+                return snapshot.getVersion();
+            }
+            long start = System.nanoTime();
+            int[] cityIds = changed.stream().toArray();
+            City[] cities = new City[cityIds.length];
+            int hotRecords = this.hotRecords;
+            for (int i = 0; i < cityIds.length; i++) {
+                synchronized (cityLocks[cityIds[i] % LOCK_STRIPES]) {
+                    City city = citiesById.get(cityIds[i]);
+                    if (hotRecords >= 0) {
+                        city.compressHistory(hotRecords);
+                    }
+                    cities[i] = city.snapshot();
+                }
+            }
+            // The leaderboard follows commits, not appends, so its leaders
+            // are those of the cities published here
+            for (int i = 0; i < cityIds.length; i++) {
+                statLeaderboard.update(citiesById.get(cityIds[i]), cities[i].getAggregates());
+            }
+            WeatherSnapshot next = snapshot.with(cityIds, cities, statLeaderboard.getRankings());
+            snapshot = next;
+            Metrics.recordSince(LatencyMetric.COMMIT, start);
+            return next.getVersion();
+        }
+    }
+
+    /**
+     * Compresses the history of every city except the newest records, see
+     * {@link City#compressHistory(int)}, and keeps doing so for the cities
+     * changed in every later {@link #commit()}. Published snapshots keep the
+     * records they share until they are replaced.
+     *
+     * @param hotRecords the number of newest records to leave uncompressed per city
+     * @return the number of records compressed now
+     */
+    public long compressHistory(int hotRecords) {
+        if (hotRecords < 0) {
+            throw new IllegalArgumentException("The number of uncompressed records must not be negative");
+        }
+        this.hotRecords = hotRecords;
+        long compressed = 0;
+        for (int cityId = 0; cityId < citiesById.size(); cityId++) {
+            int cityCompressed;
+            synchronized (cityLocks[cityId % LOCK_STRIPES]) {
+                cityCompressed = citiesById.get(cityId).compressHistory(hotRecords);
+            }
+            if (cityCompressed > 0) {
+                compressed += cityCompressed;
+                changedCityIds.add(cityId);
+            }
+        }
+        commit();
+        return compressed;
     }
 
     public TempUnit getTempUnit() throws WeatherDataManagerNotValidException {
@@ -58,33 +429,66 @@ public class WeatherDataManager implements WeatherSubject {
 
     public void setTempUnit(TempUnit tempUnit) {
         this.tempUnit = tempUnit;
-        notifyObservers();
+        notifyObservers(WeatherChange.unitChanged());
     }
 
+    /**
+     * Returns the tracked cities as of the current snapshot, in tracking order.
+     */
     public List<City> getTrackedCities() throws WeatherDataManagerNotValidException {
-        checkValidity();
-        return trackedCities;
+        WeatherSnapshot snapshot = getSnapshot();
+        List<City> cities = new ArrayList<>();
+        for (int cityId : trackedCityIds) {
+            cities.add(snapshot.getCity(cityId));
+        }
+        return cities;
     }
 
+    /**
+     * Returns all cities as of the current snapshot, indexed by ID.
+     */
     public List<City> getCities() throws WeatherDataManagerNotValidException {
-        checkValidity();
-        return cities;
+        return getSnapshot().getCities();
+    }
+
+    /**
+     * Returns the statistics leaders as of the current snapshot. They are
+     * maintained incrementally on every commit, so this does not rescan any
+     * records, and like other queries it does not see uncommitted records.
+     */
+    public WeatherStats getStats() throws WeatherDataManagerNotValidException {
+        return getSnapshot().getStats();
     }
 
-    public Map<String, WeatherRecord> getTrackedCitiesWeather(LocalDate date) throws WeatherDataManagerNotValidException {
+    /**
+     * Returns the IDs of the tracked cities, in tracking order.
+     */
+    public int[] getTrackedCityIds() throws WeatherDataManagerNotValidException {
         checkValidity();
-        Map<String, WeatherRecord> records = new HashMap<>();
-    
-        for (City city : trackedCities) {
-            WeatherRecord record = city.getRecordByDate(date);
-            records.put(city.getName(), record);
-        }
-    
-        return records;
+        return trackedCityIds.clone();
+    }
+
+    /**
+     * Returns the weather of the tracked cities on a date, one row per city in
+     * tracking order; see {@link #getWeather(int[], LocalDate)}.
+     */
+    public CityWeatherBatch getTrackedCitiesWeather(LocalDate date) throws WeatherDataManagerNotValidException {
+        return getWeather(trackedCityIds, date);
     }
-    
+
+    /**
+     * Returns true if a city is tracked.
+     */
+    public boolean isTracked(int cityId) {
+        return trackedCitySet.get(cityId);
+    }
+
     public void setTrackedCities(List<City> trackedCities) {
-        this.trackedCities = trackedCities;
+        int[] cityIds = idsOf(trackedCities);
+        commit();
+        this.trackedCitySet = setOf(cityIds);
+        this.trackedCityIds = cityIds;
+        notifyObservers(WeatherChange.trackedSetChanged());
     }
 
     public LocalDate getDate() throws WeatherDataManagerNotValidException {
@@ -94,22 +498,142 @@ public class WeatherDataManager implements WeatherSubject {
 
     public void setDate(LocalDate date) {
         this.date = date;
+        notifyObservers(WeatherChange.dateChanged());
     }
 
     @Override
     public void addObserver(WeatherObserver observer) {
-        observers.add(observer);
+        addObserver(observer, EnumSet.allOf(ChangeKind.class));
+    }
+
+    @Override
+    public void addObserver(WeatherObserver observer, Set<ChangeKind> kinds) {
+        addObserver(observer, kinds, cityId -> true);
+    }
+
+    @Override
+    public void addObserver(WeatherObserver observer, Set<ChangeKind> kinds, IntPredicate cityFilter) {
+        Set<ChangeKind> subscribed = EnumSet.noneOf(ChangeKind.class);
+        subscribed.addAll(kinds);
+        observers.add(new Subscription(observer, subscribed, cityFilter));
     }
 
     @Override
     public void removeObserver(WeatherObserver observer) {
-        observers.remove(observer);
+        observers.removeIf(subscription -> subscription.observer == observer);
     }
 
     @Override
     public void notifyObservers() {
-        for (WeatherObserver observer : observers) {
-            observer.update(this);
+        long start = System.nanoTime();
+        for (Subscription subscription : observers) {
+            ObserverDispatchEvent event = new ObserverDispatchEvent();
+            event.begin();
+            subscription.observer.update(this);
+            event.end();
+            if (event.shouldCommit()) {
+                event.observer = subscription.observer.getClass().getName();
+                event.change = "REFRESH";
+                event.commit();
+            }
+            Metrics.increment(CounterMetric.EVENTS_DISPATCHED);
+        }
+        Metrics.recordSince(LatencyMetric.OBSERVER_DISPATCH, start);
+    }
+
+    @Override
+    public void notifyObservers(WeatherChange change) {
+        long start = System.nanoTime();
+        for (Subscription subscription : observers) {
+            if (subscription.accepts(change)) {
+                ObserverDispatchEvent event = new ObserverDispatchEvent();
+                event.begin();
+                subscription.observer.onChange(this, change);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.observer = subscription.observer.getClass().getName();
+                    event.change = change.getKind().name();
+                    event.cities = change.getCityIds().length;
+                    event.from = change.getFrom() == null ? null : change.getFrom().toString();
+                    event.to = change.getTo() == null ? null : change.getTo().toString();
+                    event.commit();
+                }
+                Metrics.increment(CounterMetric.EVENTS_DISPATCHED);
+            }
+        }
+        Metrics.recordSince(LatencyMetric.OBSERVER_DISPATCH, start);
+    }
+
+    /**
+     * Interns a city's name and returns its ID. Like the linear search the
+     * dictionary replaces, the first city with a given name wins; later ones
+     * share its ID. A new city is published on the next {@link #commit()}.
+     */
+    private int register(City city) {
+        synchronized (commitLock) {
+            int cityId = cityDictionary.intern(city.getName());
+            if (cityId == citiesById.size()) {
+                citiesById.add(city);
+                synchronized (citySearchIndex) {
+                    citySearchIndex.add(cityId, city.getName());
+                }
+                changedCityIds.add(cityId);
+            }
+            return cityId;
+        }
+    }
+
+    private int[] idsOf(List<City> trackedCities) {
+        synchronized (commitLock) {
+            int[] ids = new int[trackedCities.size()];
+            for (int i = 0; i < ids.length; i++) {
+                City city = trackedCities.get(i);
+                int cityId = cityDictionary.idOf(city.getName());
+                if (cityId == CityDictionary.UNKNOWN) {
+                    statLeaderboard.addCity(city);
+                    cityId = register(city);
+                }
+                ids[i] = cityId;
+            }
+            return ids;
+        }
+    }
+
+    private static BitSet setOf(int[] cityIds) {
+        BitSet set = new BitSet();
+        for (int cityId : cityIds) {
+            set.set(cityId);
+        }
+        return set;
+    }
+
+    /**
+     * The kinds of change, and the cities, one observer receives.
+     */
+    private static final class Subscription {
+        private final WeatherObserver observer;
+        private final Set<ChangeKind> kinds;
+        private final IntPredicate cityFilter;
+
+        Subscription(WeatherObserver observer, Set<ChangeKind> kinds, IntPredicate cityFilter) {
+            this.observer = observer;
+            this.kinds = kinds;
+            this.cityFilter = cityFilter;
+        }
+
+        boolean accepts(WeatherChange change) {
+            if (!kinds.contains(change.getKind())) {
+                return false;
+            }
+            if (change.getKind() != ChangeKind.RECORDS_APPENDED) {
+                return true;
+            }
+            for (int cityId : change.getCityIds()) {
+                if (cityFilter.test(cityId)) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
@@ -4,11 +4,11 @@ import java.time.LocalDate;
 
 public class WeatherRecord {
     private LocalDate date;
-    private Double temperature;
-    private Double humidity;
-    private Double windSpeed;
+    private double temperature;
+    private double humidity;
+    private double windSpeed;
     private WeatherCondition weatherCondition;
-    private Boolean isValidWeatherRecord = false;
+    private boolean isValidWeatherRecord = false;
 
     // Default Constructor 
     public WeatherRecord() 
@@ -67,7 +67,7 @@ public class WeatherRecord {
         return weatherCondition;
     }
 
-    public Boolean isValidWeatherRecord() 
+    public boolean isValidWeatherRecord() 
     {
         return isValidWeatherRecord;
     }
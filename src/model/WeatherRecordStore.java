@@ -0,0 +1,843 @@
+package model;
+
+import enums.CounterMetric;
+import enums.TempUnit;
+import enums.WeatherCondition;
+import enums.WeatherMeasure;
+import enums.WindSpeedUnit;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+import metrics.Metrics;
+
+/**
+ * Columnar storage for the weather records of a single {@link City}.
+ *
+ * Each record occupies one slot across parallel primitive arrays: an epoch-day
+ * date, the three measures and the ordinal of its {@link WeatherCondition}.
+ * That is 29 bytes per day instead of a WeatherRecord with boxed fields and a
+ * LocalDate. Humidity is kept as a float since the feeds report whole
+ * percentages.
+ *
+ * Old history can be moved into {@link CompressedBlock}s with
+ * {@link #compressHistory(int)}, at about 4 bytes per record, while the newest
+ * records stay in the columns as a hot tail that takes appends. Slots keep
+ * their numbers either way. A compressed value is read straight from its block
+ * in O(1), and date lookups decode the dates of one block, cached per thread;
+ * a {@link RecordCursor} decodes block after block for scans. Range queries
+ * over compressed history combine the stats each block keeps and only decode
+ * the blocks at the ends of the range.
+ *
+ * {@link WeatherRecord} objects are only materialized on request.
+ *
+ * The columns are append-only: a slot, once written, is never rewritten in
+ * place (growing, sorting and compressing allocate new arrays). So
+ * {@link #snapshot()} can share them in O(1), and the snapshot stays valid
+ * while records are appended to the store.
+ */
+public class WeatherRecordStore {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+    private static final CompressedBlock[] NO_BLOCKS = new CompressedBlock[0];
+    private static final ThreadLocal<CompressedBlock.Decoded> DECODED =
+        ThreadLocal.withInitial(CompressedBlock.Decoded::new);
+
+    private final boolean readOnly;
+    private int size;
+    // Compressed history: slots [0, coldSize), in date order, no later than
+    // any record of the hot tail
+    private CompressedBlock[] coldBlocks;
+    private int coldSize;
+    // Hot tail: slots [coldSize, size), at index slot - coldSize
+    private int[] epochDays;
+    private double[] temperatures;
+    private float[] humidities;
+    private double[] windSpeeds;
+    private byte[] conditions;
+
+    // Date lookup state: while records arrive in date order no index is
+    // needed; otherwise a DateIndex is built lazily and dropped on append.
+    private boolean sortedByDate = true;
+    private boolean contiguous = true;
+    private volatile DateIndex dateIndex;
+    // Set once history has been compressed: from then on the records are kept
+    // in date order, sorting late ones into place before compressing again
+    private boolean historyCompressed;
+
+    // Range query state: built on the first range query, then extended by
+    // in-order appends and dropped by anything else. Snapshots share a view of
+    // it; one built by a snapshot is handed over to the store it was taken of.
+    private volatile RangeIndex rangeIndex;
+    // Counts the range indexes dropped, so that a stale one is not handed over
+    private int rangeIndexVersion;
+    private volatile RangeIndexOffer offeredRangeIndex;
+    // The store a snapshot was taken of, null for any other store
+    private final WeatherRecordStore source;
+
+    public WeatherRecordStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public WeatherRecordStore(int capacity) {
+        this.readOnly = false;
+        this.source = null;
+        this.size = 0;
+        this.coldBlocks = NO_BLOCKS;
+        this.epochDays = new int[capacity];
+        this.temperatures = new double[capacity];
+        this.humidities = new float[capacity];
+        this.windSpeeds = new double[capacity];
+        this.conditions = new byte[capacity];
+    }
+
+    /**
+     * Creates a store that takes ownership of already filled columns, e.g. read
+     * from a snapshot. All arrays must have the same length.
+     */
+    public WeatherRecordStore(int[] epochDays, double[] temperatures, float[] humidities,
+                              double[] windSpeeds, byte[] conditions) {
+        int length = epochDays.length;
+        if (temperatures.length != length || humidities.length != length
+                || windSpeeds.length != length || conditions.length != length) {
+            throw new IllegalArgumentException("All columns must have the same length");
+        }
+        for (byte condition : conditions) {
+            if (condition < 0 || condition >= CONDITIONS.length) {
+                throw new IllegalArgumentException("Unknown weather condition ordinal: " + condition);
+            }
+        }
+        this.readOnly = false;
+        this.source = null;
+        this.size = length;
+        this.coldBlocks = NO_BLOCKS;
+        this.epochDays = epochDays;
+        this.temperatures = temperatures;
+        this.humidities = humidities;
+        this.windSpeeds = windSpeeds;
+        this.conditions = conditions;
+        for (int i = 1; i < length; i++) {
+            sortedByDate &= epochDays[i - 1] <= epochDays[i];
+            contiguous &= epochDays[i] == epochDays[i - 1] + 1;
+        }
+    }
+
+    // Copy Constructor
+    public WeatherRecordStore(WeatherRecordStore store) {
+        int hotSize = store.size - store.coldSize;
+        this.readOnly = false;
+        this.source = null;
+        this.size = store.size;
+        // Compressed blocks are immutable, so they can be shared
+        this.coldBlocks = store.coldBlocks;
+        this.coldSize = store.coldSize;
+        this.epochDays = Arrays.copyOf(store.epochDays, hotSize);
+        this.temperatures = Arrays.copyOf(store.temperatures, hotSize);
+        this.humidities = Arrays.copyOf(store.humidities, hotSize);
+        this.windSpeeds = Arrays.copyOf(store.windSpeeds, hotSize);
+        this.conditions = Arrays.copyOf(store.conditions, hotSize);
+        this.sortedByDate = store.sortedByDate;
+        this.contiguous = store.contiguous;
+        this.historyCompressed = store.historyCompressed;
+    }
+
+    // Snapshot Constructor
+    private WeatherRecordStore(WeatherRecordStore store, boolean readOnly) {
+        this.readOnly = readOnly;
+        this.source = store;
+        this.size = store.size;
+        this.coldBlocks = store.coldBlocks;
+        this.coldSize = store.coldSize;
+        this.epochDays = store.epochDays;
+        this.temperatures = store.temperatures;
+        this.humidities = store.humidities;
+        this.windSpeeds = store.windSpeeds;
+        this.conditions = store.conditions;
+        this.sortedByDate = store.sortedByDate;
+        this.contiguous = store.contiguous;
+        // Indexes too: the date index is immutable, and a view of the range
+        // index does not see later appends
+        this.dateIndex = store.dateIndex;
+        RangeIndex rangeIndex = store.rangeIndex;
+        this.rangeIndex = rangeIndex == null ? null : rangeIndex.snapshot();
+        this.rangeIndexVersion = store.rangeIndexVersion;
+    }
+
+    /**
+     * Returns a read-only view of the records stored so far, in O(1). It shares
+     * the columns and indexes with this store, so later appends neither show up
+     * in it nor copy anything. Any number of threads may query it, also while
+     * this store is being appended to. Take it where the appends are made, e.g.
+     * under the same lock.
+     */
+    public WeatherRecordStore snapshot() {
+        if (readOnly) {
+            return this;
+        }
+        adoptOfferedRangeIndex();
+        return new WeatherRecordStore(this, true);
+    }
+
+    /**
+     * Returns true if this store is a {@link #snapshot()} and rejects changes.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of records held in compressed blocks, i.e. the slots
+     * before the hot tail.
+     */
+    public int getCompressedCount() {
+        return coldSize;
+    }
+
+    /**
+     * Returns the date of the last compressed record as days since 1970-01-01,
+     * or {@link Integer#MIN_VALUE} if no record is compressed. Every record of
+     * the hot tail is on that date or later.
+     */
+    public int getLastCompressedDay() {
+        return coldSize == 0 ? Integer.MIN_VALUE : coldBlocks[coldBlocks.length - 1].getLastDay();
+    }
+
+    /**
+     * Returns the approximate heap size of the records in bytes, compressed
+     * blocks and columns, without the indexes.
+     */
+    public long estimateBytes() {
+        long bytes = 16 + 4L * coldBlocks.length;
+        for (CompressedBlock block : coldBlocks) {
+            bytes += block.estimateBytes();
+        }
+        return bytes + 5 * 16 + (4 + 8 + 4 + 8 + 1L) * epochDays.length;
+    }
+
+    /**
+     * Returns a cursor over all records in slot order.
+     */
+    public RecordCursor cursor() {
+        return new RecordCursor(this);
+    }
+
+    public int getEpochDay(int slot) {
+        int hot = slot - coldSize;
+        return hot >= 0 ? epochDays[hot] : decoded(slot).day(slot & CompressedBlock.MASK);
+    }
+
+    public double getTemperature(int slot) {
+        int hot = slot - coldSize;
+        return hot >= 0 ? temperatures[hot] : decoded(slot).value(WeatherMeasure.TEMPERATURE, slot & CompressedBlock.MASK);
+    }
+
+    public double getHumidity(int slot) {
+        int hot = slot - coldSize;
+        return hot >= 0 ? humidities[hot] : decoded(slot).value(WeatherMeasure.HUMIDITY, slot & CompressedBlock.MASK);
+    }
+
+    public double getWindSpeed(int slot) {
+        int hot = slot - coldSize;
+        return hot >= 0 ? windSpeeds[hot] : decoded(slot).value(WeatherMeasure.WIND, slot & CompressedBlock.MASK);
+    }
+
+    public WeatherCondition getWeatherCondition(int slot) {
+        return CONDITIONS[getWeatherConditionOrdinal(slot)];
+    }
+
+    public byte getWeatherConditionOrdinal(int slot) {
+        int hot = slot - coldSize;
+        return hot >= 0 ? conditions[hot] : decoded(slot).condition(slot & CompressedBlock.MASK);
+    }
+
+    /**
+     * Copies the temperatures of the slots from {@code fromSlot} (inclusive) to
+     * {@code toSlot} (exclusive) into {@code dest}, converted to a unit in one
+     * pass over the column.
+     */
+    public void copyTemperatures(int fromSlot, int toSlot, TempUnit unit, double[] dest, int destPos) {
+        Objects.checkFromToIndex(fromSlot, toSlot, size);
+        int slot = fromSlot;
+        while (slot < toSlot && slot < coldSize) {
+            int offset = slot & CompressedBlock.MASK;
+            int length = Math.min(toSlot - slot, CompressedBlock.SIZE - offset);
+            unit.convertFromCelsius(decoded(slot).values(WeatherMeasure.TEMPERATURE), offset, dest, destPos + slot - fromSlot, length);
+            slot += length;
+        }
+        if (slot < toSlot) {
+            unit.convertFromCelsius(temperatures, slot - coldSize, dest, destPos + slot - fromSlot, toSlot - slot);
+        }
+    }
+
+    /**
+     * Copies the wind speeds of the slots from {@code fromSlot} (inclusive) to
+     * {@code toSlot} (exclusive) into {@code dest}, converted to a unit in one
+     * pass over the column.
+     */
+    public void copyWindSpeeds(int fromSlot, int toSlot, WindSpeedUnit unit, double[] dest, int destPos) {
+        Objects.checkFromToIndex(fromSlot, toSlot, size);
+        int slot = fromSlot;
+        while (slot < toSlot && slot < coldSize) {
+            int offset = slot & CompressedBlock.MASK;
+            int length = Math.min(toSlot - slot, CompressedBlock.SIZE - offset);
+            unit.convertFromKilometersPerHour(decoded(slot).values(WeatherMeasure.WIND), offset, dest, destPos + slot - fromSlot, length);
+            slot += length;
+        }
+        if (slot < toSlot) {
+            unit.convertFromKilometersPerHour(windSpeeds, slot - coldSize, dest, destPos + slot - fromSlot, toSlot - slot);
+        }
+    }
+
+    /**
+     * Materializes the record stored in a slot.
+     *
+     * @param slot the slot, between 0 and {@link #size()} - 1
+     * @return a new, detached WeatherRecord
+     */
+    public WeatherRecord getRecord(int slot) {
+        int hot = slot - coldSize;
+        if (hot < 0) {
+            CompressedBlock.Decoded block = decoded(slot);
+            int offset = slot & CompressedBlock.MASK;
+            return new WeatherRecord(
+                LocalDate.ofEpochDay(block.day(offset)),
+                block.value(WeatherMeasure.TEMPERATURE, offset),
+                block.value(WeatherMeasure.HUMIDITY, offset),
+                block.value(WeatherMeasure.WIND, offset),
+                CONDITIONS[block.condition(offset)]);
+        }
+        return new WeatherRecord(
+            LocalDate.ofEpochDay(epochDays[hot]),
+            temperatures[hot],
+            humidities[hot],
+            windSpeeds[hot],
+            CONDITIONS[conditions[hot]]);
+    }
+
+    /**
+     * Appends one record. A record dated before the end of the compressed
+     * history first moves the blocks it belongs before back into the hot
+     * tail; the next {@link #compressHistory(int)} sorts it into place.
+     */
+    public void add(int epochDay, double temperature, double humidity, double windSpeed, WeatherCondition condition) {
+        checkWritable();
+        if (coldSize > 0 && epochDay < getLastCompressedDay()) {
+            decompressHistoryAfter(epochDay);
+        }
+        int hot = size - coldSize;
+        if (hot == epochDays.length) {
+            ensureCapacity(size + 1);
+        }
+        if (size > 0) {
+            trackOrder(lastEpochDay(), epochDay);
+        }
+        epochDays[hot] = epochDay;
+        temperatures[hot] = temperature;
+        humidities[hot] = (float) humidity;
+        windSpeeds[hot] = windSpeed;
+        conditions[hot] = (byte) condition.ordinal();
+        size++;
+        RangeIndex rangeIndex = this.rangeIndex;
+        if (rangeIndex != null) {
+            if (rangeIndex.canAppend(epochDay)) {
+                rangeIndex.append(this, size - 1);
+            } else {
+                dropRangeIndex();
+            }
+        }
+    }
+
+    /**
+     * Appends all records of another store, in their current order.
+     */
+    public void addAll(WeatherRecordStore other) {
+        checkWritable();
+        if (coldSize > 0 || other.coldSize > 0) {
+            // Rare: record by record, decompressing the history if needed
+            RecordCursor cursor = other.cursor();
+            while (cursor.next()) {
+                add(cursor.getEpochDay(), cursor.getTemperature(), cursor.getHumidity(), cursor.getWindSpeed(),
+                    cursor.getWeatherCondition());
+            }
+            return;
+        }
+
+        ensureCapacity(size + other.size);
+        if (size > 0 && other.size > 0) {
+            trackOrder(epochDays[size - 1], other.epochDays[0]);
+        }
+        sortedByDate &= other.sortedByDate;
+        contiguous &= other.contiguous;
+        dateIndex = null;
+        dropRangeIndex();
+        System.arraycopy(other.epochDays, 0, epochDays, size, other.size);
+        System.arraycopy(other.temperatures, 0, temperatures, size, other.size);
+        System.arraycopy(other.humidities, 0, humidities, size, other.size);
+        System.arraycopy(other.windSpeeds, 0, windSpeeds, size, other.size);
+        System.arraycopy(other.conditions, 0, conditions, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Grows the columns so that at least {@code capacity} records fit without
+     * reallocating.
+     */
+    public void ensureCapacity(int capacity) {
+        checkWritable();
+        int hotCapacity = capacity - coldSize;
+        if (hotCapacity <= epochDays.length) {
+            return;
+        }
+        int newCapacity = Math.max(hotCapacity, epochDays.length + (epochDays.length >> 1) + 1);
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        temperatures = Arrays.copyOf(temperatures, newCapacity);
+        humidities = Arrays.copyOf(humidities, newCapacity);
+        windSpeeds = Arrays.copyOf(windSpeeds, newCapacity);
+        conditions = Arrays.copyOf(conditions, newCapacity);
+    }
+
+    /**
+     * Compresses the oldest records, in whole blocks of {@value CompressedBlock#SIZE},
+     * keeping at least the newest {@code hotRecords} in the columns for appends.
+     * Only a store sorted by date is compressed, except that late records
+     * appended since the last compression are first sorted into place, see
+     * {@link #sortByDate()}. Snapshots taken before keep the columns they share.
+     *
+     * @param hotRecords the number of newest records to leave uncompressed
+     * @return the number of records compressed
+     */
+    public int compressHistory(int hotRecords) {
+        checkWritable();
+        if (hotRecords < 0) {
+            throw new IllegalArgumentException("The number of uncompressed records must not be negative");
+        }
+        int hotSize = size - coldSize;
+        int blocks = (hotSize - hotRecords) / CompressedBlock.SIZE;
+        if (blocks <= 0 || !(sortedByDate || historyCompressed)) {
+            return 0;
+        }
+        sortByDate();
+
+        CompressedBlock[] newBlocks = Arrays.copyOf(coldBlocks, coldBlocks.length + blocks);
+        for (int b = 0; b < blocks; b++) {
+            newBlocks[coldBlocks.length + b] = CompressedBlock.encode(
+                epochDays, temperatures, humidities, windSpeeds, conditions, b * CompressedBlock.SIZE);
+        }
+        int compressed = blocks * CompressedBlock.SIZE;
+        int remaining = hotSize - compressed;
+        int capacity = Math.max(remaining, DEFAULT_CAPACITY);
+        epochDays = Arrays.copyOfRange(epochDays, compressed, compressed + capacity);
+        temperatures = Arrays.copyOfRange(temperatures, compressed, compressed + capacity);
+        humidities = Arrays.copyOfRange(humidities, compressed, compressed + capacity);
+        windSpeeds = Arrays.copyOfRange(windSpeeds, compressed, compressed + capacity);
+        conditions = Arrays.copyOfRange(conditions, compressed, compressed + capacity);
+        coldBlocks = newBlocks;
+        coldSize += compressed;
+        historyCompressed = true;
+        dateIndex = null;
+        dropRangeIndex();
+        return compressed;
+    }
+
+    /**
+     * Returns true if the epoch days never decrease from one slot to the next.
+     */
+    public boolean isSortedByDate() {
+        return sortedByDate;
+    }
+
+    /**
+     * Returns the slot of the first record on a given date, or -1 if there is none.
+     *
+     * Runs in O(1) when the dates are consecutive days, and in O(log n) when
+     * they are sorted or once the lazily built {@link DateIndex} exists. A
+     * compressed date also decodes its block, unless it is the last one decoded
+     * on this thread.
+     *
+     * @param epochDay the date as days since 1970-01-01
+     */
+    public int findSlot(int epochDay) {
+        if (size == 0) {
+            return -1;
+        }
+        if (contiguous) {
+            long offset = (long) epochDay - firstEpochDay();
+            return offset >= 0 && offset < size ? (int) offset : -1;
+        }
+        if (coldSize > 0 && epochDay <= getLastCompressedDay()) {
+            int block = firstBlockEndingAtOrAfter(epochDay);
+            if (coldBlocks[block].getFirstDay() > epochDay) {
+                return -1;
+            }
+            int[] days = DECODED.get().load(coldBlocks[block]).days();
+            int offset = DateIndex.lowerBound(days, CompressedBlock.SIZE, epochDay);
+            return days[offset] == epochDay ? block * CompressedBlock.SIZE + offset : -1;
+        }
+        if (sortedByDate) {
+            int hotSize = size - coldSize;
+            int position = DateIndex.lowerBound(epochDays, hotSize, epochDay);
+            return position < hotSize && epochDays[position] == epochDay ? coldSize + position : -1;
+        }
+        DateIndex dateIndex = this.dateIndex;
+        if (dateIndex == null) {
+            Metrics.increment(CounterMetric.INDEX_CACHE_MISSES);
+            dateIndex = DateIndex.build(this);
+            this.dateIndex = dateIndex;
+        } else {
+            Metrics.increment(CounterMetric.INDEX_CACHE_HITS);
+        }
+        return dateIndex.find(epochDay);
+    }
+
+    /**
+     * Returns the first slot whose date is not before a given date, or
+     * {@link #size()} if there is none. Only meaningful while the store is
+     * sorted by date.
+     *
+     * @param epochDay the date as days since 1970-01-01
+     */
+    public int lowerBound(int epochDay) {
+        if (coldSize > 0 && epochDay <= getLastCompressedDay()) {
+            int block = firstBlockEndingAtOrAfter(epochDay);
+            int[] days = DECODED.get().load(coldBlocks[block]).days();
+            return block * CompressedBlock.SIZE + DateIndex.lowerBound(days, CompressedBlock.SIZE, epochDay);
+        }
+        return coldSize + DateIndex.lowerBound(epochDays, size - coldSize, epochDay);
+    }
+
+    /**
+     * Returns the count, sum, min and max of a measure between two dates, both
+     * inclusive. The hot tail answers in O(log n) from the lazily built
+     * {@link RangeIndex}; compressed history from the stats of the blocks
+     * inside the range, decoding at most the two blocks at its ends.
+     *
+     * @param fromDay the first date as days since 1970-01-01
+     * @param toDay   the last date as days since 1970-01-01
+     */
+    public MeasureStats getMeasureStats(WeatherMeasure measure, int fromDay, int toDay) {
+        MeasureStats hot = rangeIndex().stats(measure, fromDay, toDay);
+        if (coldSize == 0 || fromDay > getLastCompressedDay()) {
+            return hot;
+        }
+        return compressedStats(measure, fromDay, toDay).merge(hot);
+    }
+
+    /**
+     * Returns the slot of the record with the lowest value of a measure between
+     * two dates, both inclusive, or -1 if there is none. On ties the earliest
+     * record wins.
+     */
+    public int findSlotOfMin(WeatherMeasure measure, int fromDay, int toDay) {
+        int hot = rangeIndex().slotOfMin(measure, fromDay, toDay);
+        if (coldSize == 0 || fromDay > getLastCompressedDay()) {
+            return hot;
+        }
+        // Compressed records come first, so they win ties
+        int cold = findCompressedSlotOfExtreme(measure, fromDay, toDay, false);
+        return cold >= 0 && (hot < 0 || getValue(measure, cold) <= getValue(measure, hot)) ? cold : hot;
+    }
+
+    /**
+     * Returns the slot of the record with the highest value of a measure between
+     * two dates, both inclusive, or -1 if there is none. On ties the earliest
+     * record wins.
+     */
+    public int findSlotOfMax(WeatherMeasure measure, int fromDay, int toDay) {
+        int hot = rangeIndex().slotOfMax(measure, fromDay, toDay);
+        if (coldSize == 0 || fromDay > getLastCompressedDay()) {
+            return hot;
+        }
+        int cold = findCompressedSlotOfExtreme(measure, fromDay, toDay, true);
+        return cold >= 0 && (hot < 0 || getValue(measure, cold) >= getValue(measure, hot)) ? cold : hot;
+    }
+
+    CompressedBlock getCompressedBlock(int index) {
+        return coldBlocks[index];
+    }
+
+    private MeasureStats compressedStats(WeatherMeasure measure, int fromDay, int toDay) {
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int b = firstBlockEndingAtOrAfter(fromDay); b < coldBlocks.length && coldBlocks[b].getFirstDay() <= toDay; b++) {
+            CompressedBlock block = coldBlocks[b];
+            if (block.getFirstDay() >= fromDay && block.getLastDay() <= toDay) {
+                count += CompressedBlock.SIZE;
+                sum += block.getSum(measure);
+                min = Math.min(min, block.getMin(measure));
+                max = Math.max(max, block.getMax(measure));
+                continue;
+            }
+            CompressedBlock.Decoded decoded = DECODED.get().load(block);
+            int end = offsetInBlock(decoded, (long) toDay + 1);
+            for (int i = offsetInBlock(decoded, fromDay); i < end; i++) {
+                double value = decoded.value(measure, i);
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        return count == 0 ? MeasureStats.EMPTY : new MeasureStats(count, sum, min, max);
+    }
+
+    private int findCompressedSlotOfExtreme(WeatherMeasure measure, int fromDay, int toDay, boolean highest) {
+        int bestSlot = -1;
+        double best = 0;
+        for (int b = firstBlockEndingAtOrAfter(fromDay); b < coldBlocks.length && coldBlocks[b].getFirstDay() <= toDay; b++) {
+            CompressedBlock block = coldBlocks[b];
+            int base = b * CompressedBlock.SIZE;
+            if (block.getFirstDay() >= fromDay && block.getLastDay() <= toDay) {
+                double value = highest ? block.getMax(measure) : block.getMin(measure);
+                if (bestSlot < 0 || (highest ? value > best : value < best)) {
+                    bestSlot = base + (highest ? block.getMaxOffset(measure) : block.getMinOffset(measure));
+                    best = value;
+                }
+                continue;
+            }
+            CompressedBlock.Decoded decoded = DECODED.get().load(block);
+            int end = offsetInBlock(decoded, (long) toDay + 1);
+            for (int i = offsetInBlock(decoded, fromDay); i < end; i++) {
+                double value = decoded.value(measure, i);
+                if (bestSlot < 0 || (highest ? value > best : value < best)) {
+                    bestSlot = base + i;
+                    best = value;
+                }
+            }
+        }
+        return bestSlot;
+    }
+
+    /**
+     * Returns the first compressed block whose last date is not before a given
+     * date; there must be one.
+     */
+    private int firstBlockEndingAtOrAfter(int epochDay) {
+        int low = 0;
+        int high = coldBlocks.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (coldBlocks[mid].getLastDay() < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first offset in a block whose date is not before a given
+     * date, or {@value CompressedBlock#SIZE} if there is none.
+     */
+    private static int offsetInBlock(CompressedBlock.Decoded decoded, long epochDay) {
+        CompressedBlock block = decoded.block();
+        if (epochDay > block.getLastDay()) {
+            return CompressedBlock.SIZE;
+        }
+        if (block.isContiguous()) {
+            return (int) Math.max(0, epochDay - block.getFirstDay());
+        }
+        return DateIndex.lowerBound(decoded.days(), CompressedBlock.SIZE, (int) epochDay);
+    }
+
+    private CompressedBlock.Decoded decoded(int slot) {
+        return DECODED.get().load(coldBlocks[slot >> CompressedBlock.SHIFT]);
+    }
+
+    private double getValue(WeatherMeasure measure, int slot) {
+        return switch (measure) {
+            case TEMPERATURE -> getTemperature(slot);
+            case HUMIDITY -> getHumidity(slot);
+            case WIND -> getWindSpeed(slot);
+        };
+    }
+
+    private int firstEpochDay() {
+        return coldSize > 0 ? coldBlocks[0].getFirstDay() : epochDays[0];
+    }
+
+    private int lastEpochDay() {
+        return size > coldSize ? epochDays[size - coldSize - 1] : getLastCompressedDay();
+    }
+
+    private RangeIndex rangeIndex() {
+        RangeIndex rangeIndex = this.rangeIndex;
+        if (rangeIndex == null && !readOnly) {
+            adoptOfferedRangeIndex();
+            rangeIndex = this.rangeIndex;
+        }
+        if (rangeIndex == null) {
+            Metrics.increment(CounterMetric.INDEX_CACHE_MISSES);
+            rangeIndex = RangeIndex.build(this);
+            if (source != null) {
+                // The store being appended to extends this index from here
+                // on, so later snapshots need not build it again
+                RangeIndex built = rangeIndex;
+                rangeIndex = built.snapshot();
+                source.offeredRangeIndex = new RangeIndexOffer(built, rangeIndexVersion);
+            }
+            this.rangeIndex = rangeIndex;
+        } else {
+            Metrics.increment(CounterMetric.INDEX_CACHE_HITS);
+        }
+        return rangeIndex;
+    }
+
+    private void dropRangeIndex() {
+        rangeIndex = null;
+        rangeIndexVersion++;
+    }
+
+    /**
+     * Takes over a range index built by a snapshot of this store, unless this
+     * store has dropped its range index since, and indexes the records
+     * appended after the snapshot.
+     */
+    private void adoptOfferedRangeIndex() {
+        RangeIndexOffer offer = offeredRangeIndex;
+        if (offer == null) {
+            return;
+        }
+        offeredRangeIndex = null;
+        if (rangeIndex != null || offer.version != rangeIndexVersion) {
+            return;
+        }
+        RangeIndex index = offer.index;
+        for (int slot = coldSize + index.size(); slot < size; slot++) {
+            if (!index.canAppend(getEpochDay(slot))) {
+                return;
+            }
+            index.append(this, slot);
+        }
+        rangeIndex = index;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("A snapshot of weather records is read-only");
+        }
+    }
+
+    private void trackOrder(int previousDay, int nextDay) {
+        sortedByDate &= previousDay <= nextDay;
+        contiguous &= nextDay == previousDay + 1;
+        dateIndex = null;
+    }
+
+    /**
+     * Moves the compressed blocks holding dates after a given one back into
+     * the columns, ahead of the hot tail. Blocks before them stay compressed.
+     */
+    private void decompressHistoryAfter(int epochDay) {
+        int firstBlock = firstBlockEndingAtOrAfter(epochDay + 1);
+        int newColdSize = firstBlock * CompressedBlock.SIZE;
+        int reopened = coldSize - newColdSize;
+        int hotSize = size - coldSize;
+        int capacity = reopened + hotSize + ((reopened + hotSize) >> 1) + 1;
+        int[] newDays = new int[capacity];
+        double[] newTemperatures = new double[capacity];
+        float[] newHumidities = new float[capacity];
+        double[] newWindSpeeds = new double[capacity];
+        byte[] newConditions = new byte[capacity];
+        CompressedBlock.Decoded decoded = new CompressedBlock.Decoded();
+        for (int b = firstBlock; b < coldBlocks.length; b++) {
+            decoded.load(coldBlocks[b]);
+            int base = (b - firstBlock) * CompressedBlock.SIZE;
+            System.arraycopy(decoded.days(), 0, newDays, base, CompressedBlock.SIZE);
+            System.arraycopy(decoded.values(WeatherMeasure.TEMPERATURE), 0, newTemperatures, base, CompressedBlock.SIZE);
+            double[] blockHumidities = decoded.values(WeatherMeasure.HUMIDITY);
+            for (int i = 0; i < CompressedBlock.SIZE; i++) {
+                newHumidities[base + i] = (float) blockHumidities[i];
+            }
+            System.arraycopy(decoded.values(WeatherMeasure.WIND), 0, newWindSpeeds, base, CompressedBlock.SIZE);
+            System.arraycopy(decoded.conditions(), 0, newConditions, base, CompressedBlock.SIZE);
+        }
+        System.arraycopy(epochDays, 0, newDays, reopened, hotSize);
+        System.arraycopy(temperatures, 0, newTemperatures, reopened, hotSize);
+        System.arraycopy(humidities, 0, newHumidities, reopened, hotSize);
+        System.arraycopy(windSpeeds, 0, newWindSpeeds, reopened, hotSize);
+        System.arraycopy(conditions, 0, newConditions, reopened, hotSize);
+        epochDays = newDays;
+        temperatures = newTemperatures;
+        humidities = newHumidities;
+        windSpeeds = newWindSpeeds;
+        conditions = newConditions;
+        coldBlocks = firstBlock == 0 ? NO_BLOCKS : Arrays.copyOf(coldBlocks, firstBlock);
+        coldSize = newColdSize;
+        dateIndex = null;
+        dropRangeIndex();
+    }
+
+    /**
+     * Stably sorts all columns by date. Compressed history is already in
+     * order and before the hot tail, so only the tail is sorted.
+     */
+    public void sortByDate() {
+        checkWritable();
+        if (isSortedByDate()) {
+            return;
+        }
+
+        // Sort (epochDay, slot) pairs packed into longs; the slot in the low
+        // bits keeps records sharing a date in insertion order.
+        int hotSize = size - coldSize;
+        long[] keys = new long[hotSize];
+        for (int i = 0; i < hotSize; i++) {
+            keys[i] = ((long) epochDays[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] sortedDays = new int[epochDays.length];
+        double[] sortedTemperatures = new double[epochDays.length];
+        float[] sortedHumidities = new float[epochDays.length];
+        double[] sortedWindSpeeds = new double[epochDays.length];
+        byte[] sortedConditions = new byte[epochDays.length];
+        for (int i = 0; i < hotSize; i++) {
+            int slot = (int) keys[i];
+            sortedDays[i] = epochDays[slot];
+            sortedTemperatures[i] = temperatures[slot];
+            sortedHumidities[i] = humidities[slot];
+            sortedWindSpeeds[i] = windSpeeds[slot];
+            sortedConditions[i] = conditions[slot];
+        }
+        epochDays = sortedDays;
+        temperatures = sortedTemperatures;
+        humidities = sortedHumidities;
+        windSpeeds = sortedWindSpeeds;
+        conditions = sortedConditions;
+
+        sortedByDate = true;
+        contiguous = true;
+        for (int b = 0; b < coldBlocks.length && contiguous; b++) {
+            contiguous = coldBlocks[b].isContiguous()
+                && (b == 0 || coldBlocks[b].getFirstDay() == coldBlocks[b - 1].getLastDay() + 1);
+        }
+        if (coldSize > 0 && hotSize > 0) {
+            contiguous &= epochDays[0] == getLastCompressedDay() + 1;
+        }
+        for (int i = 1; i < hotSize && contiguous; i++) {
+            contiguous = epochDays[i] == epochDays[i - 1] + 1;
+        }
+        dateIndex = null;
+        dropRangeIndex();
+    }
+
+    /**
+     * A range index built by a snapshot, and the range index version of the
+     * store at the time of the snapshot.
+     */
+    private static final class RangeIndexOffer {
+        private final RangeIndex index;
+        private final int version;
+
+        RangeIndexOffer(RangeIndex index, int version) {
+            this.index = index;
+            this.version = version;
+        }
+    }
+}
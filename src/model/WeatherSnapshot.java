@@ -0,0 +1,125 @@
+package model;
+
+import enums.WeatherStatKey;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable, versioned view of all cities of a {@link WeatherDataManager}
+ * at one point in time, indexed by city ID.
+ *
+ * The cities are read-only {@link City#snapshot() snapshots}, kept in segments
+ * of {@value #SEGMENT_SIZE}. Publishing a change copies only the segments of
+ * the cities that changed, plus the small array of segments, so a new version
+ * costs O(changed cities + cities / {@value #SEGMENT_SIZE}) no matter how many
+ * records there are. Readers holding an older version keep seeing it unchanged
+ * and never wait for writers.
+ *
+ * Each version also carries the statistics leaders over exactly its cities.
+ */
+public class WeatherSnapshot {
+    static final int SEGMENT_SIZE = 64;
+    private static final int SEGMENT_SHIFT = Integer.numberOfTrailingZeros(SEGMENT_SIZE);
+    private static final WeatherSnapshot EMPTY =
+        new WeatherSnapshot(0, new City[0][], 0, new StatLeaderboard(List.of(), false).getRankings());
+
+    private final long version;
+    private final City[][] segments;
+    private final int cityCount;
+    private final Map<WeatherStatKey, StatResult> rankings;
+
+    private WeatherSnapshot(long version, City[][] segments, int cityCount, Map<WeatherStatKey, StatResult> rankings) {
+        this.version = version;
+        this.segments = segments;
+        this.cityCount = cityCount;
+        this.rankings = rankings;
+    }
+
+    /**
+     * Returns the snapshot without cities, version 0.
+     */
+    static WeatherSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the next version, with some cities replaced or added.
+     *
+     * @param cityIds the IDs of the cities to set; IDs past the current ones
+     *                grow the snapshot, and any gap must be filled in the same call
+     * @param cities  the read-only cities, indexed like {@code cityIds}
+     * @param rankings the statistics leaders over all cities of the next
+     *                version, see {@link StatLeaderboard#getRankings()}
+     */
+    WeatherSnapshot with(int[] cityIds, City[] cities, Map<WeatherStatKey, StatResult> rankings) {
+        int newCount = cityCount;
+        for (int cityId : cityIds) {
+            newCount = Math.max(newCount, cityId + 1);
+        }
+        int segmentCount = (newCount + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT;
+        City[][] newSegments = Arrays.copyOf(segments, segmentCount);
+        boolean[] copied = new boolean[segmentCount];
+        for (int i = 0; i < cityIds.length; i++) {
+            int segment = cityIds[i] >>> SEGMENT_SHIFT;
+            if (!copied[segment]) {
+                newSegments[segment] = newSegments[segment] == null
+                    ? new City[SEGMENT_SIZE]
+                    : newSegments[segment].clone();
+                copied[segment] = true;
+            }
+            newSegments[segment][cityIds[i] & (SEGMENT_SIZE - 1)] = Objects.requireNonNull(cities[i]);
+        }
+        return new WeatherSnapshot(version + 1, newSegments, newCount, rankings);
+    }
+
+    /**
+     * Returns the version, which grows by one with every published change.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the statistics leaders of this version, as a new object. Each
+     * ranking holds the leader only.
+     */
+    public WeatherStats getStats() {
+        return StatLeaderboard.toStats(rankings);
+    }
+
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    /**
+     * Returns the city with an ID as it was in this version.
+     *
+     * @throws IllegalArgumentException if no city has that ID in this version
+     */
+    public City getCity(int cityId) {
+        if (cityId < 0 || cityId >= cityCount) {
+            throw new IllegalArgumentException("City not found: #" + cityId);
+        }
+        return segments[cityId >>> SEGMENT_SHIFT][cityId & (SEGMENT_SIZE - 1)];
+    }
+
+    /**
+     * Returns all cities of this version, indexed by ID.
+     */
+    public List<City> getCities() {
+        return new AbstractList<>() {
+            @Override
+            public City get(int index) {
+                return getCity(Objects.checkIndex(index, cityCount));
+            }
+
+            @Override
+            public int size() {
+                return cityCount;
+            }
+        };
+    }
+}
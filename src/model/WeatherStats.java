@@ -8,10 +8,13 @@ import java.util.Map;
 /**
  * Represents a collection of weather-related statistics for various cities,
  * indexed by {@link WeatherStatKey}. Statistics are stored as string values,
- * typically representing city names corresponding to each metric.
+ * typically representing city names corresponding to each metric. Each
+ * statistic may also carry its ranking, i.e. the leading cities with their
+ * values and tie groups.
  */
 public class WeatherStats {
     private final Map<WeatherStatKey, String> stats;
+    private final Map<WeatherStatKey, StatResult> rankings;
     private boolean isValid;
 
     /**
@@ -20,6 +23,7 @@ public class WeatherStats {
      */
     public WeatherStats() {
         this.stats = new EnumMap<>(WeatherStatKey.class);
+        this.rankings = new EnumMap<>(WeatherStatKey.class);
         this.isValid = false;
     }
 
@@ -30,6 +34,7 @@ public class WeatherStats {
      */
     public WeatherStats(Map<WeatherStatKey, String> stats) {
         this.stats = new EnumMap<>(stats);
+        this.rankings = new EnumMap<>(WeatherStatKey.class);
         this.isValid = true;
     }
 
@@ -55,6 +60,28 @@ public class WeatherStats {
         stats.put(key, value);
     }
 
+    /**
+     * Returns the ranking behind a weather statistic.
+     *
+     * @param key the statistic key to retrieve
+     * @return the ranked cities with their values, or null if no ranking was set
+     * @throws WeatherStatsNotValidException if the object is not marked as valid
+     */
+    public StatResult getRanking(WeatherStatKey key) throws WeatherStatsNotValidException {
+        checkValidity();
+        return rankings.get(key);
+    }
+
+    /**
+     * Sets or updates the ranking behind a weather statistic.
+     *
+     * @param key     the key representing the statistic type
+     * @param ranking the ranked cities with their values
+     */
+    public void setRanking(WeatherStatKey key, StatResult ranking) {
+        rankings.put(key, ranking);
+    }
+
     /**
      * Returns a copy of the full map of all statistics.
      *
@@ -1,9 +1,42 @@
 package model;
 
+import enums.ChangeKind;
+import java.util.Set;
+import java.util.function.IntPredicate;
 import view.WeatherObserver;
 
 public interface WeatherSubject {
+    /**
+     * Subscribes an observer to every kind of change of every city.
+     */
     public void addObserver(WeatherObserver observer);
+
+    /**
+     * Subscribes an observer to some kinds of change.
+     *
+     * @param kinds the kinds of change to receive
+     */
+    public void addObserver(WeatherObserver observer, Set<ChangeKind> kinds);
+
+    /**
+     * Subscribes an observer to some kinds of change, and to appended records
+     * only of some cities. The filter is evaluated on every append, so it may
+     * follow state that changes, such as the selected city.
+     *
+     * @param kinds      the kinds of change to receive
+     * @param cityFilter accepts the IDs of the cities whose appended records to receive
+     */
+    public void addObserver(WeatherObserver observer, Set<ChangeKind> kinds, IntPredicate cityFilter);
+
     public void removeObserver(WeatherObserver observer);
+
+    /**
+     * Asks every observer to refresh completely, e.g. after the initial load.
+     */
     public void notifyObservers();
+
+    /**
+     * Delivers a change to the observers subscribed to it.
+     */
+    public void notifyObservers(WeatherChange change);
 }
@@ -1,27 +0,0 @@
-package util;
-
-public class CheckListItem {
-    private final String label;
-    private boolean isSelected = false;
-
-    public CheckListItem(String label) {
-        this.label = label;
-    }
-
-    public boolean isSelected() {
-        return isSelected;
-    }
-
-    public void setSelected(boolean selected) {
-        isSelected = selected;
-    }
-
-    public String getLabel() {
-        return label;
-    }
-
-    @Override
-    public String toString() {
-        return label;
-    }
-}
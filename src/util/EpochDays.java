@@ -0,0 +1,118 @@
+package util;
+
+/**
+ * Allocation-free conversions between ISO calendar dates and epoch days
+ * (days since 1970-01-01), matching {@link java.time.LocalDate#toEpochDay()}.
+ */
+public final class EpochDays {
+    private static final int DAYS_PER_CYCLE = 146097;
+    private static final int DAYS_0000_TO_1970 = (DAYS_PER_CYCLE * 5) - (30 * 365 + 7);
+
+    private EpochDays() {
+    }
+
+    /**
+     * Returns the epoch day of a valid ISO date.
+     */
+    public static int of(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return (int) (total - DAYS_0000_TO_1970);
+    }
+
+    /**
+     * Returns the year of an epoch day.
+     */
+    public static int yearOf(int epochDay) {
+        long marchBased = marchBasedDate(epochDay);
+        long yearEst = marchBased >> 32;
+        int marchDoy0 = (int) (marchBased & 0xFFFFFFFFL);
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        return (int) (yearEst + marchMonth0 / 10);
+    }
+
+    /**
+     * Returns the month (1-12) of an epoch day.
+     */
+    public static int monthOf(int epochDay) {
+        int marchDoy0 = (int) (marchBasedDate(epochDay) & 0xFFFFFFFFL);
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        return (marchMonth0 + 2) % 12 + 1;
+    }
+
+    /**
+     * Returns the day of month (1-31) of an epoch day.
+     */
+    public static int dayOfMonthOf(int epochDay) {
+        int marchDoy0 = (int) (marchBasedDate(epochDay) & 0xFFFFFFFFL);
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        return marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+    }
+
+    /**
+     * Returns the Monday-based week of an epoch day, counted from the week of
+     * 1970-01-01 (which starts on Monday 1969-12-29) as week 0.
+     */
+    public static int weekOf(int epochDay) {
+        return Math.floorDiv(epochDay + 3, 7);
+    }
+
+    /**
+     * Returns the epoch day of the Monday starting a week from {@link #weekOf(int)}.
+     */
+    public static int firstDayOfWeek(int week) {
+        return week * 7 - 3;
+    }
+
+    /**
+     * Returns the number of days in a month.
+     */
+    public static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    public static boolean isLeapYear(long year) {
+        return ((year & 3) == 0) && ((year % 100) != 0 || (year % 400) == 0);
+    }
+
+    /**
+     * Same algorithm as {@link java.time.LocalDate#ofEpochDay(long)}: packs the
+     * March-based year into the high and the March-based day of year into the
+     * low 32 bits.
+     */
+    private static long marchBasedDate(int epochDay) {
+        long zeroDay = (long) epochDay + DAYS_0000_TO_1970;
+        zeroDay -= 60;
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / DAYS_PER_CYCLE - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * DAYS_PER_CYCLE;
+        }
+        long yearEst = (400 * zeroDay + 591) / DAYS_PER_CYCLE;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust;
+        return (yearEst << 32) | doyEst;
+    }
+}
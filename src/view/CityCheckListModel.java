@@ -0,0 +1,96 @@
+package view;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.swing.AbstractListModel;
+
+/**
+ * List model of all cities with a check mark each.
+ *
+ * The rows are the dictionary's names themselves and the check marks are one
+ * bit per city, so there is no per-row object. Unfiltered, row i is the city
+ * with ID i; new cities are only ever appended, and each batch fires a single
+ * interval-added event, leaving the existing rows and their check marks
+ * alone. A filter shows only some cities, in the filter's order, and keeps
+ * the check marks of the hidden ones.
+ */
+class CityCheckListModel extends AbstractListModel<String> {
+    private String[] cityNames = new String[0];
+    private int[] filter;
+    private final BitSet checked = new BitSet();
+
+    @Override
+    public int getSize() {
+        return filter == null ? cityNames.length : filter.length;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return cityNames[cityIdAt(index)];
+    }
+
+    int getCityCount() {
+        return cityNames.length;
+    }
+
+    /**
+     * @param cityNames the names of all cities, indexed by city ID
+     */
+    void setCityNames(String[] cityNames) {
+        int oldSize = this.cityNames.length;
+        this.cityNames = cityNames;
+        if (filter != null) {
+            return; // the shown rows do not change
+        }
+        if (cityNames.length > oldSize) {
+            fireIntervalAdded(this, oldSize, cityNames.length - 1);
+        } else if (cityNames.length < oldSize) {
+            checked.clear(cityNames.length, oldSize);
+            fireIntervalRemoved(this, cityNames.length, oldSize - 1);
+        }
+    }
+
+    /**
+     * Shows only some cities.
+     *
+     * @param cityIds the IDs of the cities to show, in order, or null to show all
+     */
+    void setFilter(int[] cityIds) {
+        if (Arrays.equals(cityIds, filter)) {
+            return;
+        }
+        int oldSize = getSize();
+        filter = cityIds == null ? null : Arrays.stream(cityIds).filter(id -> id < cityNames.length).toArray();
+        int newSize = getSize();
+
+        if (Math.min(oldSize, newSize) > 0) {
+            fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+        }
+        if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        } else if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+    }
+
+    boolean isChecked(int index) {
+        return checked.get(cityIdAt(index));
+    }
+
+    void toggle(int index) {
+        checked.flip(cityIdAt(index));
+        fireContentsChanged(this, index, index);
+    }
+
+    /**
+     * Returns the IDs of the checked cities, in ascending order, including
+     * those hidden by the filter.
+     */
+    int[] getCheckedCityIds() {
+        return checked.stream().toArray();
+    }
+
+    private int cityIdAt(int index) {
+        return filter == null ? index : filter[index];
+    }
+}
@@ -2,29 +2,39 @@ package view;
 
 import enums.TempUnit;
 import listener.CitySelectionListener;
+import metrics.Metrics;
 
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.function.Function;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import model.CityDictionary;
+import model.WeatherChange;
 import model.WeatherRecord;
 import model.WeatherSubject;
 import model.WeatherDataManager;
-import model.City;
 
 /**
  * Panel for choosing City & Date and displaying that day's weather.
  * Implements WeatherObserver to refresh display when unit changes.
  */
 public class CitySelectionView extends JPanel implements WeatherObserver {
+    private JTextField searchField;
     private JComboBox<String> cityCombo;
+    private DefaultComboBoxModel<String> cityModel;
     private JSpinner dateSpinner;
     private JButton showButton;
     private JLabel tempLabel, humidityLabel, windLabel, conditionLabel;
 
     private CitySelectionListener listener;
+    private WeatherRecord shownRecord;
+    private Function<String, int[]> citySearch;
+    private CityDictionary cityDictionary;
 
     public CitySelectionView() {
         initComponents();
@@ -46,14 +56,29 @@ public class CitySelectionView extends JPanel implements WeatherObserver {
         gbc.anchor = GridBagConstraints.WEST;
         gbc.fill = GridBagConstraints.HORIZONTAL;
 
-        // City dropdown - with smaller font
+        // Type-ahead search: jumps the dropdown to the best matching city
         gbc.gridx = 0; gbc.gridy = 0;
+        JLabel searchLabel = new JLabel("Find:");
+        searchLabel.setFont(new Font(searchLabel.getFont().getName(), Font.BOLD, 12));
+        leftPanel.add(searchLabel, gbc);
+
+        gbc.gridx = 1;
+        searchField = new JTextField();
+        searchField.setFont(new Font(searchField.getFont().getName(), Font.PLAIN, 12));
+        searchField.setPreferredSize(new Dimension(180, 25));
+        gbc.weightx = 1.0;
+        leftPanel.add(searchField, gbc);
+        gbc.weightx = 0.0;
+
+        // City dropdown - with smaller font
+        gbc.gridx = 0; gbc.gridy = 1;
         JLabel cityLabel = new JLabel("City:");
         cityLabel.setFont(new Font(cityLabel.getFont().getName(), Font.BOLD, 12));
         leftPanel.add(cityLabel, gbc);
         
         gbc.gridx = 1;
-        cityCombo = new JComboBox<>();
+        cityModel = new DefaultComboBoxModel<>();
+        cityCombo = new JComboBox<>(cityModel);
         cityCombo.setFont(new Font(cityCombo.getFont().getName(), Font.PLAIN, 12));
         cityCombo.setPreferredSize(new Dimension(180, 25)); // Smaller size
         gbc.weightx = 1.0;
@@ -61,7 +86,7 @@ public class CitySelectionView extends JPanel implements WeatherObserver {
         gbc.weightx = 0.0;
 
         // Date spinner with restricted range: 2025-01-01 to 2025-05-31
-        gbc.gridx = 0; gbc.gridy = 1;
+        gbc.gridx = 0; gbc.gridy = 2;
         JLabel dateLabel = new JLabel("Date:");
         dateLabel.setFont(new Font(dateLabel.getFont().getName(), Font.BOLD, 12));
         leftPanel.add(dateLabel, gbc);
@@ -89,7 +114,7 @@ public class CitySelectionView extends JPanel implements WeatherObserver {
         gbc.weightx = 0.0;
 
         gbc.gridx = 0;
-        gbc.gridy = 2;
+        gbc.gridy = 3;
         gbc.gridwidth = 2; // Span across two columns
         gbc.fill = GridBagConstraints.NONE;
         gbc.anchor = GridBagConstraints.CENTER;
@@ -180,38 +205,123 @@ public class CitySelectionView extends JPanel implements WeatherObserver {
         add(rightPanel, BorderLayout.CENTER);
 
         // Show button action → listener
-        showButton.addActionListener(e -> {
-            Date d = (Date) dateSpinner.getValue();
-            LocalDate ld = d.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-            String city = (String) cityCombo.getSelectedItem();
-            if (listener != null) {
-                listener.onCitySelected(city, ld);
+        showButton.addActionListener(e -> fireCitySelected());
+
+        // Each keystroke selects the best match; Enter shows its weather
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                selectBestMatch();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                selectBestMatch();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                selectBestMatch();
+            }
+        });
+        searchField.addActionListener(e -> {
+            if (cityCombo.getSelectedItem() != null) {
+                fireCitySelected();
+            }
+        });
+
+        // Changing the date queries right away; the controller drops superseded requests
+        dateSpinner.addChangeListener(e -> {
+            if (cityCombo.getSelectedItem() != null) {
+                fireCitySelected();
             }
         });
     }
 
+    private void fireCitySelected() {
+        LocalDate ld = getSelectedDate();
+        int cityId = getSelectedCityId();
+        if (listener != null) {
+            listener.onCitySelected(cityId, ld);
+        }
+    }
+
+    /**
+     * Returns the ID of the selected city, or -1 if none is selected. The combo
+     * lists the cities in ID order, so the index is the city ID.
+     */
+    public int getSelectedCityId() {
+        return cityCombo.getSelectedIndex();
+    }
+
+    private LocalDate getSelectedDate() {
+        Date d = (Date) dateSpinner.getValue();
+        return d.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
     public void addCitySelectionListener(CitySelectionListener l) {
         this.listener = l;
     }
 
+    /**
+     * @param citySearch returns the IDs of the cities matching a query, best match first
+     */
+    public void setCitySearch(Function<String, int[]> citySearch) {
+        this.citySearch = citySearch;
+    }
+
+    private void selectBestMatch() {
+        String query = searchField.getText();
+        if (citySearch == null || query.isBlank()) {
+            searchField.setForeground(UIManager.getColor("TextField.foreground"));
+            return;
+        }
+        int[] matches = citySearch.apply(query);
+        // The search may know cities registered since the last notification
+        addNewCities();
+        int best = matches.length > 0 ? matches[0] : -1;
+        if (best >= 0) {
+            cityCombo.setSelectedIndex(best);
+        }
+        searchField.setForeground(best >= 0 ? UIManager.getColor("TextField.foreground") : Color.RED);
+    }
+
     public void populateCities(String[] cities) {
-        cityCombo.setModel(new DefaultComboBoxModel<>(cities));
+        cityModel = new DefaultComboBoxModel<>(cities);
+        cityCombo.setModel(cityModel);
+    }
+
+    /**
+     * Appends the cities registered since the dropdown was last filled. IDs
+     * are handed out in order, so appending keeps the index the city ID.
+     */
+    private void addNewCities() {
+        if (cityDictionary == null) {
+            return;
+        }
+        int count = cityDictionary.size();
+        for (int id = cityModel.getSize(); id < count; id++) {
+            cityModel.addElement(cityDictionary.nameOf(id));
+        }
     }
 
     public void showWeather(WeatherRecord rec, TempUnit unit) {
+        shownRecord = rec;
+
         // Get temperature in Celsius from the record
         double celsiusTemp = rec.getTemperature();
         
         // Convert to the correct unit
         double displayTemp = unit.convertFromCelsius(celsiusTemp);
         
-        tempLabel.setText(String.format("%.1f °%s", displayTemp, unit.getSymbol()));
+        tempLabel.setText(String.format("%.1f %s", displayTemp, unit.getDisplaySymbol()));
         humidityLabel.setText(String.format("%.0f %%", rec.getHumidity()));
         windLabel.setText(String.format("%.1f km/h", rec.getWindSpeed()));
         conditionLabel.setText(rec.getWeatherCondition().toString());
     }
 
     public void showError(String message) {
+        shownRecord = null;
         JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.WARNING_MESSAGE);
     }
 
@@ -219,21 +329,15 @@ public class CitySelectionView extends JPanel implements WeatherObserver {
     public void update(WeatherSubject subject) {
         try {
             WeatherDataManager dataManager = (WeatherDataManager) subject;
-            
-            // Populate cities dropdown if it's empty
-            if (cityCombo.getItemCount() == 0) {
-                // Extract city names from the model
-                String[] cityNames = dataManager.getCities().stream()
-                    .map(City::getName)
-                    .distinct()
-                    .toArray(String[]::new);
-                
-                populateCities(cityNames);
-                
-                // Select first city if available
-                if (cityNames.length > 0) {
-                    cityCombo.setSelectedIndex(0);
-                }
+            cityDictionary = dataManager.getCityDictionary();
+
+            // Add the cities registered since, e.g. by the streaming ingestor
+            boolean wasEmpty = cityCombo.getItemCount() == 0;
+            addNewCities();
+
+            // Select first city if available
+            if (wasEmpty && cityCombo.getItemCount() > 0) {
+                cityCombo.setSelectedIndex(0);
             }
             
             // Refresh current selection if there's a city selected
@@ -241,7 +345,35 @@ public class CitySelectionView extends JPanel implements WeatherObserver {
                 showButton.doClick();
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            Metrics.reportError(e);
+        }
+    }
+
+    /**
+     * Redraws the shown record in a new unit without querying the model, and
+     * queries again only if records arrived for the selected city and date.
+     */
+    @Override
+    public void onChange(WeatherSubject subject, WeatherChange change) {
+        try {
+            WeatherDataManager dataManager = (WeatherDataManager) subject;
+            switch (change.getKind()) {
+                case UNIT_CHANGED -> {
+                    if (shownRecord != null) {
+                        showWeather(shownRecord, dataManager.getTempUnit());
+                    }
+                }
+                case RECORDS_APPENDED -> {
+                    cityDictionary = dataManager.getCityDictionary();
+                    addNewCities();
+                    if (change.affects(getSelectedCityId()) && change.covers(getSelectedDate())) {
+                        fireCitySelected();
+                    }
+                }
+                default -> update(subject);
+            }
+        } catch (Exception e) {
+            Metrics.reportError(e);
         }
     }
-}
\ No newline at end of file
+}
@@ -2,26 +2,27 @@ package view;
 
 import listener.MultipleCitySelectionListener;
 import model.WeatherSubject;
-import util.CheckListItem;
-import model.City;
 import model.WeatherDataManager;
-import model.WeatherRecord;
+import model.CityWeatherBatch;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 public class MultipleCitySelectionView extends JPanel implements WeatherObserver {
-    private DefaultListModel<CheckListItem> cityListModel;
-    private JList<CheckListItem> cityList;
+    private CityCheckListModel cityListModel;
+    private JList<String> cityList;
+    private JTextField searchField;
+    private Function<String, int[]> citySearch;
     private JButton showButton;
     private JTextArea outputArea;
     private MultipleCitySelectionListener listener;
+    private String[] cityNames = new String[0];
 
     public MultipleCitySelectionView() {
         initComponents();
@@ -37,14 +38,11 @@ public class MultipleCitySelectionView extends JPanel implements WeatherObserver
                 BorderFactory.createEmptyBorder(5, 5, 5, 5)
         ));
 
-        cityListModel = new DefaultListModel<>();
+        cityListModel = new CityCheckListModel();
         cityList = new JList<>(cityListModel);
-        cityList.setCellRenderer((list, value, index, isSelected, cellHasFocus) -> {
-          JCheckBox checkBox = new JCheckBox(value.getLabel(), value.isSelected());
-          checkBox.setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
-          checkBox.setForeground(isSelected ? list.getSelectionForeground() : list.getForeground());
-          return checkBox;
-        });
+        cityList.setCellRenderer(new CheckBoxRenderer(cityListModel));
+        // Fixed cell size: the list measures one prototype instead of every city
+        cityList.setPrototypeCellValue("XXXXXXXXXXXXXXXX");
       
         cityList.setVisibleRowCount(5);
         JScrollPane listScrollPane = new JScrollPane(cityList);
@@ -56,7 +54,28 @@ public class MultipleCitySelectionView extends JPanel implements WeatherObserver
         outputArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         JScrollPane outputScrollPane = new JScrollPane(outputArea);
 
+        // Narrows the list to the matching cities; check marks are kept
+        searchField = new JTextField();
+        searchField.setToolTipText("Find cities");
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applySearch();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applySearch();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applySearch();
+            }
+        });
+
         JPanel listAndButton = new JPanel(new BorderLayout(5, 5));
+        listAndButton.add(searchField, BorderLayout.NORTH);
         listAndButton.add(listScrollPane, BorderLayout.CENTER);
         listAndButton.add(showButton, BorderLayout.SOUTH);
 
@@ -67,24 +86,18 @@ public class MultipleCitySelectionView extends JPanel implements WeatherObserver
           public void mouseClicked(MouseEvent e) {
               int index = cityList.locationToIndex(e.getPoint());
               if (index >= 0) {
-                  CheckListItem item = cityListModel.getElementAt(index);
-                  item.setSelected(!item.isSelected());
-                  cityList.repaint();
+                  // Repaints just this row
+                  cityListModel.toggle(index);
               }
           }
       });      
 
         showButton.addActionListener(e -> {
-          List<String> selectedCities = new ArrayList<>();
-          for (int i = 0; i < cityListModel.size(); i++) {
-              CheckListItem item = cityListModel.get(i);
-              if (item.isSelected()) {
-                  selectedCities.add(item.getLabel());
-              }
-          }
+          // Checked cities stay checked while filtered out of the list
+          int[] selectedCityIds = cityListModel.getCheckedCityIds();
 
           if (listener != null) {
-              listener.onSelectedCitiesChange(selectedCities);
+              listener.onSelectedCitiesChange(selectedCityIds);
           }
       });
     }
@@ -93,26 +106,47 @@ public class MultipleCitySelectionView extends JPanel implements WeatherObserver
         this.listener = listener;
     }
 
+    /**
+     * @param cities the names of all cities, indexed by city ID
+     */
     public void updateCityList(String[] cities) {
-        cityListModel.clear();
-        for (String city : cities) {
-            cityListModel.addElement(new CheckListItem(city));
+        cityListModel.setCityNames(cities);
+        applySearch();
+    }
+
+    /**
+     * @param citySearch returns the IDs of the cities matching a query, best match first
+     */
+    public void setCitySearch(Function<String, int[]> citySearch) {
+        this.citySearch = citySearch;
+    }
+
+    private void applySearch() {
+        String query = searchField.getText();
+        if (citySearch == null || query.isBlank()) {
+            cityListModel.setFilter(null);
+        } else {
+            cityListModel.setFilter(citySearch.apply(query));
         }
     }
 
-    public void showComparedCities(Map<String, WeatherRecord> records) {
+    /**
+     * @param batch the weather of the compared cities; rows without data are skipped
+     */
+    public void showComparedCities(CityWeatherBatch batch) {
         StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String, WeatherRecord> entry : records.entrySet()) {
-            String city = entry.getKey();
-            WeatherRecord record = entry.getValue();
+        for (int row = 0; row < batch.size(); row++) {
+            if (!batch.hasData(row)) {
+                continue;
+            }
             sb.append(String.format("%-12s Temp: %.1f°C, Humidity: %.1f%%, Wind: %.1f km/h%n",
-                    city,
-                    record.getTemperature(),
-                    record.getHumidity(),
-                    record.getWindSpeed()));
+                    cityNames[batch.getCityId(row)],
+                    batch.getTemperature(row),
+                    batch.getHumidity(row),
+                    batch.getWindSpeed(row)));
         }
 
-        if (records.isEmpty()) {
+        if (batch.countWithData() == 0) {
             sb.append("No data available for selected cities.\n");
         }
 
@@ -123,15 +157,40 @@ public class MultipleCitySelectionView extends JPanel implements WeatherObserver
     public void update(WeatherSubject subject) {
       try {
         WeatherDataManager dataManager = (WeatherDataManager) subject;
-        String[] cities = dataManager.getCities().stream()
-        .map(City::getName)
-        .distinct()
-        .toArray(String[]::new);
+        // City names, indexed by city ID
+        String[] cities = dataManager.getCityDictionary().names();
 
-        updateCityList(cities);
+        // Only cities added since the last update are new rows
+        if (cities.length != cityListModel.getCityCount()) {
+            updateCityList(cities);
+        }
+        cityNames = cities;
 
       } catch (Exception e) {
 
       }
     }
+
+    /**
+     * Paints every row with the same check box, restyled per row.
+     */
+    private static class CheckBoxRenderer implements ListCellRenderer<String> {
+        private final JCheckBox checkBox = new JCheckBox();
+        private final CityCheckListModel model;
+
+        CheckBoxRenderer(CityCheckListModel model) {
+            this.model = model;
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends String> list, String value,
+                int index, boolean isSelected, boolean cellHasFocus) {
+            checkBox.setText(value);
+            checkBox.setSelected(index >= 0 && model.isChecked(index));
+            checkBox.setFont(list.getFont());
+            checkBox.setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
+            checkBox.setForeground(isSelected ? list.getSelectionForeground() : list.getForeground());
+            return checkBox;
+        }
+    }
 }
@@ -1,9 +1,11 @@
 package view;
 
+import enums.ChangeKind;
 import enums.TempUnit;
 import enums.WeatherStatKey;
 import exception.WeatherStatsNotValidException;
 import listener.StatsListener;
+import model.WeatherChange;
 import model.WeatherStats;
 import model.WeatherSubject;
 
@@ -72,4 +74,15 @@ public class StatsView extends JPanel implements WeatherObserver {
     public void update(WeatherSubject subject) {
         if (listener != null) listener.onStatsRequested();
     }
+
+    /**
+     * The statistics name cities only, so they are requested again only when
+     * records arrive, never for a unit or date change.
+     */
+    @Override
+    public void onChange(WeatherSubject subject, WeatherChange change) {
+        if (change.getKind() == ChangeKind.RECORDS_APPENDED) {
+            update(subject);
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package view;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import metrics.EdtDispatchEvent;
+
+/**
+ * An event queue that times every event it dispatches and records the slow
+ * ones as {@link EdtDispatchEvent}s, so a flight recording shows which
+ * listener or {@code invokeLater} task kept the Event Dispatch Thread busy.
+ */
+public class TimedEventQueue extends EventQueue {
+
+    /**
+     * Replaces the system event queue with a timed one. Call it once, before
+     * the UI is shown.
+     */
+    public static void install() {
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new TimedEventQueue());
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        EdtDispatchEvent dispatch = new EdtDispatchEvent();
+        dispatch.begin();
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            dispatch.end();
+            if (dispatch.shouldCommit()) {
+                dispatch.eventType = event.getClass().getName();
+                dispatch.source = event.getSource() == null ? null : event.getSource().getClass().getName();
+                dispatch.detail = event.paramString();
+                dispatch.commit();
+            }
+        }
+    }
+}
@@ -3,14 +3,15 @@ package view;
 import enums.TempUnit;
 import exception.WeatherDataManagerNotValidException;
 import listener.TrackedCitiesListener;
+import metrics.Metrics;
 
 import java.awt.*;
-import java.util.Map;
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 
+import model.CityWeatherBatch;
+import model.WeatherChange;
 import model.WeatherDataManager;
-import model.WeatherRecord;
 import model.WeatherSubject;
 
 /**
@@ -18,10 +19,12 @@ import model.WeatherSubject;
  * Implements WeatherObserver to refresh automatically.
  */
 public class TrackedCitiesView extends JPanel implements WeatherObserver {
-    private DefaultListModel<String> listModel;
+    private TrackedCityListModel listModel;
     private JList<String> cityList;
     private TrackedCitiesListener listener;
     private final int ROW_HEIGHT = 25; // Reverted to original row height
+    private final int MAX_VISIBLE_ROWS = 10; // Scroll beyond this many cities
+    private int visibleRows = 0;
     
     public TrackedCitiesView() {
         initComponents();
@@ -41,14 +44,15 @@ public class TrackedCitiesView extends JPanel implements WeatherObserver {
         setLayout(new BorderLayout());
         
         // Initialize list model and list
-        listModel = new DefaultListModel<>();
+        listModel = new TrackedCityListModel();
         cityList = new JList<>(listModel);
         cityList.setFont(new Font("Monospaced", Font.PLAIN, 12)); // Smaller font
         
-        // Fix the row height to ensure accurate size calculations
+        // Fix the cell size so the list never formats rows just to measure them
+        cityList.setPrototypeCellValue(TrackedCityListModel.prototypeRow());
         cityList.setFixedCellHeight(ROW_HEIGHT);
         
-        // Set cell renderer for better spacing
+        // Set cell renderer for better spacing; the one label is reused for every row
         cityList.setCellRenderer(new DefaultListCellRenderer() {
             @Override
             public Component getListCellRendererComponent(JList<?> list, Object value, 
@@ -61,30 +65,37 @@ public class TrackedCitiesView extends JPanel implements WeatherObserver {
             }
         });
         
-        // We don't want scrollbars - panel should exactly match content size
-        add(cityList, BorderLayout.CENTER);
+        // Match the content size up to MAX_VISIBLE_ROWS, then scroll
+        JScrollPane scrollPane = new JScrollPane(cityList);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        add(scrollPane, BorderLayout.CENTER);
     }
 
     public void addRefreshListener(TrackedCitiesListener l) {
         this.listener = l;
     }
 
-    public void showTrackedCities(Map<String, WeatherRecord> data, TempUnit unit) {
-        listModel.clear();
-        data.forEach((city, rec) -> {
-            // Get temperature in Celsius from the record
-            double celsiusTemp = rec.getTemperature();
-            
-            // Convert to the correct unit
-            double displayTemp = unit.convertFromCelsius(celsiusTemp);
-            
-            String line = String.format("%-12s %6.1f°%s",
-                city, displayTemp, unit.getSymbol());
-            listModel.addElement(line);
-        });
-        
-        // Set the exact preferred size based on content
-        int rowCount = Math.max(1, listModel.getSize());
+    /**
+     * @param batch the weather of the tracked cities
+     * @param unit  the unit to show temperatures in
+     */
+    public void showTrackedCities(CityWeatherBatch batch, TempUnit unit) {
+        listModel.setRows(batch, unit);
+        resizeToRows();
+    }
+
+    /**
+     * Sizes the panel to its rows, up to MAX_VISIBLE_ROWS; only a change in
+     * the number of visible rows needs a new layout.
+     */
+    private void resizeToRows() {
+        int rowCount = Math.max(1, Math.min(listModel.getSize(), MAX_VISIBLE_ROWS));
+        if (rowCount == visibleRows) {
+            return;
+        }
+        visibleRows = rowCount;
+        cityList.setVisibleRowCount(rowCount);
+
         int titleHeight = 25; // Height for the title border
         int paddingHeight = 10; // Reduced padding height
         int listHeight = rowCount * ROW_HEIGHT;
@@ -100,9 +111,33 @@ public class TrackedCitiesView extends JPanel implements WeatherObserver {
         WeatherDataManager dataManager = (WeatherDataManager) subject;
         if (listener != null)
             try {
+                listModel.setCityNames(dataManager.getCityDictionary().names());
                 listener.onRefreshRequested(dataManager.getDate());
             } catch (WeatherDataManagerNotValidException e) {
-                e.printStackTrace();
+                Metrics.reportError(e);
+            }
+    }
+
+    /**
+     * Redraws the shown records in a new unit without querying the model, and
+     * queries again only when the date or the tracked set changes, or records
+     * arrive for the shown date.
+     */
+    @Override
+    public void onChange(WeatherSubject subject, WeatherChange change) {
+        WeatherDataManager dataManager = (WeatherDataManager) subject;
+        try {
+            switch (change.getKind()) {
+                case UNIT_CHANGED -> listModel.setUnit(dataManager.getTempUnit());
+                case RECORDS_APPENDED -> {
+                    if (change.covers(dataManager.getDate())) {
+                        update(subject);
+                    }
+                }
+                default -> update(subject);
             }
+        } catch (WeatherDataManagerNotValidException e) {
+            Metrics.reportError(e);
+        }
     }
-}
\ No newline at end of file
+}
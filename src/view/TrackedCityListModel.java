@@ -0,0 +1,148 @@
+package view;
+
+import enums.TempUnit;
+import javax.swing.AbstractListModel;
+import model.CityWeatherBatch;
+
+/**
+ * List model of the tracked cities' temperatures, one row per city.
+ *
+ * Rows are formatted lazily: a JList with a fixed cell size only asks for the
+ * rows it paints, so only visible rows are ever formatted, and each is cached
+ * until its data changes. A refresh compares the new temperatures with the
+ * shown ones and fires change events only for the runs of rows that differ.
+ */
+class TrackedCityListModel extends AbstractListModel<String> {
+    private static final String ROW_FORMAT = "%-12s %6.1f%s";
+    private static final String NO_DATA_FORMAT = "%-12s %6s";
+
+    private String[] cityNames = new String[0];
+    private int[] cityIds = new int[0];
+    private double[] celsius = new double[0];
+    private double[] displayTemps = new double[0];
+    private String[] rows = new String[0];
+    private TempUnit unit = TempUnit.CELSIUS;
+
+    /**
+     * Returns a row as wide as the widest one, for sizing the list without
+     * formatting every row.
+     */
+    static String prototypeRow() {
+        return String.format(ROW_FORMAT, "", -999.9, "°C");
+    }
+
+    @Override
+    public int getSize() {
+        return cityIds.length;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        String row = rows[index];
+        if (row == null) {
+            String city = cityNames[cityIds[index]];
+            row = Double.isNaN(displayTemps[index])
+                ? String.format(NO_DATA_FORMAT, city, "no data")
+                : String.format(ROW_FORMAT, city, displayTemps[index], unit.getDisplaySymbol());
+            rows[index] = row;
+        }
+        return row;
+    }
+
+    /**
+     * @param cityNames the names of all cities, indexed by city ID
+     */
+    void setCityNames(String[] cityNames) {
+        // Names never change for an ID, so shown rows stay valid
+        this.cityNames = cityNames;
+    }
+
+    /**
+     * Shows the temperatures of a set of cities, one row per city of the
+     * batch; rows without data read "no data".
+     *
+     * @param batch the weather of the cities
+     * @param unit  the unit to show temperatures in
+     */
+    void setRows(CityWeatherBatch batch, TempUnit unit) {
+        int[] cityIds = new int[batch.size()];
+        double[] newCelsius = new double[batch.size()];
+        for (int i = 0; i < cityIds.length; i++) {
+            cityIds[i] = batch.getCityId(i);
+            newCelsius[i] = batch.getTemperature(i); // NaN without data
+        }
+        if (unit != this.unit) {
+            replaceAll(cityIds, newCelsius, unit);
+            return;
+        }
+
+        int oldSize = this.cityIds.length;
+        int newSize = cityIds.length;
+        int common = Math.min(oldSize, newSize);
+        boolean[] changed = new boolean[common];
+        for (int i = 0; i < common; i++) {
+            changed[i] = this.cityIds[i] != cityIds[i] || Double.compare(celsius[i], newCelsius[i]) != 0;
+        }
+
+        String[] newRows = new String[newSize];
+        for (int i = 0; i < common; i++) {
+            if (!changed[i]) {
+                newRows[i] = rows[i];
+            }
+        }
+        this.cityIds = cityIds;
+        this.celsius = newCelsius;
+        this.displayTemps = unit.convertFromCelsius(newCelsius);
+        this.rows = newRows;
+
+        fireChangedRuns(changed);
+        if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        } else if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+    }
+
+    /**
+     * Shows the same temperatures in another unit, converting them all in one pass.
+     */
+    void setUnit(TempUnit unit) {
+        if (unit != this.unit) {
+            replaceAll(cityIds, celsius, unit);
+        }
+    }
+
+    private void replaceAll(int[] cityIds, double[] celsius, TempUnit unit) {
+        int oldSize = this.cityIds.length;
+        this.cityIds = cityIds;
+        this.celsius = celsius;
+        this.unit = unit;
+        this.displayTemps = unit.convertFromCelsius(celsius);
+        this.rows = new String[cityIds.length];
+
+        int newSize = cityIds.length;
+        if (Math.min(oldSize, newSize) > 0) {
+            fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+        }
+        if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        } else if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+    }
+
+    private void fireChangedRuns(boolean[] changed) {
+        int i = 0;
+        while (i < changed.length) {
+            if (!changed[i]) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < changed.length && changed[i]) {
+                i++;
+            }
+            fireContentsChanged(this, start, i - 1);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package view;
 
+import model.WeatherChange;
 import model.WeatherSubject;
 
 /**
@@ -10,9 +11,17 @@ import model.WeatherSubject;
 
 public interface WeatherObserver {
     /**
-     * Called by the WeatherSubject when its state has changed and observers
-     * should update their displays or data accordingly.
+     * Called by the WeatherSubject when observers should refresh their
+     * displays completely, e.g. after the data is loaded.
      */
     void update(WeatherSubject subject);
 
-}
\ No newline at end of file
+    /**
+     * Called by the WeatherSubject for each change the observer subscribed to.
+     * Observers override this to redo only the work the change requires; by
+     * default they refresh completely.
+     */
+    default void onChange(WeatherSubject subject, WeatherChange change) {
+        update(subject);
+    }
+}